@@ -0,0 +1,208 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.benchmark;
+
+import com.codahale.metrics.MetricRegistry;
+import com.teragrep.net_01.channel.socket.PlainFactory;
+import com.teragrep.net_01.eventloop.EventLoop;
+import com.teragrep.net_01.eventloop.EventLoopFactory;
+import com.teragrep.net_01.server.Server;
+import com.teragrep.net_01.server.ServerFactory;
+import com.teragrep.rlp_03.frame.FrameDelegationClockFactory;
+import com.teragrep.rlp_03.frame.delegate.DefaultFrameDelegate;
+import com.teragrep.rlp_03.frame.delegate.FrameDelegate;
+import com.teragrep.rlp_11.LoadProbe;
+import com.teragrep.rlp_11.Probe;
+import com.teragrep.rlp_11.ProbeFactory;
+import com.teragrep.rlp_11.RecordFactory;
+import com.teragrep.rlp_11.Configuration.LoadConfiguration;
+import com.teragrep.rlp_11.Configuration.MetricsConfiguration;
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Starts {@code probes} load generating connections, each running its own probe loop, and measures the time until all
+ * of them are connected. The platform thread count and the resident set size of the JVM with all loops running are
+ * reported as the {@code threads} and {@code rssKilobytes} counters. {@code virtual} needs Java 21 or later and every
+ * connection takes two file descriptors, so raise {@code ulimit -n} accordingly.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProbeThreadsBenchmark {
+
+    @Param({
+            "1000", "5000", "10000"
+    })
+    public int probes;
+
+    // probe.threads
+    @Param({
+            "platform", "virtual"
+    })
+    public String threads;
+
+    private final int serverPort = 12348;
+    private EventLoop eventLoop;
+    private Thread eventLoopThread;
+    private ThreadPoolExecutor threadPoolExecutor;
+    private Server server;
+    private Probe probe;
+    private Thread probeThread;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+
+        public long threads;
+        public long rssKilobytes;
+    }
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        eventLoop = new EventLoopFactory().create();
+        eventLoopThread = new Thread(eventLoop);
+        eventLoopThread.start();
+
+        final Supplier<FrameDelegate> frameDelegateSupplier = () -> new DefaultFrameDelegate((frameContext) -> {
+        });
+        threadPoolExecutor = new ThreadPoolExecutor(
+                1,
+                1,
+                Long.MAX_VALUE,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>()
+        );
+        server = new ServerFactory(
+                eventLoop,
+                threadPoolExecutor,
+                new PlainFactory(),
+                new FrameDelegationClockFactory(frameDelegateSupplier)
+        ).create(serverPort);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws InterruptedException, IOException {
+        eventLoop.stop();
+        threadPoolExecutor.shutdown();
+        eventLoopThread.join();
+        server.close();
+    }
+
+    @Benchmark
+    public void connectAll(final Footprint footprint) throws InterruptedException, IOException {
+        final Map<String, String> map = new HashMap<>();
+        map.put("target.hostname", "127.0.0.1");
+        map.put("target.port", String.valueOf(serverPort));
+        map.put("target.reconnectinterval", "1000");
+        map.put("metrics.window", "100");
+        map.put("probe.mode", "load");
+        map.put("probe.threads", threads);
+        // one record per second on each connection
+        map.put("load.rate", String.valueOf(probes));
+        map.put("load.batchsize", "1");
+        map.put("load.connections", String.valueOf(probes));
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        probe = new ProbeFactory(
+                new ProbeConfiguration(map),
+                new MetricsConfiguration(map),
+                new LoadConfiguration(map),
+                metricRegistry
+        ).createProbe(new TargetConfiguration(map), new RecordFactory("localhost", "rlp_11", "rlp_11"));
+        probeThread = new Thread(probe::start);
+        probeThread.start();
+        while (metricRegistry.counter(MetricRegistry.name(LoadProbe.class, "connects")).getCount() < probes) {
+            Thread.sleep(10L);
+        }
+        footprint.threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        footprint.rssKilobytes = rssKilobytes();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopProbes() throws InterruptedException {
+        probe.stop();
+        probeThread.join();
+    }
+
+    private long rssKilobytes() throws IOException {
+        long rss = -1L;
+        for (final String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.US_ASCII)) {
+            if (line.startsWith("VmRSS:")) {
+                rss = Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        }
+        return rss;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.benchmark;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.Timer;
+import com.teragrep.net_01.channel.socket.PlainFactory;
+import com.teragrep.net_01.eventloop.EventLoop;
+import com.teragrep.net_01.eventloop.EventLoopFactory;
+import com.teragrep.net_01.server.Server;
+import com.teragrep.net_01.server.ServerFactory;
+import com.teragrep.rlp_01.RelpConnection;
+import com.teragrep.rlp_03.frame.FrameDelegationClockFactory;
+import com.teragrep.rlp_03.frame.delegate.DefaultFrameDelegate;
+import com.teragrep.rlp_03.frame.delegate.FrameDelegate;
+import com.teragrep.rlp_11.RecordFactory;
+import com.teragrep.rlp_11.RelpProbe;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.schedule.Schedule;
+import com.teragrep.rlp_11.transport.RelpConnectionTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * RelpProbe commit loop against an in-process rlp_03 server that acks immediately. The probe runs on its own thread
+ * and is released for a batch of records per invocation, so the thread handoff is amortized over the batch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RelpProbeBenchmark {
+
+    private static final int BATCH = 100;
+    private final int serverPort = 12346;
+    private final Semaphore requested = new Semaphore(0);
+    private final Semaphore completed = new Semaphore(0);
+    private EventLoop eventLoop;
+    private Thread eventLoopThread;
+    private ThreadPoolExecutor threadPoolExecutor;
+    private Server server;
+    private RelpProbe relpProbe;
+    private Thread probeThread;
+
+    @Setup
+    public void setup() throws IOException {
+        eventLoop = new EventLoopFactory().create();
+        eventLoopThread = new Thread(eventLoop);
+        eventLoopThread.start();
+
+        final Supplier<FrameDelegate> frameDelegateSupplier = () -> new DefaultFrameDelegate((frameContext) -> {
+        });
+        threadPoolExecutor = new ThreadPoolExecutor(
+                1,
+                1,
+                Long.MAX_VALUE,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>()
+        );
+        server = new ServerFactory(
+                eventLoop,
+                threadPoolExecutor,
+                new PlainFactory(),
+                new FrameDelegationClockFactory(frameDelegateSupplier)
+        ).create(serverPort);
+
+        final Map<String, String> map = new HashMap<>();
+        map.put("target.hostname", "127.0.0.1");
+        map.put("target.port", String.valueOf(serverPort));
+        map.put("target.reconnectinterval", "1000");
+
+        relpProbe = new RelpProbe(
+                new TargetConfiguration(map),
+                new PermitSchedule(requested),
+                new RecordFactory("localhost", "rlp_11", "rlp_11"),
+                new RelpConnectionTransport(new RelpConnection()),
+                new SignalingCounter(completed),
+                new Counter(),
+                new Counter(),
+                new Counter(),
+                new Counter(),
+                new Timer(new SlidingWindowReservoir(10000)),
+                new Timer(new SlidingWindowReservoir(10000))
+        );
+        probeThread = new Thread(relpProbe::start);
+        probeThread.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException, IOException {
+        final CompletableFuture<Void> stopped = CompletableFuture.runAsync(relpProbe::stop);
+        while (probeThread.isAlive()) {
+            // the probe is parked in the schedule until it gets a permit
+            requested.release();
+            probeThread.join(100L);
+        }
+        stopped.join();
+        eventLoop.stop();
+        threadPoolExecutor.shutdown();
+        eventLoopThread.join();
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void commit() throws InterruptedException {
+        requested.release(BATCH);
+        completed.acquire(BATCH);
+    }
+
+    private static final class PermitSchedule implements Schedule {
+
+        private final Semaphore requested;
+
+        private PermitSchedule(final Semaphore requested) {
+            this.requested = requested;
+        }
+
+        @Override
+        public long next() throws InterruptedException {
+            requested.acquire();
+            return System.nanoTime();
+        }
+
+        @Override
+        public long expectedInterval() {
+            return 0L;
+        }
+
+        @Override
+        public void acknowledged(final long latency) {
+            // permits are released by the benchmark
+        }
+
+        @Override
+        public void failed() {
+            // permits are released by the benchmark
+        }
+    }
+
+    private static final class SignalingCounter extends Counter {
+
+        private final Semaphore completed;
+
+        private SignalingCounter(final Semaphore completed) {
+            super();
+            this.completed = completed;
+        }
+
+        @Override
+        public void inc(final long n) {
+            super.inc(n);
+            completed.release((int) n);
+        }
+    }
+}
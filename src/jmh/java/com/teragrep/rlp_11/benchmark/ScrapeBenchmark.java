@@ -0,0 +1,143 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.benchmark;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.Timer;
+import com.teragrep.rlp_11.RelpProbe;
+import com.teragrep.rlp_11.metrics.ExpositionCache;
+import com.teragrep.rlp_11.metrics.MetricNames;
+import com.teragrep.rlp_11.metrics.TargetSampleBuilder;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.dropwizard.DropwizardExports;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one /metrics scrape of the registry RelpProbe fills, with full reservoirs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScrapeBenchmark {
+
+    @Param({
+            "1", "10"
+    })
+    public int targets;
+
+    // metrics.window
+    @Param({
+            "1000", "10000"
+    })
+    public int window;
+
+    private CollectorRegistry collectorRegistry;
+    private ExpositionCache expositionCache;
+
+    @Setup
+    public void setup() {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        for (int i = 0; i < targets; i++) {
+            final MetricNames metricNames = new MetricNames(RelpProbe.class, "target" + i);
+            metricRegistry.counter(metricNames.name("records")).inc(window);
+            metricRegistry.counter(metricNames.name("resends"));
+            metricRegistry.counter(metricNames.name("connects")).inc();
+            metricRegistry.counter(metricNames.name("disconnects"));
+            metricRegistry.counter(metricNames.name("retriedConnects"));
+            final Timer sendLatency = metricRegistry
+                    .timer(metricNames.name("sendLatency"), () -> new Timer(new SlidingWindowReservoir(window)));
+            final Timer connectLatency = metricRegistry
+                    .timer(metricNames.name("connectLatency"), () -> new Timer(new SlidingWindowReservoir(window)));
+            for (int j = 0; j < window; j++) {
+                sendLatency.update(1_000_000L + j * 1_000L, TimeUnit.NANOSECONDS);
+                connectLatency.update(1_000_000L + j * 1_000L, TimeUnit.NANOSECONDS);
+            }
+        }
+        collectorRegistry = new CollectorRegistry();
+        collectorRegistry.register(new DropwizardExports(metricRegistry, new TargetSampleBuilder()));
+        // prometheus.cache.ttl default
+        expositionCache = new ExpositionCache(
+                collectorRegistry,
+                1000L,
+                TimeUnit.MILLISECONDS,
+                new Counter(),
+                new Counter(),
+                new Timer()
+        );
+    }
+
+    @Benchmark
+    public int scrape() throws IOException {
+        final StringWriter writer = new StringWriter();
+        TextFormat.write004(writer, collectorRegistry.metricFamilySamples());
+        return writer.getBuffer().length();
+    }
+
+    @Benchmark
+    public int cachedScrape() throws IOException {
+        return expositionCache.exposition().gzipped().length;
+    }
+}
@@ -48,6 +48,8 @@ package com.teragrep.rlp_11.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class MetricsConfiguration {
@@ -100,4 +102,129 @@ public class MetricsConfiguration {
         }
         return interval;
     }
+
+    public String reservoir() {
+        final String reservoir = config.getOrDefault("metrics.reservoir", "sliding");
+        if (
+            !"sliding".equals(reservoir) && !"hdr".equals(reservoir) && !"timewindow".equals(reservoir)
+                    && !"decaying".equals(reservoir)
+        ) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <metrics.reservoir> <[{}]> is invalid, expected <sliding>, <hdr>, <timewindow> or <decaying>",
+                            reservoir
+                    );
+            throw new ConfigurationException("Invalid value for <metrics.reservoir> received");
+        }
+        return reservoir;
+    }
+
+    public long windowDuration() {
+        final String windowDurationString = config.getOrDefault("metrics.window.duration", "60");
+        final long windowDuration;
+        try {
+            windowDuration = Long.parseLong(windowDurationString);
+        }
+        catch (NumberFormatException e) {
+            LOGGER.error("Configuration failure: Invalid value for <metrics.window.duration>: <{}>", e.getMessage());
+            throw e;
+        }
+        if (windowDuration <= 0) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <metrics.window.duration> <[{}]> too small, expected to be >0",
+                            windowDuration
+                    );
+            throw new ConfigurationException("Invalid value for <metrics.window.duration> received");
+        }
+        return windowDuration;
+    }
+
+    public boolean histogram() {
+        final String histogram = config.getOrDefault("metrics.histogram", "true");
+        if (!"true".equals(histogram) && !"false".equals(histogram)) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <metrics.histogram> <[{}]> is invalid, expected <true> or <false>",
+                            histogram
+                    );
+            throw new ConfigurationException("Invalid value for <metrics.histogram> received");
+        }
+        return Boolean.parseBoolean(histogram);
+    }
+
+    /**
+     * Upper bounds of the histogram buckets in milliseconds, exponential from 0.125ms to about 65s by default.
+     */
+    public List<Double> histogramBuckets() {
+        final String bucketsString = config.get("metrics.histogram.buckets");
+        final List<Double> buckets = new ArrayList<>();
+        if (bucketsString == null) {
+            for (int i = 0; i < 20; i++) {
+                buckets.add(0.125 * Math.pow(2, i));
+            }
+        }
+        else {
+            for (final String bucketString : bucketsString.split(",")) {
+                final double bucket;
+                try {
+                    bucket = Double.parseDouble(bucketString.trim());
+                }
+                catch (NumberFormatException e) {
+                    LOGGER
+                            .error(
+                                    "Configuration failure: Invalid value for <metrics.histogram.buckets>: <{}>",
+                                    e.getMessage()
+                            );
+                    throw e;
+                }
+                final double previous = buckets.isEmpty() ? 0 : buckets.get(buckets.size() - 1);
+                if (!(bucket > previous) || Double.isInfinite(bucket)) {
+                    LOGGER
+                            .error(
+                                    "Configuration failure: <metrics.histogram.buckets> <[{}]> is invalid, expected finite bounds >0 in increasing order",
+                                    bucketsString
+                            );
+                    throw new ConfigurationException("Invalid value for <metrics.histogram.buckets> received");
+                }
+                buckets.add(bucket);
+            }
+        }
+        return buckets;
+    }
+
+    /**
+     * Upper bounds of the record size classes in bytes that the send latency is also recorded by, none by default.
+     */
+    public List<Integer> sizeClasses() {
+        final String sizeClassesString = config.getOrDefault("metrics.sizeclasses", "");
+        final List<Integer> sizeClasses = new ArrayList<>();
+        if (!sizeClassesString.trim().isEmpty()) {
+            for (final String sizeClassString : sizeClassesString.split(",")) {
+                final int sizeClass;
+                try {
+                    sizeClass = Integer.parseInt(sizeClassString.trim());
+                }
+                catch (NumberFormatException e) {
+                    LOGGER
+                            .error(
+                                    "Configuration failure: Invalid value for <metrics.sizeclasses>: <{}>",
+                                    e.getMessage()
+                            );
+                    throw e;
+                }
+                final int previous = sizeClasses.isEmpty() ? 0 : sizeClasses.get(sizeClasses.size() - 1);
+                if (sizeClass <= previous) {
+                    LOGGER
+                            .error(
+                                    "Configuration failure: <metrics.sizeclasses> <[{}]> is invalid, expected bounds >0 in increasing order",
+                                    sizeClassesString
+                            );
+                    throw new ConfigurationException("Invalid value for <metrics.sizeclasses> received");
+                }
+                sizeClasses.add(sizeClass);
+            }
+        }
+        return sizeClasses;
+    }
 }
@@ -0,0 +1,166 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.Configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+public class PayloadConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PayloadConfiguration.class);
+    // records are at most 64 KiB, the common maximum message size of syslog relays
+    private static final int MAX_SIZE = 65536;
+    private final Map<String, String> config;
+
+    public PayloadConfiguration(final Map<String, String> config) {
+        this.config = config;
+    }
+
+    public String distribution() {
+        final String distribution = config.getOrDefault("payload.size.distribution", "none");
+        if (
+            !"none".equals(distribution) && !"fixed".equals(distribution) && !"uniform".equals(distribution)
+                    && !"lognormal".equals(distribution) && !"histogram".equals(distribution)
+        ) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <payload.size.distribution> <[{}]> is invalid, expected <none>, <fixed>, <uniform>, <lognormal> or <histogram>",
+                            distribution
+                    );
+            throw new ConfigurationException("Invalid value for <payload.size.distribution> received");
+        }
+        return distribution;
+    }
+
+    public int size() {
+        return size("payload.size");
+    }
+
+    public int sizeMin() {
+        return size("payload.size.min");
+    }
+
+    public int sizeMax() {
+        final int sizeMax = size("payload.size.max");
+        if (sizeMax < sizeMin()) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <payload.size.max> <[{}]> is smaller than <payload.size.min> <[{}]>",
+                            sizeMax, sizeMin()
+                    );
+            throw new ConfigurationException("Invalid value for <payload.size.max> received");
+        }
+        return sizeMax;
+    }
+
+    public int median() {
+        return size("payload.size.median");
+    }
+
+    public double sigma() {
+        final String sigmaString = config.getOrDefault("payload.size.sigma", "1.0");
+        final double sigma;
+        try {
+            sigma = Double.parseDouble(sigmaString);
+        }
+        catch (NumberFormatException e) {
+            LOGGER.error("Configuration failure: Invalid value for <payload.size.sigma>: <{}>", e.getMessage());
+            throw e;
+        }
+        if (!(sigma > 0) || Double.isInfinite(sigma)) {
+            LOGGER.error("Configuration failure: <payload.size.sigma> <[{}]> is invalid, expected finite >0", sigma);
+            throw new ConfigurationException("Invalid value for <payload.size.sigma> received");
+        }
+        return sigma;
+    }
+
+    public String histogram() {
+        final String histogram = config.get("payload.size.histogram");
+        if (histogram == null || histogram.isEmpty()) {
+            LOGGER.error("Configuration failure: <payload.size.histogram> is null");
+            throw new ConfigurationException("Invalid value for <payload.size.histogram> received");
+        }
+        return histogram;
+    }
+
+    /**
+     * @return path of the file the record payloads are replayed from, empty to pad the records instead
+     */
+    public String samples() {
+        return config.getOrDefault("payload.samples", "");
+    }
+
+    public int maxSize() {
+        return MAX_SIZE;
+    }
+
+    private int size(final String key) {
+        final String sizeString = config.get(key);
+        if (sizeString == null) {
+            LOGGER.error("Configuration failure: <{}> is null", key);
+            throw new ConfigurationException("Invalid value for <" + key + "> received");
+        }
+        final int size;
+        try {
+            size = Integer.parseInt(sizeString);
+        }
+        catch (NumberFormatException e) {
+            LOGGER.error("Configuration failure: Invalid value for <{}>: <{}>", key, e.getMessage());
+            throw e;
+        }
+        if (size < 1 || size > MAX_SIZE) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <{}> <[{}]> is in invalid range, expected between 1 and {}",
+                            key, size, MAX_SIZE
+                    );
+            throw new ConfigurationException("Invalid value for <" + key + "> received");
+        }
+        return size;
+    }
+}
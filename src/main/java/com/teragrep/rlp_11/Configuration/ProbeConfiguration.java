@@ -79,4 +79,169 @@ public class ProbeConfiguration {
         }
         return interval;
     }
+
+    public String scheduling() {
+        final String scheduling = config.getOrDefault("probe.scheduling", "fixeddelay");
+        if (!"fixeddelay".equals(scheduling) && !"fixedrate".equals(scheduling) && !"adaptive".equals(scheduling)) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <probe.scheduling> <[{}]> is invalid, expected <fixeddelay>, <fixedrate> or <adaptive>",
+                            scheduling
+                    );
+            throw new ConfigurationException("Invalid value for <probe.scheduling> received");
+        }
+        return scheduling;
+    }
+
+    /**
+     * @return shortest interval the adaptive schedule sends records at, in milliseconds
+     */
+    public int adaptiveFloor() {
+        final String floorString = config.getOrDefault("probe.adaptive.floor", "100");
+        final int floor;
+        try {
+            floor = Integer.parseInt(floorString);
+        }
+        catch (NumberFormatException e) {
+            LOGGER.error("Configuration failure: Invalid value for <probe.adaptive.floor>: <{}>", e.getMessage());
+            throw e;
+        }
+        if (floor <= 0 || floor > interval()) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <probe.adaptive.floor> <[{}]> is in invalid range, expected between 1 and <probe.interval> <[{}]>",
+                            floor, interval()
+                    );
+            throw new ConfigurationException("Invalid value for <probe.adaptive.floor> received");
+        }
+        return floor;
+    }
+
+    /**
+     * @return latency in milliseconds above which the adaptive schedule sends records faster
+     */
+    public int adaptiveThreshold() {
+        final String thresholdString = config.get("probe.adaptive.threshold");
+        if (thresholdString == null) {
+            LOGGER.error("Configuration failure: <probe.adaptive.threshold> is null");
+            throw new ConfigurationException("Invalid value for <probe.adaptive.threshold> received");
+        }
+        final int threshold;
+        try {
+            threshold = Integer.parseInt(thresholdString);
+        }
+        catch (NumberFormatException e) {
+            LOGGER.error("Configuration failure: Invalid value for <probe.adaptive.threshold>: <{}>", e.getMessage());
+            throw e;
+        }
+        if (threshold <= 0) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <probe.adaptive.threshold> <[{}]> too small, expected to be >0",
+                            threshold
+                    );
+            throw new ConfigurationException("Invalid value for <probe.adaptive.threshold> received");
+        }
+        return threshold;
+    }
+
+    public String mode() {
+        final String mode = config.getOrDefault("probe.mode", "interval");
+        if (
+            !"interval".equals(mode) && !"pipelined".equals(mode) && !"load".equals(mode) && !"eventloop".equals(mode)
+                    && !"replay".equals(mode) && !"pool".equals(mode)
+        ) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <probe.mode> <[{}]> is invalid, expected <interval>, <pipelined>, <load>, <eventloop>, <replay> or <pool>",
+                            mode
+                    );
+            throw new ConfigurationException("Invalid value for <probe.mode> received");
+        }
+        return mode;
+    }
+
+    public int window() {
+        final String windowString = config.getOrDefault("probe.window", "16");
+        final int window;
+        try {
+            window = Integer.parseInt(windowString);
+        }
+        catch (NumberFormatException e) {
+            LOGGER.error("Configuration failure: Invalid value for <probe.window>: <{}>", e.getMessage());
+            throw e;
+        }
+        if (window <= 0) {
+            LOGGER.error("Configuration failure: <probe.window> <[{}]> too small, expected to be >0", window);
+            throw new ConfigurationException("Invalid value for <probe.window> received");
+        }
+        return window;
+    }
+
+    public int connections() {
+        final String connectionsString = config.getOrDefault("probe.connections", "1");
+        final int connections;
+        try {
+            connections = Integer.parseInt(connectionsString);
+        }
+        catch (NumberFormatException e) {
+            LOGGER.error("Configuration failure: Invalid value for <probe.connections>: <{}>", e.getMessage());
+            throw e;
+        }
+        if (connections <= 0) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <probe.connections> <[{}]> too small, expected to be >0",
+                            connections
+                    );
+            throw new ConfigurationException("Invalid value for <probe.connections> received");
+        }
+        return connections;
+    }
+
+    /**
+     * @return share of the records sent over a new connection in <code>pool</code> mode
+     */
+    public double fresh() {
+        final String freshString = config.getOrDefault("probe.fresh", "0.1");
+        final double fresh;
+        try {
+            fresh = Double.parseDouble(freshString);
+        }
+        catch (NumberFormatException e) {
+            LOGGER.error("Configuration failure: Invalid value for <probe.fresh>: <{}>", e.getMessage());
+            throw e;
+        }
+        if (!(fresh >= 0) || fresh > 1) {
+            LOGGER.error("Configuration failure: <probe.fresh> <[{}]> is invalid, expected between 0 and 1", fresh);
+            throw new ConfigurationException("Invalid value for <probe.fresh> received");
+        }
+        return fresh;
+    }
+
+    public String transport() {
+        final String transport = config.getOrDefault("probe.transport", "rlp_01");
+        if (!"rlp_01".equals(transport) && !"instrumented".equals(transport)) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <probe.transport> <[{}]> is invalid, expected <rlp_01> or <instrumented>",
+                            transport
+                    );
+            throw new ConfigurationException("Invalid value for <probe.transport> received");
+        }
+        return transport;
+    }
+
+    public String threads() {
+        final String threads = config.getOrDefault("probe.threads", "platform");
+        if (!"platform".equals(threads) && !"virtual".equals(threads)) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <probe.threads> <[{}]> is invalid, expected <platform> or <virtual>",
+                            threads
+                    );
+            throw new ConfigurationException("Invalid value for <probe.threads> received");
+        }
+        return threads;
+    }
 }
@@ -83,4 +83,25 @@ public class PrometheusConfiguration {
         }
         return port;
     }
+
+    public long cacheTtl() {
+        final String cacheTtlString = config.getOrDefault("prometheus.cache.ttl", "1000");
+        final long cacheTtl;
+        try {
+            cacheTtl = Long.parseLong(cacheTtlString);
+        }
+        catch (NumberFormatException e) {
+            LOGGER.error("Configuration failure: Invalid value for <prometheus.cache.ttl>: <{}>", e.getMessage());
+            throw e;
+        }
+        if (cacheTtl < 0) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <prometheus.cache.ttl> <[{}]> too small, expected to be >=0",
+                            cacheTtl
+                    );
+            throw new ConfigurationException("Invalid value for <prometheus.cache.ttl> received");
+        }
+        return cacheTtl;
+    }
 }
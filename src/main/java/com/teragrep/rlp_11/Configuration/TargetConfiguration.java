@@ -54,67 +54,269 @@ public class TargetConfiguration {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TargetConfiguration.class);
     private final Map<String, String> config;
+    private final String name;
+    private final String address;
 
     public TargetConfiguration(final Map<String, String> config) {
+        this(config, "");
+    }
+
+    public TargetConfiguration(final Map<String, String> config, final String name) {
+        this(config, name, "");
+    }
+
+    public TargetConfiguration(final Map<String, String> config, final String name, final String address) {
         this.config = config;
+        this.name = name;
+        this.address = address;
+    }
+
+    /**
+     * @return the same target, connected at one of the addresses its hostname resolves to
+     */
+    public TargetConfiguration withAddress(final String address) {
+        return new TargetConfiguration(config, name, address);
+    }
+
+    public String name() {
+        return name;
     }
 
     public String hostname() {
-        final String hostname = config.get("target.hostname");
+        final String hostname = config.get(key("hostname"));
         if (hostname == null) {
-            LOGGER.error("Configuration failure: <target.hostname> is null");
-            throw new ConfigurationException("Invalid value for <target.hostname> received");
+            LOGGER.error("Configuration failure: <{}> is null", key("hostname"));
+            throw new ConfigurationException("Invalid value for <" + key("hostname") + "> received");
         }
         return hostname;
     }
 
+    /**
+     * @return address to connect to, the hostname unless the target was created with an address
+     */
+    public String address() {
+        final String connectAddress;
+        if (address.isEmpty()) {
+            connectAddress = hostname();
+        }
+        else {
+            connectAddress = address;
+        }
+        return connectAddress;
+    }
+
     public int port() {
-        final String portString = config.get("target.port");
+        final String portString = config.get(key("port"));
         if (portString == null) {
-            LOGGER.error("Configuration failure: <target.port> is null");
-            throw new ConfigurationException("Invalid value for <target.port> received");
+            LOGGER.error("Configuration failure: <{}> is null", key("port"));
+            throw new ConfigurationException("Invalid value for <" + key("port") + "> received");
         }
         final int port;
         try {
             port = Integer.parseInt(portString);
         }
         catch (NumberFormatException e) {
-            LOGGER.error("Configuration failure: Invalid value for <target.port>: <{}>", e.getMessage());
+            LOGGER.error("Configuration failure: Invalid value for <{}>: <{}>", key("port"), e.getMessage());
             throw e;
         }
         if (port < 1 || port > 65535) {
             LOGGER
                     .error(
-                            "Configuration failure: <target.port> <[{}]> is in invalid range, expected between 1 and 65535",
-                            port
+                            "Configuration failure: <{}> <[{}]> is in invalid range, expected between 1 and 65535",
+                            key("port"), port
                     );
-            throw new ConfigurationException("Invalid value for <target.port> received");
+            throw new ConfigurationException("Invalid value for <" + key("port") + "> received");
         }
         return port;
     }
 
     public int reconnectInterval() {
-        final String reconnectIntervalString = config.get("target.reconnectinterval");
+        final String reconnectIntervalString = config.get(key("reconnectinterval"));
         if (reconnectIntervalString == null) {
-            LOGGER.error("Configuration failure: <target.reconnectinterval> is null");
-            throw new ConfigurationException("Invalid value for <target.reconnectinterval> received");
+            LOGGER.error("Configuration failure: <{}> is null", key("reconnectinterval"));
+            throw new ConfigurationException("Invalid value for <" + key("reconnectinterval") + "> received");
         }
         final int reconnectInterval;
         try {
             reconnectInterval = Integer.parseInt(reconnectIntervalString);
         }
         catch (NumberFormatException e) {
-            LOGGER.error("Configuration failure: Invalid value for <target.reconnectinterval>: <{}>", e.getMessage());
+            LOGGER
+                    .error(
+                            "Configuration failure: Invalid value for <{}>: <{}>", key("reconnectinterval"),
+                            e.getMessage()
+                    );
             throw e;
         }
         if (reconnectInterval <= 0) {
             LOGGER
                     .error(
-                            "Configuration failure: <target.reconnectinterval> <[{}]> too small, expected to be >0",
-                            reconnectInterval
+                            "Configuration failure: <{}> <[{}]> too small, expected to be >0",
+                            key("reconnectinterval"), reconnectInterval
                     );
-            throw new ConfigurationException("Invalid value for <target.reconnectinterval> received");
+            throw new ConfigurationException("Invalid value for <" + key("reconnectinterval") + "> received");
         }
         return reconnectInterval;
     }
+
+    public String reconnectPolicy() {
+        final String reconnectPolicy = config.getOrDefault(key("reconnect.policy"), "fixed");
+        if (!"fixed".equals(reconnectPolicy) && !"backoff".equals(reconnectPolicy)) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <{}> <[{}]> is invalid, expected <fixed> or <backoff>",
+                            key("reconnect.policy"), reconnectPolicy
+                    );
+            throw new ConfigurationException("Invalid value for <" + key("reconnect.policy") + "> received");
+        }
+        return reconnectPolicy;
+    }
+
+    /**
+     * @return longest delay between reconnects with the <code>backoff</code> policy, in milliseconds
+     */
+    public int reconnectMaxInterval() {
+        final int reconnectMaxInterval = optionalInt("reconnect.maxinterval", "60000");
+        if (reconnectMaxInterval < reconnectInterval()) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <{}> <[{}]> is smaller than <{}> <[{}]>",
+                            key("reconnect.maxinterval"), reconnectMaxInterval, key("reconnectinterval"),
+                            reconnectInterval()
+                    );
+            throw new ConfigurationException("Invalid value for <" + key("reconnect.maxinterval") + "> received");
+        }
+        return reconnectMaxInterval;
+    }
+
+    /**
+     * @return failed connects in a row that open the circuit breaker, 0 if the circuit breaker is disabled
+     */
+    public int reconnectMaxAttempts() {
+        final int reconnectMaxAttempts = optionalInt("reconnect.maxattempts", "0");
+        if (reconnectMaxAttempts < 0) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <{}> <[{}]> too small, expected to be >=0",
+                            key("reconnect.maxattempts"), reconnectMaxAttempts
+                    );
+            throw new ConfigurationException("Invalid value for <" + key("reconnect.maxattempts") + "> received");
+        }
+        return reconnectMaxAttempts;
+    }
+
+    /**
+     * @return time the circuit breaker stays open before a connect is tried again, in milliseconds
+     */
+    public int reconnectOpenTime() {
+        final int reconnectOpenTime = optionalInt("reconnect.opentime", "30000");
+        if (reconnectOpenTime <= 0) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <{}> <[{}]> too small, expected to be >0",
+                            key("reconnect.opentime"), reconnectOpenTime
+                    );
+            throw new ConfigurationException("Invalid value for <" + key("reconnect.opentime") + "> received");
+        }
+        return reconnectOpenTime;
+    }
+
+    public String resolve() {
+        final String resolve = config.getOrDefault(key("resolve"), "none");
+        if (!"none".equals(resolve) && !"roundrobin".equals(resolve) && !"parallel".equals(resolve)) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <{}> <[{}]> is invalid, expected <none>, <roundrobin> or <parallel>",
+                            key("resolve"), resolve
+                    );
+            throw new ConfigurationException("Invalid value for <" + key("resolve") + "> received");
+        }
+        return resolve;
+    }
+
+    /**
+     * @return time the addresses of the hostname are cached before resolving it again, in milliseconds
+     */
+    public int resolveTtl() {
+        final int resolveTtl = optionalInt("resolve.ttl", "60000");
+        if (resolveTtl <= 0) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <{}> <[{}]> too small, expected to be >0", key("resolve.ttl"),
+                            resolveTtl
+                    );
+            throw new ConfigurationException("Invalid value for <" + key("resolve.ttl") + "> received");
+        }
+        return resolveTtl;
+    }
+
+    /**
+     * @return time connecting may take before the watchdog tears the connection down, in milliseconds, 0 if disabled
+     */
+    public int connectTimeout() {
+        return timeout("timeout.connect", "0");
+    }
+
+    /**
+     * @return time a commit may take before the watchdog tears the connection down, in milliseconds, 0 if disabled
+     */
+    public int commitTimeout() {
+        return timeout("timeout.commit", "0");
+    }
+
+    /**
+     * @return time to wait for an acknowledgement to be read, in milliseconds, 0 if disabled
+     */
+    public int ackTimeout() {
+        return timeout("timeout.ack", "0");
+    }
+
+    /**
+     * @return time the records in flight may take to complete when the probe is stopped before they are cancelled, in
+     *         milliseconds
+     */
+    public int drainTimeout() {
+        return timeout("timeout.drain", "5000");
+    }
+
+    public TlsConfiguration tls() {
+        return new TlsConfiguration(config, key("tls"));
+    }
+
+    private int timeout(final String suffix, final String defaultValue) {
+        final int timeout = optionalInt(suffix, defaultValue);
+        if (timeout < 0) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <{}> <[{}]> too small, expected to be >=0", key(suffix),
+                            timeout
+                    );
+            throw new ConfigurationException("Invalid value for <" + key(suffix) + "> received");
+        }
+        return timeout;
+    }
+
+    private int optionalInt(final String suffix, final String defaultValue) {
+        final String valueString = config.getOrDefault(key(suffix), defaultValue);
+        final int value;
+        try {
+            value = Integer.parseInt(valueString);
+        }
+        catch (NumberFormatException e) {
+            LOGGER.error("Configuration failure: Invalid value for <{}>: <{}>", key(suffix), e.getMessage());
+            throw e;
+        }
+        return value;
+    }
+
+    private String key(final String suffix) {
+        final String key;
+        if (name.isEmpty()) {
+            key = "target." + suffix;
+        }
+        else {
+            key = "target." + name + "." + suffix;
+        }
+        return key;
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.Configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public class TargetsConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TargetsConfiguration.class);
+    private static final Pattern NAME_PATTERN = Pattern.compile("^[a-zA-Z0-9_-]+$");
+    private final Map<String, String> config;
+
+    public TargetsConfiguration(final Map<String, String> config) {
+        this.config = config;
+    }
+
+    public List<TargetConfiguration> targets() {
+        final String namesString = config.get("target.names");
+        final List<TargetConfiguration> targets = new ArrayList<>();
+        if (namesString == null) {
+            LOGGER.debug("<target.names> is not set, using a single unnamed target");
+            targets.add(new TargetConfiguration(config));
+        }
+        else {
+            final Set<String> seen = new HashSet<>();
+            for (final String rawName : namesString.split(",")) {
+                final String name = rawName.trim();
+                if (!NAME_PATTERN.matcher(name).matches()) {
+                    LOGGER
+                            .error(
+                                    "Configuration failure: <target.names> contains invalid name <[{}]>, expected to match <{}>",
+                                    name, NAME_PATTERN.pattern()
+                            );
+                    throw new ConfigurationException("Invalid value for <target.names> received");
+                }
+                if (!seen.add(name)) {
+                    LOGGER.error("Configuration failure: <target.names> contains duplicate name <[{}]>", name);
+                    throw new ConfigurationException("Invalid value for <target.names> received");
+                }
+                targets.add(new TargetConfiguration(config, name));
+            }
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.Configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TLS settings of a target, read from the keys under the given prefix, for example <code>target.tls</code>.
+ */
+public class TlsConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TlsConfiguration.class);
+    private final Map<String, String> config;
+    private final String prefix;
+
+    public TlsConfiguration(final Map<String, String> config, final String prefix) {
+        this.config = config;
+        this.prefix = prefix;
+    }
+
+    public boolean enabled() {
+        final String enabled = config.getOrDefault(key("enabled"), "false");
+        if (!"true".equals(enabled) && !"false".equals(enabled)) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <{}> <[{}]> is invalid, expected <true> or <false>",
+                            key("enabled"), enabled
+                    );
+            throw new ConfigurationException("Invalid value for <" + key("enabled") + "> received");
+        }
+        return Boolean.parseBoolean(enabled);
+    }
+
+    /**
+     * @return path of the keystore holding the client certificate, empty if the client does not authenticate
+     */
+    public String keystore() {
+        return config.getOrDefault(key("keystore"), "");
+    }
+
+    public String keystorePassword() {
+        return config.getOrDefault(key("keystore.password"), "");
+    }
+
+    /**
+     * @return path of the truststore used to verify the server, empty for the default truststore of the JVM
+     */
+    public String truststore() {
+        return config.getOrDefault(key("truststore"), "");
+    }
+
+    public String truststorePassword() {
+        return config.getOrDefault(key("truststore.password"), "");
+    }
+
+    /**
+     * @return server name sent in the SNI extension, empty to send the target hostname
+     */
+    public String serverName() {
+        return config.getOrDefault(key("servername"), "");
+    }
+
+    /**
+     * @return enabled protocols, empty for the defaults of the JVM
+     */
+    public List<String> protocols() {
+        return list(key("protocols"));
+    }
+
+    /**
+     * @return enabled cipher suites, empty for the defaults of the JVM
+     */
+    public List<String> ciphers() {
+        return list(key("ciphers"));
+    }
+
+    private List<String> list(final String key) {
+        final List<String> values = new ArrayList<>();
+        for (final String value : config.getOrDefault(key, "").split(",")) {
+            if (!value.trim().isEmpty()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+    private String key(final String suffix) {
+        return prefix + "." + suffix;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for the loop of a stopped probe to finish. The loop is given the drain timeout to complete the records it has
+ * in flight, after which they are cancelled and the loop has a second to notice.
+ */
+public final class Drain {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Drain.class);
+    private static final long CANCEL_TIMEOUT = 1000L;
+    private final CountDownLatch latch;
+    private final Runnable cancel;
+
+    /**
+     * @param latch  counted down when the loop has finished
+     * @param cancel cancels the records in flight, for example by tearing the connection down
+     */
+    public Drain(final CountDownLatch latch, final Runnable cancel) {
+        this.latch = latch;
+        this.cancel = cancel;
+    }
+
+    /**
+     * @param timeout time the records in flight may take to complete, in milliseconds
+     * @throws RuntimeException if the loop did not finish after the records were cancelled
+     */
+    public void await(final long timeout) {
+        try {
+            if (!latch.await(timeout, TimeUnit.MILLISECONDS)) {
+                LOGGER.warn("Records in flight did not complete within <[{}]> ms, cancelling them", timeout);
+                cancel.run();
+                if (!latch.await(CANCEL_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    LOGGER.error("Timed out while waiting for probe to shutdown.");
+                    throw new RuntimeException("Timed out while waiting for probe to shutdown.");
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for latch countdown");
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,503 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.metrics.SizeClassLatency;
+import com.teragrep.rlp_11.transport.RelpFrameEncoder;
+import com.teragrep.rlp_11.transport.RelpResponseDecoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking RELP connection driven by the selector of an {@link EventLoopProbe}. Keeps up to the window of records
+ * in flight, and timestamps each record when the write that flushed its last byte returned and each acknowledgement
+ * when the read that contained it returned. Buffers and records are allocated up front and reused.
+ */
+public class EventLoopConnection {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLoopConnection.class);
+    private static final byte[] OPEN = "open".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CLOSE = "close".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SYSLOG = "syslog".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] OFFER = "\nrelp_version=0\nrelp_software=rlp_11\ncommands=syslog\n"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_TXNR = 999_999_999;
+    // fits a frame of the largest record the payload configuration allows
+    private static final int BUFFER_SIZE = 128 * 1024;
+    private static final int RECORD_SIZE = 1024;
+    private static final int DISCONNECTED = 0;
+    private static final int CONNECTING = 1;
+    private static final int OPENING = 2;
+    private static final int OPENED = 3;
+    private static final int CLOSING = 4;
+    private static final int FREE = 0;
+    private static final int PENDING = 1;
+    private static final int SENT = 2;
+    private final TargetConfiguration targetConfiguration;
+    private final RecordFactory recordFactory;
+    private final RelpFrameEncoder encoder;
+    private final RelpResponseDecoder decoder;
+    private final ByteBuffer readBuffer;
+    private final ByteBuffer writeBuffer;
+    private final ByteBuffer scratchBuffer;
+    private final ByteBuffer offer;
+    private final ByteBuffer empty;
+    private final int[] slotStates;
+    private final int[] slotTxnrs;
+    private final long[] slotSendTimes;
+    private final long[] slotFrameEnds;
+    private final ByteBuffer[] slotRecords;
+    private final Counter records;
+    private final Counter resends;
+    private final Counter connects;
+    private final Counter disconnects;
+    private final Counter retriedConnects;
+    private final Counter inFlight;
+    private final Timer sendLatency;
+    private final Timer connectLatency;
+    private final SizeClassLatency sizeClassLatency;
+    private SocketChannel channel;
+    private SelectionKey key;
+    private int state = DISCONNECTED;
+    private int txnr = 0;
+    private int controlTxnr = 0;
+    private long connectStart = 0L;
+    private long reconnectAt = 0L;
+    private boolean reconnecting = false;
+    private long queuedBytes = 0L;
+    private long flushedBytes = 0L;
+
+    public EventLoopConnection(
+            final TargetConfiguration targetConfiguration,
+            final int window,
+            final RecordFactory recordFactory,
+            final Counter records,
+            final Counter resends,
+            final Counter connects,
+            final Counter disconnects,
+            final Counter retriedConnects,
+            final Counter inFlight,
+            final Timer sendLatency,
+            final Timer connectLatency
+    ) {
+        this(
+                targetConfiguration,
+                window,
+                recordFactory,
+                records,
+                resends,
+                connects,
+                disconnects,
+                retriedConnects,
+                inFlight,
+                sendLatency,
+                connectLatency,
+                new SizeClassLatency()
+        );
+    }
+
+    public EventLoopConnection(
+            final TargetConfiguration targetConfiguration,
+            final int window,
+            final RecordFactory recordFactory,
+            final Counter records,
+            final Counter resends,
+            final Counter connects,
+            final Counter disconnects,
+            final Counter retriedConnects,
+            final Counter inFlight,
+            final Timer sendLatency,
+            final Timer connectLatency,
+            final SizeClassLatency sizeClassLatency
+    ) {
+        this.targetConfiguration = targetConfiguration;
+        this.recordFactory = recordFactory;
+        this.encoder = new RelpFrameEncoder();
+        this.decoder = new RelpResponseDecoder();
+        this.readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.scratchBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.offer = ByteBuffer.wrap(OFFER);
+        this.empty = ByteBuffer.allocate(0);
+        this.slotStates = new int[window];
+        this.slotTxnrs = new int[window];
+        this.slotSendTimes = new long[window];
+        this.slotFrameEnds = new long[window];
+        this.slotRecords = new ByteBuffer[window];
+        for (int i = 0; i < window; i++) {
+            slotRecords[i] = ByteBuffer.allocate(RECORD_SIZE);
+        }
+        this.records = records;
+        this.resends = resends;
+        this.connects = connects;
+        this.disconnects = disconnects;
+        this.retriedConnects = retriedConnects;
+        this.inFlight = inFlight;
+        this.sendLatency = sendLatency;
+        this.connectLatency = connectLatency;
+        this.sizeClassLatency = sizeClassLatency;
+    }
+
+    /**
+     * Starts connecting. The connection is finished and the RELP session opened by {@link #handle(SelectionKey)}.
+     */
+    public void connect(final Selector selector) {
+        connectStart = System.nanoTime();
+        reconnecting = true;
+        state = CONNECTING;
+        queuedBytes = 0L;
+        flushedBytes = 0L;
+        readBuffer.clear();
+        writeBuffer.clear();
+        decoder.reset();
+        // every session starts its transaction numbers over, starting from the open
+        txnr = 0;
+        try {
+            LOGGER.debug("Connecting to <[{}:{}]>", targetConfiguration.hostname(), targetConfiguration.port());
+            final InetSocketAddress address = new InetSocketAddress(
+                    targetConfiguration.hostname(),
+                    targetConfiguration.port()
+            );
+            if (address.isUnresolved()) {
+                throw new IOException("Unable to resolve <" + targetConfiguration.hostname() + ">");
+            }
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            key = channel.register(selector, SelectionKey.OP_CONNECT, this);
+            if (channel.connect(address)) {
+                open();
+            }
+        }
+        catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Starts connecting again if the connection failed and the reconnect interval has passed.
+     */
+    public void reconnect(final Selector selector, final long now) {
+        if (state == DISCONNECTED && reconnecting && now - reconnectAt >= 0) {
+            retriedConnects.inc();
+            connect(selector);
+        }
+    }
+
+    /**
+     * @return nanoseconds until {@link #reconnect(Selector, long)} should be called, {@link Long#MAX_VALUE} if not
+     *         waiting to reconnect
+     */
+    public long reconnectDelay(final long now) {
+        final long delay;
+        if (state == DISCONNECTED && reconnecting) {
+            delay = Math.max(0L, reconnectAt - now);
+        }
+        else {
+            delay = Long.MAX_VALUE;
+        }
+        return delay;
+    }
+
+    /**
+     * Handles the operations the selector found ready on this connection.
+     */
+    public void handle(final SelectionKey selectedKey) {
+        // keys of sockets closed earlier in the same select are stale
+        if (selectedKey == key) {
+            final int readyOps = selectedKey.readyOps();
+            try {
+                if ((readyOps & SelectionKey.OP_CONNECT) != 0 && channel.finishConnect()) {
+                    open();
+                }
+                if ((readyOps & SelectionKey.OP_READ) != 0 && state != DISCONNECTED) {
+                    read();
+                }
+                if ((readyOps & SelectionKey.OP_WRITE) != 0 && state != DISCONNECTED) {
+                    flush();
+                    if (state == OPENED) {
+                        fill();
+                    }
+                }
+            }
+            catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    /**
+     * Stops reconnecting and sends a RELP close if the session is open. In-flight records can still be acknowledged
+     * until the close is.
+     */
+    public void close() {
+        reconnecting = false;
+        if (state == OPENED) {
+            try {
+                controlTxnr = nextTxnr();
+                empty.clear();
+                encoder.encode(writeBuffer, controlTxnr, CLOSE, empty);
+                queuedBytes += encoder.length(controlTxnr, CLOSE, 0);
+                txnr = controlTxnr;
+                state = CLOSING;
+                flush();
+            }
+            catch (IOException | RuntimeException e) {
+                LOGGER.warn("Failed to disconnect: <{}>", e.getMessage());
+                tearDown();
+            }
+        }
+        else if (state != CLOSING) {
+            tearDown();
+        }
+    }
+
+    public boolean isClosed() {
+        return state == DISCONNECTED;
+    }
+
+    /**
+     * Closes the socket, records in flight are no longer waited for.
+     */
+    public void tearDown() {
+        for (int i = 0; i < slotStates.length; i++) {
+            if (slotStates[i] == SENT) {
+                inFlight.dec();
+                slotStates[i] = PENDING;
+            }
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            }
+            catch (IOException e) {
+                LOGGER.warn("Failed to close socket: <{}>", e.getMessage());
+            }
+            channel = null;
+            key = null;
+        }
+        state = DISCONNECTED;
+    }
+
+    private void open() throws IOException {
+        state = OPENING;
+        key.interestOps(SelectionKey.OP_READ);
+        controlTxnr = nextTxnr();
+        offer.clear();
+        queuedBytes += encoder.length(controlTxnr, OPEN, offer.remaining());
+        encoder.encode(writeBuffer, controlTxnr, OPEN, offer);
+        txnr = controlTxnr;
+        flush();
+    }
+
+    private void read() throws IOException {
+        final int read = channel.read(readBuffer);
+        final long readTime = System.nanoTime();
+        if (read < 0) {
+            throw new IOException("Connection closed by server");
+        }
+        readBuffer.flip();
+        while (state != DISCONNECTED && decoder.decode(readBuffer)) {
+            respond(readTime);
+        }
+        readBuffer.compact();
+        if (state == OPENED) {
+            fill();
+        }
+    }
+
+    private void respond(final long readTime) throws IOException {
+        if (decoder.isServerClose()) {
+            throw new IOException("Server closed the session");
+        }
+        if (!decoder.isResponse()) {
+            throw new IOException("Unexpected RELP command from server");
+        }
+        if (state == OPENING && decoder.txnr() == controlTxnr) {
+            if (decoder.code() != 200) {
+                throw new IOException("Server refused to open session with code <" + decoder.code() + ">");
+            }
+            state = OPENED;
+            connectLatency.update(readTime - connectStart, TimeUnit.NANOSECONDS);
+            connects.inc();
+            LOGGER.debug("Connected.");
+        }
+        else if (state == CLOSING && decoder.txnr() == controlTxnr) {
+            disconnects.inc();
+            tearDown();
+            LOGGER.debug("Disconnected.");
+        }
+        else {
+            acknowledge(readTime);
+        }
+    }
+
+    private void acknowledge(final long readTime) {
+        int slot = -1;
+        for (int i = 0; slot < 0 && i < slotStates.length; i++) {
+            if (slotStates[i] == SENT && slotTxnrs[i] == decoder.txnr()) {
+                slot = i;
+            }
+        }
+        if (slot < 0) {
+            LOGGER.warn("Received response for unknown txnr <[{}]>", decoder.txnr());
+        }
+        else if (decoder.code() == 200) {
+            inFlight.dec();
+            records.inc();
+            sendLatency.update(readTime - slotSendTimes[slot], TimeUnit.NANOSECONDS);
+            sizeClassLatency.update(slotRecords[slot].limit(), readTime - slotSendTimes[slot]);
+            slotStates[slot] = FREE;
+        }
+        else {
+            LOGGER.warn("Transaction <[{}]> failed with code <{}>, retrying", decoder.txnr(), decoder.code());
+            inFlight.dec();
+            resends.inc();
+            slotStates[slot] = PENDING;
+        }
+    }
+
+    /**
+     * Encodes records into free slots of the window until it or the write buffer is full.
+     */
+    private void fill() throws IOException {
+        boolean full = false;
+        for (int i = 0; !full && i < slotStates.length; i++) {
+            if (slotStates[i] == FREE) {
+                scratchBuffer.clear();
+                recordFactory.writeRecord(scratchBuffer, Instant.now());
+                scratchBuffer.flip();
+                if (slotRecords[i].capacity() < scratchBuffer.remaining()) {
+                    slotRecords[i] = ByteBuffer.allocate(scratchBuffer.remaining());
+                }
+                slotRecords[i].clear();
+                slotRecords[i].put(scratchBuffer);
+                slotRecords[i].flip();
+                slotSendTimes[i] = 0L;
+                slotStates[i] = PENDING;
+            }
+            if (slotStates[i] == PENDING) {
+                final int frameTxnr = nextTxnr();
+                final int length = encoder.length(frameTxnr, SYSLOG, slotRecords[i].limit());
+                if (writeBuffer.remaining() < length) {
+                    full = true;
+                }
+                else {
+                    slotRecords[i].rewind();
+                    encoder.encode(writeBuffer, frameTxnr, SYSLOG, slotRecords[i]);
+                    txnr = frameTxnr;
+                    queuedBytes += length;
+                    slotTxnrs[i] = frameTxnr;
+                    slotFrameEnds[i] = queuedBytes;
+                    slotStates[i] = SENT;
+                    inFlight.inc();
+                }
+            }
+        }
+        flush();
+    }
+
+    private void flush() throws IOException {
+        writeBuffer.flip();
+        final int written = channel.write(writeBuffer);
+        final long writeTime = System.nanoTime();
+        writeBuffer.compact();
+        flushedBytes += written;
+        // records that are retried keep their first send time so the reconnect is included in their latency
+        for (int i = 0; i < slotStates.length; i++) {
+            if (slotStates[i] == SENT && slotSendTimes[i] == 0L && slotFrameEnds[i] <= flushedBytes) {
+                slotSendTimes[i] = writeTime;
+            }
+        }
+        if (writeBuffer.position() > 0) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+        else if (state != CONNECTING) {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private void fail(final IOException e) {
+        LOGGER
+                .warn(
+                        "Connection to <[{}:{}]> failed: <{}>", targetConfiguration.hostname(),
+                        targetConfiguration.port(), e.getMessage()
+                );
+        for (int i = 0; i < slotStates.length; i++) {
+            if (slotStates[i] == SENT) {
+                resends.inc();
+            }
+        }
+        tearDown();
+        reconnectAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(targetConfiguration.reconnectInterval());
+        LOGGER.debug("Reconnecting in <[{}]>ms", targetConfiguration.reconnectInterval());
+    }
+
+    private int nextTxnr() {
+        final int next;
+        if (txnr >= MAX_TXNR) {
+            next = 1;
+        }
+        else {
+            next = txnr + 1;
+        }
+        return next;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Drives the non-blocking connections of a target from one thread with a selector.
+ */
+public class EventLoopProbe implements Probe {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventLoopProbe.class);
+    private static final long MAX_SELECT_MILLIS = 100L;
+    private final TargetConfiguration targetConfiguration;
+    private final List<EventLoopConnection> connections;
+    private final Consumer<SelectionKey> handler;
+    private final AtomicBoolean stayRunning = new AtomicBoolean(true);
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    public EventLoopProbe(final TargetConfiguration targetConfiguration, final List<EventLoopConnection> connections) {
+        this.targetConfiguration = targetConfiguration;
+        this.connections = connections;
+        this.handler = key -> ((EventLoopConnection) key.attachment()).handle(key);
+    }
+
+    @Override
+    public void start() {
+        try (final Selector selector = Selector.open()) {
+            for (final EventLoopConnection connection : connections) {
+                connection.connect(selector);
+            }
+            while (stayRunning.get()) {
+                select(selector);
+                final long now = System.nanoTime();
+                for (final EventLoopConnection connection : connections) {
+                    connection.reconnect(selector, now);
+                }
+            }
+            LOGGER.debug("Disconnecting..");
+            for (final EventLoopConnection connection : connections) {
+                connection.close();
+            }
+            final long closeDeadline = System.nanoTime()
+                    + TimeUnit.MILLISECONDS.toNanos(targetConfiguration.drainTimeout());
+            while (!isClosed() && System.nanoTime() - closeDeadline < 0) {
+                select(selector);
+            }
+        }
+        catch (IOException e) {
+            LOGGER.error("Event loop failed: <{}>", e.getMessage());
+        }
+        finally {
+            for (final EventLoopConnection connection : connections) {
+                connection.tearDown();
+            }
+            latch.countDown();
+        }
+    }
+
+    private void select(final Selector selector) throws IOException {
+        final long now = System.nanoTime();
+        long timeout = MAX_SELECT_MILLIS;
+        for (final EventLoopConnection connection : connections) {
+            timeout = Math.min(timeout, TimeUnit.NANOSECONDS.toMillis(connection.reconnectDelay(now)));
+        }
+        if (timeout > 0) {
+            selector.select(handler, timeout);
+        }
+        else {
+            selector.selectNow(handler);
+        }
+    }
+
+    private boolean isClosed() {
+        boolean closed = true;
+        for (final EventLoopConnection connection : connections) {
+            closed = closed && connection.isClosed();
+        }
+        return closed;
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.debug("Stop called");
+        stayRunning.set(false);
+        // the loop cancels the records in flight itself once the drain timeout has passed, within a select
+        new Drain(latch, () -> {
+        }).await(targetConfiguration.drainTimeout() + MAX_SELECT_MILLIS);
+        LOGGER.debug("EventLoopProbe stopped.");
+    }
+}
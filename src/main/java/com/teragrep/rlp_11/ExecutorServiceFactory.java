@@ -0,0 +1,113 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import com.teragrep.rlp_11.Configuration.ConfigurationException;
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the ExecutorService the probe loops of a ProbeGroup run on. With {@code probe.threads=virtual} each loop gets
+ * a virtual thread of its own, which is looked up reflectively so that the probe still builds and runs on Java 11 with
+ * platform threads.
+ */
+public class ExecutorServiceFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorServiceFactory.class);
+    private final ProbeConfiguration probeConfiguration;
+
+    public ExecutorServiceFactory(final ProbeConfiguration probeConfiguration) {
+        this.probeConfiguration = probeConfiguration;
+    }
+
+    public ExecutorService createExecutorService(final int probes) {
+        final ExecutorService executorService;
+        if ("virtual".equals(probeConfiguration.threads())) {
+            executorService = virtualThreadPerTaskExecutor();
+        }
+        else {
+            executorService = Executors.newFixedThreadPool(probes);
+        }
+        return executorService;
+    }
+
+    /**
+     * @return ExecutorService for a number of probe loops that changes while running
+     */
+    public ExecutorService createExecutorService() {
+        final ExecutorService executorService;
+        if ("virtual".equals(probeConfiguration.threads())) {
+            executorService = virtualThreadPerTaskExecutor();
+        }
+        else {
+            executorService = Executors.newCachedThreadPool();
+        }
+        return executorService;
+    }
+
+    private ExecutorService virtualThreadPerTaskExecutor() {
+        final ExecutorService executorService;
+        try {
+            executorService = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        }
+        catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            LOGGER
+                    .error(
+                            "Configuration failure: <probe.threads> <[virtual]> requires Java 21 or later, running on <[{}]>",
+                            System.getProperty("java.version")
+                    );
+            throw new ConfigurationException("Invalid value for <probe.threads> received");
+        }
+        return executorService;
+    }
+}
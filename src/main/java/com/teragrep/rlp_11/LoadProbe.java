@@ -0,0 +1,157 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.teragrep.rlp_01.RelpBatch;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.schedule.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One connection of the load generator. Commits batches as fast as the shared {@link RateLimiter} allows and measures
+ * each batch from the slot it was scheduled for until it was acknowledged.
+ */
+public class LoadProbe implements Probe {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadProbe.class);
+    private final TargetConfiguration targetConfiguration;
+    private final ProbeConnection probeConnection;
+    private final RecordFactory recordFactory;
+    private final RateLimiter rateLimiter;
+    private final int batchSize;
+    private final AtomicBoolean stayRunning;
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final Meter commits;
+    private final Meter records;
+    private final Counter resends;
+    private final Timer batchLatency;
+
+    public LoadProbe(
+            final TargetConfiguration targetConfiguration,
+            final ProbeConnection probeConnection,
+            final AtomicBoolean stayRunning,
+            final RecordFactory recordFactory,
+            final RateLimiter rateLimiter,
+            final int batchSize,
+            final Meter commits,
+            final Meter records,
+            final Counter resends,
+            final Timer batchLatency
+    ) {
+        this.targetConfiguration = targetConfiguration;
+        this.probeConnection = probeConnection;
+        this.stayRunning = stayRunning;
+        this.recordFactory = recordFactory;
+        this.rateLimiter = rateLimiter;
+        this.batchSize = batchSize;
+        this.commits = commits;
+        this.records = records;
+        this.resends = resends;
+        this.batchLatency = batchLatency;
+    }
+
+    @Override
+    public void start() {
+        probeConnection.connect();
+        while (stayRunning.get()) {
+            final long slot;
+            try {
+                slot = rateLimiter.acquire(batchSize);
+            }
+            catch (InterruptedException e) {
+                LOGGER.warn("Waiting for rate limiter was interrupted: <{}>", e.getMessage());
+                continue;
+            }
+            final RelpBatch relpBatch = new RelpBatch();
+            for (int i = 0; i < batchSize; i++) {
+                relpBatch.insert(recordFactory.createRecord());
+            }
+
+            boolean allSent = false;
+            while (!allSent && stayRunning.get()) {
+                try {
+                    probeConnection.commit(relpBatch);
+                }
+                catch (IllegalStateException | IOException | TimeoutException e) {
+                    LOGGER.warn("Failed to commit: <{}>", e.getMessage());
+                    probeConnection.tearDown();
+                }
+                allSent = relpBatch.verifyTransactionAll();
+                if (!allSent) {
+                    LOGGER.warn("Transactions failed, retrying");
+                    resends.inc();
+                    relpBatch.retryAllFailed();
+                    probeConnection.reconnect();
+                }
+            }
+            if (allSent) {
+                batchLatency.update(System.nanoTime() - slot, TimeUnit.NANOSECONDS);
+                commits.mark();
+                records.mark(batchSize);
+            }
+        }
+        probeConnection.disconnect();
+        latch.countDown();
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.debug("Stop called");
+        stayRunning.set(false);
+        new Drain(latch, probeConnection::tearDown).await(targetConfiguration.drainTimeout());
+        LOGGER.debug("LoadProbe stopped.");
+    }
+}
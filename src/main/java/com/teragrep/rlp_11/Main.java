@@ -45,34 +45,59 @@
  */
 package com.teragrep.rlp_11;
 
+import com.codahale.metrics.MetricFilter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.teragrep.cnf_01.ConfigurationException;
 import com.teragrep.cnf_01.PathConfiguration;
+import com.teragrep.rlp_11.Configuration.LoadConfiguration;
+import com.teragrep.rlp_11.Configuration.PayloadConfiguration;
 import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
 import com.teragrep.rlp_11.Configuration.RecordConfiguration;
+import com.teragrep.rlp_11.Configuration.ReplayConfiguration;
 import com.teragrep.rlp_11.Configuration.MetricsConfiguration;
 import com.teragrep.rlp_11.Configuration.PrometheusConfiguration;
+import com.teragrep.rlp_11.Configuration.ReceiverConfiguration;
+import com.teragrep.rlp_11.Configuration.StoreConfiguration;
 import com.teragrep.rlp_11.Configuration.TargetConfiguration;
 import com.teragrep.rlp_11.metrics.HttpReport;
 import com.teragrep.rlp_11.metrics.JmxReport;
 import com.teragrep.rlp_11.metrics.Report;
 import com.teragrep.rlp_11.metrics.Slf4jReport;
+import com.teragrep.rlp_11.payload.Payload;
+import com.teragrep.rlp_11.payload.PayloadFactory;
+import com.teragrep.rlp_11.receiver.ReceiverFactory;
+import com.teragrep.rlp_11.receiver.RelpReceiver;
+import com.teragrep.rlp_11.reload.ConfigurationValidation;
+import com.teragrep.rlp_11.reload.PathConfigurationSource;
+import com.teragrep.rlp_11.reload.ReloadableMap;
+import com.teragrep.rlp_11.reload.ReloadingProbe;
+import com.teragrep.rlp_11.store.RingFile;
+import com.teragrep.rlp_11.store.RingFileReader;
+import com.teragrep.rlp_11.store.StoreQuery;
+import com.teragrep.rlp_11.store.StoreReport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 public class Main {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
 
     public static void main(final String[] args) throws ConfigurationException, IOException {
-        final PathConfiguration pathConfiguration = new PathConfiguration(
-                System.getProperty("configurationPath", "etc/rlp_11.properties")
-        );
+        final String configurationPath = System.getProperty("configurationPath", "etc/rlp_11.properties");
+        final PathConfiguration pathConfiguration = new PathConfiguration(configurationPath);
         final Map<String, String> map;
         try {
             map = pathConfiguration.asMap();
@@ -81,42 +106,98 @@ public class Main {
             LOGGER.error("Failed to create PathConfiguration: <{}>", e.getMessage());
             throw e;
         }
-        final PrometheusConfiguration prometheusConfiguration = new PrometheusConfiguration(map);
-        final RecordConfiguration recordConfiguration = new RecordConfiguration(map);
-        final TargetConfiguration targetConfiguration = new TargetConfiguration(map);
-        final MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
-        final RecordFactory recordFactory = new RecordFactory(
-                getHostname(),
-                recordConfiguration.hostname(),
-                recordConfiguration.appname()
-        );
-        final ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        if (args.length > 0 && "query".equals(args[0])) {
+            query(new StoreConfiguration(map), args);
+        }
+        else {
+            probe(map, Paths.get(configurationPath));
+        }
+    }
+
+    private static void probe(final Map<String, String> map, final Path path) throws IOException {
+        // the configuration classes read the map on every call, so replacing its contents applies a reload
+        final ReloadableMap liveMap = new ReloadableMap(map);
+        new ConfigurationValidation(liveMap).validate();
+        final PrometheusConfiguration prometheusConfiguration = new PrometheusConfiguration(liveMap);
+        final RecordConfiguration recordConfiguration = new RecordConfiguration(liveMap);
+        final MetricsConfiguration metricsConfiguration = new MetricsConfiguration(liveMap);
+        final ProbeConfiguration probeConfiguration = new ProbeConfiguration(liveMap);
         final MetricRegistry metricRegistry = new MetricRegistry();
-        final RelpProbe relpProbe = new RelpProbe(
-                targetConfiguration,
+        final String origin = getHostname();
+        final LoadConfiguration loadConfiguration = new LoadConfiguration(liveMap);
+        final ReplayConfiguration replayConfiguration = new ReplayConfiguration(liveMap);
+        final ProbeFactory probeFactory = new ProbeFactory(
                 probeConfiguration,
                 metricsConfiguration,
-                recordFactory,
+                loadConfiguration,
+                replayConfiguration,
                 metricRegistry
         );
-        final Report report = new Slf4jReport(
-                new JmxReport(new HttpReport(metricRegistry, prometheusConfiguration.port()), metricRegistry),
-                metricRegistry,
-                metricsConfiguration.interval()
+        // the padding or the samples are read once and shared by the targets
+        final Payload payload = new PayloadFactory(new PayloadConfiguration(liveMap)).createPayload();
+        final Function<TargetConfiguration, Probe> targetProbeFactory = targetConfiguration -> {
+            final RecordFactory recordFactory = new RecordFactory(
+                    origin,
+                    recordConfiguration.hostname(),
+                    recordConfiguration.appname(),
+                    payload
+            );
+            final Probe targetProbe = probeFactory.createProbe(targetConfiguration, recordFactory);
+            logTarget(targetConfiguration, probeConfiguration, loadConfiguration, replayConfiguration);
+            return targetProbe;
+        };
+        // the timers of the reports and the receiver are not created again with the probes
+        final MetricFilter timerFilter = (name, metric) -> metric instanceof Timer
+                && !name.startsWith(HttpReport.class.getName()) && !name.startsWith(RelpReceiver.class.getName());
+        final List<Probe> probes = new ArrayList<>();
+        probes
+                .add(
+                        new ReloadingProbe(
+                                liveMap,
+                                new PathConfigurationSource(path),
+                                path,
+                                targetProbeFactory,
+                                metricRegistry,
+                                timerFilter,
+                                new ExecutorServiceFactory(probeConfiguration).createExecutorService()
+                        )
+                );
+        final ReceiverConfiguration receiverConfiguration = new ReceiverConfiguration(liveMap);
+        if (receiverConfiguration.enabled()) {
+            probes
+                    .add(new ReceiverFactory(receiverConfiguration, metricsConfiguration, metricRegistry).createReceiver());
+            LOGGER.info("Receiving probe records on port <[{}]>", receiverConfiguration.port());
+        }
+        final Probe probe = new ProbeGroup(
+                probes,
+                new ExecutorServiceFactory(probeConfiguration).createExecutorService(probes.size())
+        );
+        final Report exportReport = new JmxReport(
+                new HttpReport(metricRegistry, prometheusConfiguration.port(), prometheusConfiguration.cacheTtl()),
+                metricRegistry
         );
+        final StoreConfiguration storeConfiguration = new StoreConfiguration(liveMap);
+        final Report storeReport;
+        if (storeConfiguration.enabled()) {
+            storeReport = new StoreReport(
+                    exportReport,
+                    metricRegistry,
+                    new RingFile(Paths.get(storeConfiguration.path()), storeConfiguration.capacity())
+            );
+            LOGGER
+                    .info(
+                            "Storing the latest <[{}]> samples to <[{}]>", storeConfiguration.capacity(),
+                            storeConfiguration.path()
+                    );
+        }
+        else {
+            storeReport = exportReport;
+        }
+        final Report report = new Slf4jReport(storeReport, metricRegistry, metricsConfiguration.interval());
         report.start();
 
-        final Thread shutdownHook = new Thread(() -> {
-            LOGGER.debug("Stopping RelpProbe..");
-            relpProbe.stop();
-            LOGGER.debug("Shutting down.");
-        });
-        Runtime.getRuntime().addShutdownHook(shutdownHook);
-        LOGGER
-                .info(
-                        "Sending records to <[{}:{}]> every <[{}]> milliseconds", targetConfiguration.hostname(),
-                        targetConfiguration.port(), probeConfiguration.interval()
-                );
+        final Shutdown shutdown = new Shutdown(probe, report);
+        Runtime.getRuntime().addShutdownHook(new Thread(shutdown));
         LOGGER
                 .info(
                         "Using hostname <[{}]> and appname <[{}]> for the records.", recordConfiguration.hostname(),
@@ -127,14 +208,93 @@ public class Main {
                         "Printing reports every <[{}]> seconds. Prometheus stats are available on port <[{}]>.",
                         metricsConfiguration.interval(), prometheusConfiguration.port()
                 );
-        relpProbe.start();
+        probe.start();
+        // closes the reports also when the probes finished without a signal
+        shutdown.run();
+    }
+
+    private static void logTarget(
+            final TargetConfiguration targetConfiguration,
+            final ProbeConfiguration probeConfiguration,
+            final LoadConfiguration loadConfiguration,
+            final ReplayConfiguration replayConfiguration
+    ) {
+        if ("load".equals(probeConfiguration.mode())) {
+            LOGGER
+                    .info(
+                            "Sending <[{}]> records per second to <[{}:{}]> in batches of <[{}]> over <[{}]> connections",
+                            loadConfiguration.rate(), targetConfiguration.hostname(), targetConfiguration.port(),
+                            loadConfiguration.batchSize(), loadConfiguration.connections()
+                    );
+        }
+        else if ("eventloop".equals(probeConfiguration.mode())) {
+            LOGGER
+                    .info(
+                            "Sending records to <[{}:{}]> over <[{}]> connections with <[{}]> transactions in flight each",
+                            targetConfiguration.hostname(), targetConfiguration.port(),
+                            probeConfiguration.connections(), probeConfiguration.window()
+                    );
+        }
+        else if ("replay".equals(probeConfiguration.mode())) {
+            LOGGER
+                    .info(
+                            "Replaying trace <[{}]> to <[{}:{}]> at <[{}]> times the original speed",
+                            replayConfiguration.path(), targetConfiguration.hostname(), targetConfiguration.port(),
+                            replayConfiguration.speedup()
+                    );
+        }
+        else if ("pool".equals(probeConfiguration.mode())) {
+            LOGGER
+                    .info(
+                            "Sending records to <[{}:{}]> every <[{}]> milliseconds over <[{}]> warm connections and <[{}]> of them over fresh connections",
+                            targetConfiguration.hostname(), targetConfiguration.port(),
+                            probeConfiguration.interval(), probeConfiguration.connections(), probeConfiguration.fresh()
+                    );
+        }
+        else if ("pipelined".equals(probeConfiguration.mode())) {
+            LOGGER
+                    .info(
+                            "Sending records to <[{}:{}]> with <[{}]> transactions in flight",
+                            targetConfiguration.hostname(), targetConfiguration.port(), probeConfiguration.window()
+                    );
+        }
+        else {
+            LOGGER
+                    .info(
+                            "Sending records to <[{}:{}]> every <[{}]> milliseconds", targetConfiguration.hostname(),
+                            targetConfiguration.port(), probeConfiguration.interval()
+                    );
+        }
+    }
+
+    /**
+     * Prints percentiles of stored samples: {@code query <from> <to> [target] [phase]} with ISO-8601 instants.
+     */
+    private static void query(final StoreConfiguration storeConfiguration, final String[] args) throws IOException {
+        if (args.length < 3 || args.length > 5) {
+            LOGGER
+                    .error(
+                            "Usage: query <from> <to> [target] [phase], for example query 2024-01-01T00:00:00Z 2024-01-01T01:00:00Z"
+                    );
+            throw new IllegalArgumentException("Invalid arguments for query");
+        }
+        final Instant from;
+        final Instant to;
         try {
-            report.close();
+            from = Instant.parse(args[1]);
+            to = Instant.parse(args[2]);
         }
-        catch (IOException e) {
-            LOGGER.error("Failed to close stats reporting: <{}>", e.getMessage());
+        catch (DateTimeParseException e) {
+            LOGGER.error("Invalid time range for query: <{}>", e.getMessage());
             throw e;
         }
+        try (final RingFileReader ringFileReader = new RingFileReader(Paths.get(storeConfiguration.path()))) {
+            new StoreQuery(ringFileReader)
+                    .print(
+                            System.out, from.toEpochMilli(), to.toEpochMilli(), args.length > 3 ? args[3] : "",
+                            args.length > 4 ? args[4] : ""
+                    );
+        }
     }
 
     private static String getHostname() {
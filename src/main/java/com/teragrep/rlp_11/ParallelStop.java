@@ -0,0 +1,106 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops probes in two phases: each stop is started on a thread of its own, so every probe stops sending at once, and
+ * then all of them are waited for until one shared deadline. A shared pool would not do, the probes nest and their
+ * stops block while waiting for the inner probes to drain, which could leave the inner stops queued behind them.
+ */
+public final class ParallelStop {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelStop.class);
+    private final List<Runnable> stops;
+
+    /**
+     * @param stops stop the probes, logging failures instead of throwing them
+     */
+    public ParallelStop(final List<Runnable> stops) {
+        this.stops = stops;
+    }
+
+    /**
+     * @param timeout time the probes may take to stop altogether in milliseconds, 0 to wait for as long as they take
+     */
+    public void await(final long timeout) {
+        final List<Thread> threads = new ArrayList<>(stops.size());
+        for (final Runnable stop : stops) {
+            final Thread thread = new Thread(stop, "stop");
+            // a probe that does not stop must not keep the process running
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        boolean stopped = true;
+        try {
+            for (final Thread thread : threads) {
+                if (timeout > 0) {
+                    thread.join(Math.max(1L, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+                }
+                else {
+                    thread.join();
+                }
+                stopped = stopped && !thread.isAlive();
+            }
+        }
+        catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for probes to stop: <{}>", e.getMessage());
+            Thread.currentThread().interrupt();
+            stopped = false;
+        }
+        if (!stopped) {
+            LOGGER.error("Probes did not stop within <[{}]> ms", timeout);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.teragrep.rlp_01.RelpFrameRX;
+import com.teragrep.rlp_11.Configuration.MetricsConfiguration;
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.metrics.MetricNames;
+import com.teragrep.rlp_11.metrics.SizeClassLatency;
+import com.teragrep.rlp_11.metrics.SizeClassLatencyFactory;
+import com.teragrep.rlp_11.metrics.TimerFactory;
+import com.teragrep.rlp_11.transport.PipelinedConnection;
+import com.teragrep.rlp_11.transport.TransportFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps up to <code>probe.window</code> records in flight on one connection and measures the latency of each record
+ * from the moment it was written until its acknowledgement was read.
+ */
+public class PipelinedProbe implements Probe {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedProbe.class);
+    private final TargetConfiguration targetConfiguration;
+    private final ProbeConfiguration probeConfiguration;
+    private final RecordFactory recordFactory;
+    private final PipelinedConnection connection;
+    private final Map<Integer, InFlightRecord> inFlightRecords;
+    private final Deque<InFlightRecord> retries;
+    private final AtomicBoolean stayRunning = new AtomicBoolean(true);
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private boolean connected = false;
+    private final Counter records;
+    private final Counter resends;
+    private final Counter connects;
+    private final Counter disconnects;
+    private final Counter retriedConnects;
+    private final Counter inFlight;
+    private final Timer sendLatency;
+    private final Timer connectLatency;
+    private final SizeClassLatency sizeClassLatency;
+
+    public PipelinedProbe(
+            final TargetConfiguration targetConfiguration,
+            final ProbeConfiguration probeConfiguration,
+            final MetricsConfiguration metricsConfiguration,
+            final RecordFactory recordFactory,
+            final MetricRegistry metricRegistry
+    ) {
+        this(
+                targetConfiguration,
+                probeConfiguration,
+                metricsConfiguration,
+                recordFactory,
+                metricRegistry,
+                new MetricNames(PipelinedProbe.class, targetConfiguration.name())
+        );
+    }
+
+    private PipelinedProbe(
+            final TargetConfiguration targetConfiguration,
+            final ProbeConfiguration probeConfiguration,
+            final MetricsConfiguration metricsConfiguration,
+            final RecordFactory recordFactory,
+            final MetricRegistry metricRegistry,
+            final MetricNames metricNames
+    ) {
+        this(
+                targetConfiguration,
+                probeConfiguration,
+                recordFactory,
+                new TransportFactory(targetConfiguration, probeConfiguration, metricsConfiguration, metricRegistry)
+                        .createPipelinedConnection(metricNames),
+                metricRegistry.counter(metricNames.name("records")),
+                metricRegistry.counter(metricNames.name("resends")),
+                metricRegistry.counter(metricNames.name("connects")),
+                metricRegistry.counter(metricNames.name("disconnects")),
+                metricRegistry.counter(metricNames.name("retriedConnects")),
+                metricRegistry.counter(metricNames.name("inFlight")),
+                metricRegistry.timer(metricNames.name("sendLatency"), () -> new TimerFactory(metricsConfiguration).createTimer()),
+                metricRegistry.timer(metricNames.name("connectLatency"), () -> new TimerFactory(metricsConfiguration).createTimer()),
+                new SizeClassLatencyFactory(metricsConfiguration, metricRegistry).create(metricNames, "sendLatency")
+        );
+    }
+
+    public PipelinedProbe(
+            final TargetConfiguration targetConfiguration,
+            final ProbeConfiguration probeConfiguration,
+            final RecordFactory recordFactory,
+            final PipelinedConnection connection,
+            final Counter records,
+            final Counter resends,
+            final Counter connects,
+            final Counter disconnects,
+            final Counter retriedConnects,
+            final Counter inFlight,
+            final Timer sendLatency,
+            final Timer connectLatency
+    ) {
+        this(
+                targetConfiguration,
+                probeConfiguration,
+                recordFactory,
+                connection,
+                records,
+                resends,
+                connects,
+                disconnects,
+                retriedConnects,
+                inFlight,
+                sendLatency,
+                connectLatency,
+                new SizeClassLatency()
+        );
+    }
+
+    public PipelinedProbe(
+            final TargetConfiguration targetConfiguration,
+            final ProbeConfiguration probeConfiguration,
+            final RecordFactory recordFactory,
+            final PipelinedConnection connection,
+            final Counter records,
+            final Counter resends,
+            final Counter connects,
+            final Counter disconnects,
+            final Counter retriedConnects,
+            final Counter inFlight,
+            final Timer sendLatency,
+            final Timer connectLatency,
+            final SizeClassLatency sizeClassLatency
+    ) {
+        this.targetConfiguration = targetConfiguration;
+        this.probeConfiguration = probeConfiguration;
+        this.recordFactory = recordFactory;
+        this.connection = connection;
+        this.inFlightRecords = new LinkedHashMap<>();
+        this.retries = new ArrayDeque<>();
+        this.records = records;
+        this.resends = resends;
+        this.connects = connects;
+        this.disconnects = disconnects;
+        this.retriedConnects = retriedConnects;
+        this.inFlight = inFlight;
+        this.sendLatency = sendLatency;
+        this.connectLatency = connectLatency;
+        this.sizeClassLatency = sizeClassLatency;
+    }
+
+    @Override
+    public void start() {
+        final int window = probeConfiguration.window();
+        try {
+            while (stayRunning.get()) {
+                connect();
+                if (!connected) {
+                    // stopped while the target was down
+                    continue;
+                }
+                try {
+                    while (inFlightRecords.size() < window && stayRunning.get()) {
+                        if (retries.isEmpty()) {
+                            retries.add(new InFlightRecord(recordFactory.createRecord(), System.nanoTime()));
+                        }
+                        send(retries.peek());
+                        retries.poll();
+                    }
+                    if (!inFlightRecords.isEmpty()) {
+                        acknowledge(connection.read());
+                    }
+                }
+                catch (IOException e) {
+                    LOGGER.warn("Failed to commit: <{}>", e.getMessage());
+                    connection.tearDown();
+                    connected = false;
+                    retryInFlight();
+                }
+            }
+            drain();
+            disconnect();
+        }
+        finally {
+            inFlight.dec(inFlightRecords.size());
+            inFlightRecords.clear();
+            retries.clear();
+            latch.countDown();
+        }
+    }
+
+    /**
+     * Reads the acknowledgements of the records in flight without sending more, until all are acknowledged or stop
+     * cancels them by tearing the connection down.
+     */
+    private void drain() {
+        while (connected && !inFlightRecords.isEmpty()) {
+            try {
+                acknowledge(connection.read());
+            }
+            catch (IOException e) {
+                LOGGER.warn("Cancelled <[{}]> records in flight: <{}>", inFlightRecords.size(), e.getMessage());
+                connection.tearDown();
+                connected = false;
+            }
+        }
+    }
+
+    private void send(final InFlightRecord inFlightRecord) throws IOException {
+        final int txnr = connection.send(inFlightRecord.record);
+        inFlightRecords.put(txnr, inFlightRecord);
+        inFlight.inc();
+    }
+
+    private void acknowledge(final RelpFrameRX response) {
+        final long ackTime = System.nanoTime();
+        final InFlightRecord inFlightRecord = inFlightRecords.remove(response.getTransactionNumber());
+        if (inFlightRecord == null) {
+            LOGGER.warn("Received response for unknown txnr <[{}]>", response.getTransactionNumber());
+        }
+        else if (response.getResponseCode() == 200) {
+            inFlight.dec();
+            records.inc();
+            sendLatency.update(ackTime - inFlightRecord.sendTime, TimeUnit.NANOSECONDS);
+            sizeClassLatency.update(inFlightRecord.record.length, ackTime - inFlightRecord.sendTime);
+        }
+        else {
+            LOGGER
+                    .warn(
+                            "Transaction <[{}]> failed with response <{}>, retrying",
+                            response.getTransactionNumber(), response
+                    );
+            inFlight.dec();
+            resends.inc();
+            retries.add(inFlightRecord);
+        }
+    }
+
+    private void retryInFlight() {
+        // records keep their original send time so the reconnect is included in their latency
+        final List<InFlightRecord> unacknowledged = new ArrayList<>(inFlightRecords.values());
+        unacknowledged.addAll(retries);
+        resends.inc(inFlightRecords.size());
+        inFlight.dec(inFlightRecords.size());
+        inFlightRecords.clear();
+        retries.clear();
+        retries.addAll(unacknowledged);
+    }
+
+    private void connect() {
+        while (!connected && stayRunning.get()) {
+            try (final Timer.Context context = connectLatency.time()) {
+                LOGGER.debug("Connecting to <[{}:{}]>", targetConfiguration.hostname(), targetConfiguration.port());
+                connection.connect(targetConfiguration.hostname(), targetConfiguration.port());
+                connected = true;
+                LOGGER.debug("Connected.");
+                connects.inc();
+            }
+            catch (IOException e) {
+                LOGGER
+                        .warn(
+                                "Failed to connect to <[{}:{}]>: <{}>", targetConfiguration.hostname(),
+                                targetConfiguration.port(), e.getMessage()
+                        );
+            }
+            if (!connected) {
+                try {
+                    LOGGER.debug("Sleeping for <[{}]>ms before reconnecting", targetConfiguration.reconnectInterval());
+                    TimeUnit.MILLISECONDS.sleep(targetConfiguration.reconnectInterval());
+                    retriedConnects.inc();
+                }
+                catch (InterruptedException e) {
+                    LOGGER.warn("Sleep was interrupted: <{}>", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void disconnect() {
+        if (!connected) {
+            LOGGER.debug("No need to disconnect, not connected");
+            return;
+        }
+        try {
+            LOGGER.debug("Disconnecting..");
+            connection.disconnect();
+            disconnects.inc();
+        }
+        catch (IOException e) {
+            LOGGER.warn("Failed to disconnect: <{}>", e.getMessage());
+        }
+        connection.tearDown();
+        LOGGER.debug("Disconnected.");
+        connected = false;
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.debug("Stop called");
+        stayRunning.set(false);
+        new Drain(latch, connection::cancel).await(targetConfiguration.drainTimeout());
+        LOGGER.debug("PipelinedProbe stopped.");
+    }
+
+    private static final class InFlightRecord {
+
+        private final byte[] record;
+        private final long sendTime;
+
+        private InFlightRecord(final byte[] record, final long sendTime) {
+            this.record = record;
+            this.sendTime = sendTime;
+        }
+    }
+}
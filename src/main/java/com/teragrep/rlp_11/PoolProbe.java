@@ -0,0 +1,236 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import com.teragrep.rlp_01.RelpBatch;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.metrics.CorrectedLatency;
+import com.teragrep.rlp_11.schedule.Schedule;
+import com.teragrep.rlp_11.transport.Transport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Sends records over a pool of warm connections in turn, and a share of the records over a connection opened for that
+ * record alone. The latency of a fresh record includes connecting and opening the RELP session, so it is what a
+ * short-lived sender pays, and it is recorded separately from the latency over warm connections.
+ */
+public class PoolProbe implements Probe {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PoolProbe.class);
+    private final TargetConfiguration targetConfiguration;
+    private final Schedule schedule;
+    private final RecordFactory recordFactory;
+    private final List<ProbeConnection> probeConnections;
+    private final AtomicBoolean stayRunning;
+    private final Supplier<Transport> freshTransports;
+    private final double fresh;
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private final Counter records;
+    private final Counter resends;
+    private final Counter freshFailures;
+    private final CorrectedLatency sendLatency;
+    private final CorrectedLatency freshLatency;
+
+    public PoolProbe(
+            final TargetConfiguration targetConfiguration,
+            final Schedule schedule,
+            final RecordFactory recordFactory,
+            final List<ProbeConnection> probeConnections,
+            final AtomicBoolean stayRunning,
+            final Supplier<Transport> freshTransports,
+            final double fresh,
+            final Counter records,
+            final Counter resends,
+            final Counter freshFailures,
+            final Timer sendLatency,
+            final Timer freshLatency
+    ) {
+        this.targetConfiguration = targetConfiguration;
+        this.schedule = schedule;
+        this.recordFactory = recordFactory;
+        this.probeConnections = probeConnections;
+        this.stayRunning = stayRunning;
+        this.freshTransports = freshTransports;
+        this.fresh = fresh;
+        this.records = records;
+        this.resends = resends;
+        this.freshFailures = freshFailures;
+        this.sendLatency = new CorrectedLatency(sendLatency);
+        this.freshLatency = new CorrectedLatency(freshLatency);
+    }
+
+    @Override
+    public void start() {
+        for (final ProbeConnection probeConnection : probeConnections) {
+            probeConnection.connect();
+        }
+        int next = 0;
+        while (stayRunning.get()) {
+            if (fresh > 0 && ThreadLocalRandom.current().nextDouble() < fresh) {
+                // built before waiting for the send time, as building it loads the key stores when TLS is enabled
+                sendFresh(freshTransports.get());
+            }
+            else {
+                sendWarm(probeConnections.get(next));
+                next = (next + 1) % probeConnections.size();
+            }
+        }
+        for (final ProbeConnection probeConnection : probeConnections) {
+            probeConnection.disconnect();
+        }
+        latch.countDown();
+    }
+
+    private void sendWarm(final ProbeConnection probeConnection) {
+        try {
+            final long intended = schedule.next();
+            sendWarm(probeConnection, createBatch(), intended);
+        }
+        catch (InterruptedException e) {
+            LOGGER.warn("Sleep interrupted: <{}>", e.getMessage());
+        }
+    }
+
+    private void sendWarm(final ProbeConnection probeConnection, final RelpBatch relpBatch, final long intended) {
+        boolean allSent = false;
+        while (!allSent && stayRunning.get()) {
+            try {
+                probeConnection.commit(relpBatch);
+                records.inc();
+            }
+            catch (IllegalStateException | IOException | TimeoutException e) {
+                LOGGER.warn("Failed to commit: <{}>", e.getMessage());
+                probeConnection.tearDown();
+            }
+            allSent = relpBatch.verifyTransactionAll();
+            if (!allSent) {
+                LOGGER.warn("Transactions failed, retrying");
+                schedule.failed();
+                resends.inc();
+                relpBatch.retryAllFailed();
+                probeConnection.reconnect();
+            }
+        }
+        if (allSent) {
+            final long latency = System.nanoTime() - intended;
+            sendLatency.record(latency, schedule.expectedInterval());
+            schedule.acknowledged(latency);
+        }
+    }
+
+    private void sendFresh(final Transport transport) {
+        try {
+            final long intended = schedule.next();
+            sendFresh(transport, createBatch(), intended);
+        }
+        catch (InterruptedException e) {
+            LOGGER.warn("Sleep interrupted: <{}>", e.getMessage());
+            transport.tearDown();
+        }
+    }
+
+    /**
+     * Connects, commits and disconnects. A failure is counted and the record is not retried, as retrying would hide
+     * the failure a short-lived sender would have seen.
+     */
+    private void sendFresh(final Transport transport, final RelpBatch relpBatch, final long intended) {
+        boolean sent = false;
+        try {
+            transport.connect(targetConfiguration.address(), targetConfiguration.port());
+            transport.commit(relpBatch);
+            sent = relpBatch.verifyTransactionAll();
+        }
+        catch (IllegalStateException | IOException | TimeoutException e) {
+            LOGGER.warn("Failed to send over a fresh connection: <{}>", e.getMessage());
+        }
+        if (sent) {
+            final long latency = System.nanoTime() - intended;
+            freshLatency.record(latency, schedule.expectedInterval());
+            schedule.acknowledged(latency);
+            records.inc();
+            try {
+                transport.disconnect();
+            }
+            catch (IllegalStateException | IOException | TimeoutException e) {
+                LOGGER.warn("Failed to disconnect a fresh connection: <{}>", e.getMessage());
+            }
+        }
+        else {
+            schedule.failed();
+            freshFailures.inc();
+        }
+        transport.tearDown();
+    }
+
+    private RelpBatch createBatch() {
+        final RelpBatch relpBatch = new RelpBatch();
+        relpBatch.insert(recordFactory.createRecord());
+        return relpBatch;
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.debug("Stop called");
+        stayRunning.set(false);
+        new Drain(latch, () -> {
+            for (final ProbeConnection probeConnection : probeConnections) {
+                probeConnection.tearDown();
+            }
+        }).await(targetConfiguration.drainTimeout());
+        LOGGER.debug("PoolProbe stopped.");
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import com.teragrep.rlp_01.RelpBatch;
+import com.teragrep.rlp_11.reconnect.FixedReconnect;
+import com.teragrep.rlp_11.reconnect.ReconnectPolicy;
+import com.teragrep.rlp_11.transport.Transport;
+import com.teragrep.rlp_11.watchdog.Deadline;
+import com.teragrep.rlp_11.watchdog.Watchdog;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transport to a target that keeps reconnecting until it succeeds or the owning probe is stopped, waiting between
+ * attempts as the ReconnectPolicy of the target decides. Connecting and committing are torn down by the Watchdog when
+ * they take longer than the timeouts of the target.
+ */
+public class ProbeConnection {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProbeConnection.class);
+    private static final long SLEEP_STEP = 100L;
+    private final TargetConfiguration targetConfiguration;
+    private final Transport transport;
+    private final AtomicBoolean stayRunning;
+    private boolean connected = false;
+    private final Counter connects;
+    private final Counter disconnects;
+    private final Counter retriedConnects;
+    private final Timer connectLatency;
+    private final ReconnectPolicy reconnectPolicy;
+    private final Watchdog watchdog;
+    private final Counter timeouts;
+
+    public ProbeConnection(
+            final TargetConfiguration targetConfiguration,
+            final Transport transport,
+            final AtomicBoolean stayRunning,
+            final Counter connects,
+            final Counter disconnects,
+            final Counter retriedConnects,
+            final Timer connectLatency
+    ) {
+        this(
+                targetConfiguration,
+                transport,
+                stayRunning,
+                connects,
+                disconnects,
+                retriedConnects,
+                connectLatency,
+                new FixedReconnect(targetConfiguration)
+        );
+    }
+
+    public ProbeConnection(
+            final TargetConfiguration targetConfiguration,
+            final Transport transport,
+            final AtomicBoolean stayRunning,
+            final Counter connects,
+            final Counter disconnects,
+            final Counter retriedConnects,
+            final Timer connectLatency,
+            final ReconnectPolicy reconnectPolicy
+    ) {
+        this(
+                targetConfiguration,
+                transport,
+                stayRunning,
+                connects,
+                disconnects,
+                retriedConnects,
+                connectLatency,
+                reconnectPolicy,
+                new Watchdog(),
+                new Counter()
+        );
+    }
+
+    public ProbeConnection(
+            final TargetConfiguration targetConfiguration,
+            final Transport transport,
+            final AtomicBoolean stayRunning,
+            final Counter connects,
+            final Counter disconnects,
+            final Counter retriedConnects,
+            final Timer connectLatency,
+            final ReconnectPolicy reconnectPolicy,
+            final Watchdog watchdog,
+            final Counter timeouts
+    ) {
+        this.targetConfiguration = targetConfiguration;
+        this.transport = transport;
+        this.stayRunning = stayRunning;
+        this.connects = connects;
+        this.disconnects = disconnects;
+        this.retriedConnects = retriedConnects;
+        this.connectLatency = connectLatency;
+        this.reconnectPolicy = reconnectPolicy;
+        this.watchdog = watchdog;
+        this.timeouts = timeouts;
+    }
+
+    /**
+     * @throws TimeoutException if the commit did not complete within the commit timeout of the target, or the
+     *                          transport timed out waiting for an acknowledgement
+     */
+    public void commit(final RelpBatch relpBatch) throws IOException, TimeoutException {
+        final int commitTimeout = targetConfiguration.commitTimeout();
+        final Deadline deadline = watchdog.arm(commitTimeout, transport::tearDown);
+        try {
+            transport.commit(relpBatch);
+        }
+        catch (IOException | IllegalStateException e) {
+            // the watchdog closing the connection surfaces as whatever the transport was blocked in
+            if (!deadline.disarm()) {
+                throw e;
+            }
+        }
+        catch (TimeoutException e) {
+            timeouts.inc();
+            throw e;
+        }
+        finally {
+            deadline.disarm();
+        }
+        if (deadline.disarm()) {
+            timeouts.inc();
+            throw new TimeoutException("Commit did not complete within <" + commitTimeout + ">ms");
+        }
+    }
+
+    /**
+     * @param start when the commit was started, as System.nanoTime()
+     * @return when the commit timeout of the target runs out, Long.MAX_VALUE if the commit timeout is disabled
+     */
+    public long commitDeadline(final long start) {
+        final int commitTimeout = targetConfiguration.commitTimeout();
+        final long commitDeadline;
+        if (commitTimeout > 0) {
+            commitDeadline = start + TimeUnit.MILLISECONDS.toNanos(commitTimeout);
+        }
+        else {
+            commitDeadline = Long.MAX_VALUE;
+        }
+        return commitDeadline;
+    }
+
+    public void connect() {
+        while (!connected && stayRunning.get()) {
+            final long blocked = reconnectPolicy.blocked();
+            if (blocked > 0) {
+                LOGGER.debug("Connecting is blocked for <[{}]>ms", blocked);
+                sleep(blocked);
+                continue;
+            }
+            final Deadline deadline = watchdog.arm(targetConfiguration.connectTimeout(), transport::tearDown);
+            try (final Timer.Context context = connectLatency.time()) {
+                LOGGER.debug("Connecting to <[{}:{}]>", targetConfiguration.address(), targetConfiguration.port());
+                connected = transport.connect(targetConfiguration.address(), targetConfiguration.port());
+                LOGGER.debug("Connected.");
+                connects.inc();
+            }
+            catch (TimeoutException | IOException | IllegalStateException e) {
+                LOGGER
+                        .warn(
+                                "Failed to connect to <[{}:{}]>: <{}>", targetConfiguration.address(),
+                                targetConfiguration.port(), e.getMessage()
+                        );
+            }
+            if (deadline.disarm()) {
+                LOGGER
+                        .warn(
+                                "Connecting to <[{}:{}]> did not complete within <[{}]>ms",
+                                targetConfiguration.address(), targetConfiguration.port(),
+                                targetConfiguration.connectTimeout()
+                        );
+                timeouts.inc();
+                transport.tearDown();
+                connected = false;
+            }
+            if (connected) {
+                reconnectPolicy.succeeded();
+            }
+            else {
+                reconnectPolicy.failed();
+                final long delay = reconnectPolicy.delay();
+                LOGGER.debug("Sleeping for <[{}]>ms before reconnecting", delay);
+                sleep(delay);
+                retriedConnects.inc();
+            }
+        }
+    }
+
+    /**
+     * Sleeps in short steps so that a stopped probe does not wait for the whole delay.
+     */
+    private void sleep(final long millis) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        try {
+            long remaining = millis;
+            while (remaining > 0 && stayRunning.get()) {
+                TimeUnit.MILLISECONDS.sleep(Math.min(remaining, SLEEP_STEP));
+                remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            }
+        }
+        catch (InterruptedException e) {
+            LOGGER.warn("Sleep was interrupted: <{}>", e.getMessage());
+        }
+    }
+
+    public void reconnect() {
+        disconnect();
+        connect();
+    }
+
+    public void disconnect() {
+        if (!connected) {
+            LOGGER.debug("No need to disconnect, not connected");
+            return;
+        }
+        try {
+            LOGGER.debug("Disconnecting..");
+            transport.disconnect();
+            disconnects.inc();
+        }
+        catch (IOException | TimeoutException e) {
+            LOGGER.warn("Failed to disconnect: <{}>", e.getMessage());
+        }
+        tearDown();
+        LOGGER.debug("Disconnected.");
+    }
+
+    public void tearDown() {
+        transport.tearDown();
+        connected = false;
+    }
+}
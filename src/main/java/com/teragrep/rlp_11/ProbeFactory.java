@@ -0,0 +1,396 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import com.codahale.metrics.MetricRegistry;
+import com.teragrep.rlp_11.Configuration.ConfigurationException;
+import com.teragrep.rlp_11.Configuration.LoadConfiguration;
+import com.teragrep.rlp_11.Configuration.MetricsConfiguration;
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import com.teragrep.rlp_11.Configuration.ReplayConfiguration;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.metrics.MetricNames;
+import com.teragrep.rlp_11.metrics.SizeClassLatencyFactory;
+import com.teragrep.rlp_11.metrics.TimerFactory;
+import com.teragrep.rlp_11.payload.PaddedPayload;
+import com.teragrep.rlp_11.reconnect.ReconnectPolicy;
+import com.teragrep.rlp_11.reconnect.ReconnectPolicyFactory;
+import com.teragrep.rlp_11.replay.ReplayProbe;
+import com.teragrep.rlp_11.replay.ReplaySchedule;
+import com.teragrep.rlp_11.resolve.AddressCache;
+import com.teragrep.rlp_11.resolve.MultiAddressProbe;
+import com.teragrep.rlp_11.replay.Trace;
+import com.teragrep.rlp_11.replay.TracePayload;
+import com.teragrep.rlp_11.replay.TraceSize;
+import com.teragrep.rlp_11.schedule.RateLimiter;
+import com.teragrep.rlp_11.schedule.Schedule;
+import com.teragrep.rlp_11.schedule.ScheduleFactory;
+import com.teragrep.rlp_11.schedule.SharedSchedule;
+import com.teragrep.rlp_11.transport.TransportFactory;
+import com.teragrep.rlp_11.watchdog.Watchdog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+public class ProbeFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProbeFactory.class);
+    private final ProbeConfiguration probeConfiguration;
+    private final MetricsConfiguration metricsConfiguration;
+    private final LoadConfiguration loadConfiguration;
+    private final ReplayConfiguration replayConfiguration;
+    private final MetricRegistry metricRegistry;
+
+    public ProbeFactory(
+            final ProbeConfiguration probeConfiguration,
+            final MetricsConfiguration metricsConfiguration,
+            final LoadConfiguration loadConfiguration,
+            final MetricRegistry metricRegistry
+    ) {
+        this(
+                probeConfiguration,
+                metricsConfiguration,
+                loadConfiguration,
+                new ReplayConfiguration(new HashMap<>()),
+                metricRegistry
+        );
+    }
+
+    public ProbeFactory(
+            final ProbeConfiguration probeConfiguration,
+            final MetricsConfiguration metricsConfiguration,
+            final LoadConfiguration loadConfiguration,
+            final ReplayConfiguration replayConfiguration,
+            final MetricRegistry metricRegistry
+    ) {
+        this.probeConfiguration = probeConfiguration;
+        this.metricsConfiguration = metricsConfiguration;
+        this.loadConfiguration = loadConfiguration;
+        this.replayConfiguration = replayConfiguration;
+        this.metricRegistry = metricRegistry;
+    }
+
+    public Probe createProbe(final TargetConfiguration targetConfiguration, final RecordFactory recordFactory) {
+        final Probe probe;
+        if ("load".equals(probeConfiguration.mode())) {
+            probe = createLoadProbe(targetConfiguration, recordFactory);
+        }
+        else if ("eventloop".equals(probeConfiguration.mode())) {
+            probe = createEventLoopProbe(targetConfiguration, recordFactory);
+        }
+        else if ("replay".equals(probeConfiguration.mode())) {
+            probe = createReplayProbe(targetConfiguration, recordFactory);
+        }
+        else if ("pool".equals(probeConfiguration.mode())) {
+            probe = createPoolProbe(targetConfiguration, recordFactory);
+        }
+        else if ("pipelined".equals(probeConfiguration.mode())) {
+            probe = new PipelinedProbe(
+                    targetConfiguration,
+                    probeConfiguration,
+                    metricsConfiguration,
+                    recordFactory,
+                    metricRegistry
+            );
+        }
+        else if (!"none".equals(targetConfiguration.resolve())) {
+            probe = createMultiAddressProbe(targetConfiguration, recordFactory);
+        }
+        else {
+            probe = new RelpProbe(
+                    targetConfiguration,
+                    probeConfiguration,
+                    metricsConfiguration,
+                    recordFactory,
+                    metricRegistry
+            );
+        }
+        return probe;
+    }
+
+    /**
+     * Commits like the <code>interval</code> mode to each address of the target on a connection of its own, with
+     * metrics tagged by the address.
+     */
+    private Probe createMultiAddressProbe(
+            final TargetConfiguration targetConfiguration,
+            final RecordFactory recordFactory
+    ) {
+        final AddressCache addressCache = new AddressCache(
+                targetConfiguration.hostname(),
+                targetConfiguration.resolveTtl()
+        );
+        final Function<String, Probe> probeFactory;
+        if ("roundrobin".equals(targetConfiguration.resolve())) {
+            // the addresses take turns in the records of one schedule
+            final Schedule schedule = new SharedSchedule(
+                    new ScheduleFactory(probeConfiguration, metricRegistry)
+                            .createSchedule(new MetricNames(RelpProbe.class, targetConfiguration.name())),
+                    addressCache::size
+            );
+            probeFactory = address -> createAddressProbe(targetConfiguration, address, schedule, recordFactory);
+        }
+        else {
+            probeFactory = address -> {
+                final MetricNames metricNames = new MetricNames(RelpProbe.class, targetConfiguration.name(), address);
+                return createAddressProbe(
+                        targetConfiguration,
+                        address,
+                        new ScheduleFactory(probeConfiguration, metricRegistry).createSchedule(metricNames),
+                        recordFactory
+                );
+            };
+        }
+        return new MultiAddressProbe(
+                targetConfiguration,
+                addressCache,
+                probeFactory,
+                new ExecutorServiceFactory(probeConfiguration).createExecutorService(),
+                metricRegistry
+        );
+    }
+
+    private Probe createAddressProbe(
+            final TargetConfiguration targetConfiguration,
+            final String address,
+            final Schedule schedule,
+            final RecordFactory recordFactory
+    ) {
+        return new RelpProbe(
+                targetConfiguration.withAddress(address),
+                probeConfiguration,
+                metricsConfiguration,
+                schedule,
+                recordFactory,
+                metricRegistry,
+                new MetricNames(RelpProbe.class, targetConfiguration.name(), address)
+        );
+    }
+
+    private Probe createLoadProbe(final TargetConfiguration targetConfiguration, final RecordFactory recordFactory) {
+        final MetricNames metricNames = new MetricNames(LoadProbe.class, targetConfiguration.name());
+        // all connections of a target share the rate
+        final RateLimiter rateLimiter = new RateLimiter(loadConfiguration.rate());
+        final int batchSize = loadConfiguration.batchSize();
+        final int connections = loadConfiguration.connections();
+        final List<Probe> loadProbes = new ArrayList<>(connections);
+        // all connections of a target share the reconnect policy
+        final ReconnectPolicy reconnectPolicy = new ReconnectPolicyFactory(targetConfiguration, metricRegistry)
+                .createReconnectPolicy(metricNames);
+        final Watchdog watchdog = new Watchdog();
+        final TransportFactory transportFactory = new TransportFactory(
+                targetConfiguration,
+                probeConfiguration,
+                metricsConfiguration,
+                metricRegistry
+        );
+        for (int i = 0; i < connections; i++) {
+            final AtomicBoolean stayRunning = new AtomicBoolean(true);
+            final ProbeConnection probeConnection = createProbeConnection(
+                    targetConfiguration,
+                    transportFactory,
+                    metricNames,
+                    stayRunning,
+                    reconnectPolicy,
+                    watchdog
+            );
+            loadProbes
+                    .add(
+                            new LoadProbe(
+                                    targetConfiguration,
+                                    probeConnection,
+                                    stayRunning,
+                                    recordFactory,
+                                    rateLimiter,
+                                    batchSize,
+                                    metricRegistry.meter(metricNames.name("commits")),
+                                    metricRegistry.meter(metricNames.name("records")),
+                                    metricRegistry.counter(metricNames.name("resends")),
+                                    metricRegistry.timer(metricNames.name("batchLatency"), () -> new TimerFactory(metricsConfiguration).createTimer())
+                            )
+                    );
+        }
+        return new ProbeGroup(
+                loadProbes,
+                new ExecutorServiceFactory(probeConfiguration).createExecutorService(connections)
+        );
+    }
+
+    private Probe createPoolProbe(final TargetConfiguration targetConfiguration, final RecordFactory recordFactory) {
+        final MetricNames metricNames = new MetricNames(PoolProbe.class, targetConfiguration.name());
+        final AtomicBoolean stayRunning = new AtomicBoolean(true);
+        final ReconnectPolicy reconnectPolicy = new ReconnectPolicyFactory(targetConfiguration, metricRegistry)
+                .createReconnectPolicy(metricNames);
+        final Watchdog watchdog = new Watchdog();
+        final TransportFactory transportFactory = new TransportFactory(
+                targetConfiguration,
+                probeConfiguration,
+                metricsConfiguration,
+                metricRegistry
+        );
+        final int connections = probeConfiguration.connections();
+        final List<ProbeConnection> probeConnections = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            probeConnections
+                    .add(
+                            createProbeConnection(
+                                    targetConfiguration,
+                                    transportFactory,
+                                    metricNames,
+                                    stayRunning,
+                                    reconnectPolicy,
+                                    watchdog
+                            )
+                    );
+        }
+        return new PoolProbe(
+                targetConfiguration,
+                new ScheduleFactory(probeConfiguration, metricRegistry).createSchedule(metricNames),
+                recordFactory,
+                probeConnections,
+                stayRunning,
+                () -> transportFactory.createTransport(metricNames),
+                probeConfiguration.fresh(),
+                metricRegistry.counter(metricNames.name("records")),
+                metricRegistry.counter(metricNames.name("resends")),
+                metricRegistry.counter(metricNames.name("freshFailures")),
+                metricRegistry.timer(metricNames.name("sendLatency"), () -> new TimerFactory(metricsConfiguration).createTimer()),
+                metricRegistry.timer(metricNames.name("freshLatency"), () -> new TimerFactory(metricsConfiguration).createTimer())
+        );
+    }
+
+    private ProbeConnection createProbeConnection(
+            final TargetConfiguration targetConfiguration,
+            final TransportFactory transportFactory,
+            final MetricNames metricNames,
+            final AtomicBoolean stayRunning,
+            final ReconnectPolicy reconnectPolicy,
+            final Watchdog watchdog
+    ) {
+        return new ProbeConnection(
+                targetConfiguration,
+                transportFactory.createTransport(metricNames),
+                stayRunning,
+                metricRegistry.counter(metricNames.name("connects")),
+                metricRegistry.counter(metricNames.name("disconnects")),
+                metricRegistry.counter(metricNames.name("retriedConnects")),
+                metricRegistry.timer(metricNames.name("connectLatency"), () -> new TimerFactory(metricsConfiguration).createTimer()),
+                reconnectPolicy,
+                watchdog,
+                metricRegistry.counter(metricNames.name("timeouts"))
+        );
+    }
+
+    /**
+     * Commits like the <code>interval</code> mode, with the timing and the record sizes or payloads of a trace.
+     */
+    private Probe createReplayProbe(final TargetConfiguration targetConfiguration, final RecordFactory recordFactory) {
+        final String path = replayConfiguration.path();
+        final Trace trace;
+        try (final Trace firstRecord = new Trace(Paths.get(path))) {
+            // a trace without a valid record would otherwise only fail once the probe is running
+            firstRecord.advance();
+            trace = new Trace(Paths.get(path));
+        }
+        catch (IOException e) {
+            LOGGER.error("Configuration failure: Unable to read <replay.path> <[{}]>: <{}>", path, e.getMessage());
+            throw new ConfigurationException("Invalid value for <replay.path> received");
+        }
+        return new ReplayProbe(
+                new RelpProbe(
+                        targetConfiguration,
+                        probeConfiguration,
+                        metricsConfiguration,
+                        new ReplaySchedule(trace, replayConfiguration.speedup()),
+                        recordFactory.withPayload(new TracePayload(trace, new PaddedPayload(new TraceSize(trace)))),
+                        metricRegistry,
+                        new MetricNames(RelpProbe.class, targetConfiguration.name())
+                ),
+                trace
+        );
+    }
+
+    private Probe createEventLoopProbe(
+            final TargetConfiguration targetConfiguration,
+            final RecordFactory recordFactory
+    ) {
+        if (targetConfiguration.tls().enabled()) {
+            LOGGER.error("Configuration failure: TLS is not supported in <eventloop> mode");
+            throw new ConfigurationException("Invalid value for <probe.mode> received");
+        }
+        final MetricNames metricNames = new MetricNames(EventLoopProbe.class, targetConfiguration.name());
+        final int connections = probeConfiguration.connections();
+        final List<EventLoopConnection> eventLoopConnections = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            eventLoopConnections
+                    .add(
+                            new EventLoopConnection(
+                                    targetConfiguration,
+                                    probeConfiguration.window(),
+                                    recordFactory,
+                                    metricRegistry.counter(metricNames.name("records")),
+                                    metricRegistry.counter(metricNames.name("resends")),
+                                    metricRegistry.counter(metricNames.name("connects")),
+                                    metricRegistry.counter(metricNames.name("disconnects")),
+                                    metricRegistry.counter(metricNames.name("retriedConnects")),
+                                    metricRegistry.counter(metricNames.name("inFlight")),
+                                    metricRegistry.timer(metricNames.name("sendLatency"), () -> new TimerFactory(metricsConfiguration).createTimer()),
+                                    metricRegistry.timer(metricNames.name("connectLatency"), () -> new TimerFactory(metricsConfiguration).createTimer()),
+                                    new SizeClassLatencyFactory(metricsConfiguration, metricRegistry)
+                                            .create(metricNames, "sendLatency")
+                            )
+                    );
+        }
+        return new EventLoopProbe(targetConfiguration, eventLoopConnections);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+public class ProbeGroup implements Probe {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProbeGroup.class);
+    private final List<Probe> probes;
+    private final ExecutorService executorService;
+
+    public ProbeGroup(final List<Probe> probes, final ExecutorService executorService) {
+        this.probes = probes;
+        this.executorService = executorService;
+    }
+
+    @Override
+    public void start() {
+        final List<Future<?>> futures = new ArrayList<>(probes.size());
+        for (final Probe probe : probes) {
+            futures.add(executorService.submit(probe::start));
+        }
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            }
+            catch (ExecutionException e) {
+                LOGGER.error("Probe failed: <{}>", e.getCause().getMessage());
+            }
+            catch (InterruptedException e) {
+                LOGGER.warn("Interrupted while waiting for probes to finish: <{}>", e.getMessage());
+                Thread.currentThread().interrupt();
+            }
+        }
+        executorService.shutdown();
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.debug("Stopping <[{}]> probes", probes.size());
+        final List<Runnable> stops = new ArrayList<>(probes.size());
+        for (final Probe probe : probes) {
+            stops.add(() -> stopProbe(probe));
+        }
+        // the probes drain in parallel and each bounds its own stop, so no deadline is needed on top
+        new ParallelStop(stops).await(0L);
+        executorService.shutdown();
+        LOGGER.debug("ProbeGroup stopped.");
+    }
+
+    private void stopProbe(final Probe probe) {
+        try {
+            probe.stop();
+        }
+        catch (RuntimeException e) {
+            LOGGER.error("Failed to stop probe: <{}>", e.getMessage());
+        }
+    }
+}
@@ -48,32 +48,376 @@ package com.teragrep.rlp_11;
 import com.teragrep.rlo_14.Facility;
 import com.teragrep.rlo_14.Severity;
 import com.teragrep.rlo_14.SyslogMessage;
+import com.teragrep.rlp_11.payload.Payload;
+import com.teragrep.rlp_11.payload.PayloadStub;
 import jakarta.json.Json;
 import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Creates the probe records. The parts of the record that do not change are rendered once with rlo_14 and jakarta
+ * json, and only the timestamps and the sequence number are written for each record, so writing a record into a
+ * reusable buffer does not allocate. A payload that is not a stub is written into a <code>padding</code> field between
+ * the session and the sequence.
+ */
 public class RecordFactory {
 
+    private static final String TIMESTAMP_FIELD = "\"timestamp\":\"";
+    private static final String TIMESTAMP_MARKER = "@";
+    private static final String PADDING_FIELD = "\"padding\":\"";
+    private static final String PADDING_MARKER = "%";
+    private static final String SEQUENCE_TEMPLATE = "0}";
+    private static final long MAX_EPOCH_SECOND = 253402300799L; // 9999-12-31T23:59:59Z
     private final String origin;
     private final String hostname;
     private final String appname;
+    private final String session;
+    private final AtomicLong sequence;
+    private final Payload payload;
+    private final byte[] headerPrefix;
+    private final byte[] headerSuffix;
+    private final byte[] messageInfix;
+    private final byte[] paddingSuffix;
+    private final byte[] messageSuffix;
 
     public RecordFactory(final String origin, final String hostname, final String appname) {
+        this(origin, hostname, appname, new PayloadStub());
+    }
+
+    public RecordFactory(final String origin, final String hostname, final String appname, final Payload payload) {
+        this(origin, hostname, appname, UUID.randomUUID().toString(), new AtomicLong(), payload);
+    }
+
+    public RecordFactory(
+            final String origin,
+            final String hostname,
+            final String appname,
+            final String session,
+            final AtomicLong sequence
+    ) {
+        this(origin, hostname, appname, session, sequence, new PayloadStub());
+    }
+
+    public RecordFactory(
+            final String origin,
+            final String hostname,
+            final String appname,
+            final String session,
+            final AtomicLong sequence,
+            final Payload payload
+    ) {
+        this(
+                origin,
+                hostname,
+                appname,
+                session,
+                sequence,
+                payload,
+                render(origin, hostname, appname, session, Instant.EPOCH, TIMESTAMP_MARKER, payload.isStub(), 0L)
+        );
+    }
+
+    private RecordFactory(
+            final String origin,
+            final String hostname,
+            final String appname,
+            final String session,
+            final AtomicLong sequence,
+            final Payload payload,
+            final String template
+    ) {
+        this(
+                origin,
+                hostname,
+                appname,
+                session,
+                sequence,
+                payload,
+                template,
+                template.indexOf(Instant.EPOCH.toString()),
+                template.lastIndexOf(TIMESTAMP_FIELD + TIMESTAMP_MARKER) + TIMESTAMP_FIELD.length(),
+                paddingIndex(template, payload.isStub()),
+                template.length() - SEQUENCE_TEMPLATE.length()
+        );
+    }
+
+    private RecordFactory(
+            final String origin,
+            final String hostname,
+            final String appname,
+            final String session,
+            final AtomicLong sequence,
+            final Payload payload,
+            final String template,
+            final int headerTimestamp,
+            final int messageTimestamp,
+            final int messagePadding,
+            final int messageSequence
+    ) {
+        // template is "<header>1970-01-01T00:00:00Z<header and json up to timestamp>@<json up to padding>%<json up to
+        // sequence>0}", without the padding marker and the json between it and the sequence for a stub payload
+        this(
+                origin,
+                hostname,
+                appname,
+                session,
+                sequence,
+                payload,
+                template.substring(0, headerTimestamp).getBytes(StandardCharsets.UTF_8),
+                template
+                        .substring(headerTimestamp + Instant.EPOCH.toString().length(), messageTimestamp)
+                        .getBytes(StandardCharsets.UTF_8),
+                template.substring(messageTimestamp + 1, messagePadding).getBytes(StandardCharsets.UTF_8),
+                template
+                        .substring(Math.min(messagePadding + 1, messageSequence), messageSequence)
+                        .getBytes(StandardCharsets.UTF_8),
+                template.substring(messageSequence + 1).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    private RecordFactory(
+            final String origin,
+            final String hostname,
+            final String appname,
+            final String session,
+            final AtomicLong sequence,
+            final Payload payload,
+            final byte[] headerPrefix,
+            final byte[] headerSuffix,
+            final byte[] messageInfix,
+            final byte[] paddingSuffix,
+            final byte[] messageSuffix
+    ) {
         this.origin = origin;
         this.hostname = hostname;
         this.appname = appname;
+        this.session = session;
+        this.sequence = sequence;
+        this.payload = payload;
+        this.headerPrefix = headerPrefix;
+        this.headerSuffix = headerSuffix;
+        this.messageInfix = messageInfix;
+        this.paddingSuffix = paddingSuffix;
+        this.messageSuffix = messageSuffix;
+    }
+
+    /**
+     * @return factory of the same session and sequence that writes the payload into the records
+     */
+    public RecordFactory withPayload(final Payload payload) {
+        return new RecordFactory(origin, hostname, appname, session, sequence, payload);
     }
 
     public byte[] createRecord() {
-        final Instant timestamp = Instant.now();
-        final String timestampString = timestamp.getEpochSecond() + "." + timestamp.getNano();
-        final JsonObject record = Json
+        return createRecord(Instant.now());
+    }
+
+    public byte[] createRecord(final Instant timestamp) {
+        return createRecord(timestamp, sequence.incrementAndGet());
+    }
+
+    /**
+     * Writes the record into the buffer at its current position.
+     *
+     * @return length of the written record
+     */
+    public int writeRecord(final ByteBuffer buffer, final Instant timestamp) {
+        final long recordSequence = sequence.incrementAndGet();
+        final int length;
+        if (isTemplated(timestamp)) {
+            final int baseLength = length(timestamp, recordSequence);
+            final int selection = payload.select(baseLength);
+            length = baseLength + payload.length(selection);
+            write(buffer, timestamp, recordSequence, selection);
+        }
+        else {
+            final byte[] record = createRecord(timestamp, recordSequence);
+            buffer.put(record);
+            length = record.length;
+        }
+        return length;
+    }
+
+    private byte[] createRecord(final Instant timestamp, final long recordSequence) {
+        final byte[] record;
+        if (isTemplated(timestamp)) {
+            final int baseLength = length(timestamp, recordSequence);
+            final int selection = payload.select(baseLength);
+            record = new byte[baseLength + payload.length(selection)];
+            write(ByteBuffer.wrap(record), timestamp, recordSequence, selection);
+        }
+        else {
+            final String rendered = render(
+                    origin,
+                    hostname,
+                    appname,
+                    session,
+                    timestamp,
+                    timestamp.getEpochSecond() + "." + timestamp.getNano(),
+                    payload.isStub(),
+                    recordSequence
+            );
+            if (payload.isStub()) {
+                record = rendered.getBytes(StandardCharsets.UTF_8);
+            }
+            else {
+                final int messagePadding = paddingIndex(rendered, false);
+                final byte[] prefix = rendered.substring(0, messagePadding).getBytes(StandardCharsets.UTF_8);
+                final byte[] suffix = rendered.substring(messagePadding + 1).getBytes(StandardCharsets.UTF_8);
+                final int selection = payload.select(prefix.length + suffix.length);
+                record = new byte[prefix.length + payload.length(selection) + suffix.length];
+                final ByteBuffer buffer = ByteBuffer.wrap(record);
+                buffer.put(prefix);
+                payload.write(buffer, selection);
+                buffer.put(suffix);
+            }
+        }
+        return record;
+    }
+
+    /**
+     * @return index of the padding marker, or of the sequence when the records have no padding
+     */
+    private static int paddingIndex(final String template, final boolean isStub) {
+        final int index;
+        if (isStub) {
+            index = template.length() - SEQUENCE_TEMPLATE.length();
+        }
+        else {
+            index = template.lastIndexOf(PADDING_FIELD + PADDING_MARKER) + PADDING_FIELD.length();
+        }
+        return index;
+    }
+
+    private int length(final Instant timestamp, final long recordSequence) {
+        return headerPrefix.length + rfc3339Length(timestamp) + headerSuffix.length
+                + digits(timestamp.getEpochSecond()) + 1 + digits(timestamp.getNano()) + messageInfix.length
+                + paddingSuffix.length + digits(recordSequence) + messageSuffix.length;
+    }
+
+    private boolean isTemplated(final Instant timestamp) {
+        return timestamp.getEpochSecond() >= 0 && timestamp.getEpochSecond() <= MAX_EPOCH_SECOND;
+    }
+
+    private void write(
+            final ByteBuffer buffer,
+            final Instant timestamp,
+            final long recordSequence,
+            final int selection
+    ) {
+        buffer.put(headerPrefix);
+        writeRfc3339(buffer, timestamp);
+        buffer.put(headerSuffix);
+        writeDigits(buffer, timestamp.getEpochSecond());
+        buffer.put((byte) '.');
+        writeDigits(buffer, timestamp.getNano());
+        buffer.put(messageInfix);
+        payload.write(buffer, selection);
+        buffer.put(paddingSuffix);
+        writeDigits(buffer, recordSequence);
+        buffer.put(messageSuffix);
+    }
+
+    private static int rfc3339Length(final Instant timestamp) {
+        final int length;
+        if (timestamp.getNano() / 1_000_000 == 0) {
+            // Instant.toString() omits the fraction when milliseconds are zero
+            length = 20;
+        }
+        else {
+            length = 24;
+        }
+        return length;
+    }
+
+    private static void writeRfc3339(final ByteBuffer buffer, final Instant timestamp) {
+        final long epochSecond = timestamp.getEpochSecond();
+        final long days = Math.floorDiv(epochSecond, 86400L);
+        final int secondOfDay = (int) Math.floorMod(epochSecond, 86400L);
+        // civil date from days since epoch, see http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+        final long z = days + 719468L;
+        final long era = Math.floorDiv(z, 146097L);
+        final long dayOfEra = z - era * 146097L;
+        final long yearOfEra = (dayOfEra - dayOfEra / 1460L + dayOfEra / 36524L - dayOfEra / 146096L) / 365L;
+        final long dayOfYear = dayOfEra - (365L * yearOfEra + yearOfEra / 4L - yearOfEra / 100L);
+        final long shiftedMonth = (5L * dayOfYear + 2L) / 153L;
+        final int day = (int) (dayOfYear - (153L * shiftedMonth + 2L) / 5L + 1L);
+        final int month = (int) (shiftedMonth < 10L ? shiftedMonth + 3L : shiftedMonth - 9L);
+        final int year = (int) (yearOfEra + era * 400L + (month <= 2 ? 1L : 0L));
+        writePadded(buffer, year, 4);
+        buffer.put((byte) '-');
+        writePadded(buffer, month, 2);
+        buffer.put((byte) '-');
+        writePadded(buffer, day, 2);
+        buffer.put((byte) 'T');
+        writePadded(buffer, secondOfDay / 3600, 2);
+        buffer.put((byte) ':');
+        writePadded(buffer, secondOfDay / 60 % 60, 2);
+        buffer.put((byte) ':');
+        writePadded(buffer, secondOfDay % 60, 2);
+        final int milli = timestamp.getNano() / 1_000_000;
+        if (milli != 0) {
+            buffer.put((byte) '.');
+            writePadded(buffer, milli, 3);
+        }
+        buffer.put((byte) 'Z');
+    }
+
+    private static void writePadded(final ByteBuffer buffer, final int value, final int width) {
+        int divisor = 1;
+        for (int i = 1; i < width; i++) {
+            divisor *= 10;
+        }
+        for (int remaining = value; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + remaining / divisor));
+            remaining %= divisor;
+        }
+    }
+
+    private static void writeDigits(final ByteBuffer buffer, final long value) {
+        final int digits = digits(value);
+        final int start = buffer.position();
+        long remaining = value;
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer.put(start + i, (byte) ('0' + remaining % 10));
+            remaining /= 10;
+        }
+        buffer.position(start + digits);
+    }
+
+    private static int digits(final long value) {
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static String render(
+            final String origin,
+            final String hostname,
+            final String appname,
+            final String session,
+            final Instant timestamp,
+            final String timestampString,
+            final boolean isStub,
+            final long recordSequence
+    ) {
+        final JsonObjectBuilder builder = Json
                 .createObjectBuilder()
                 .add("origin", origin)
                 .add("timestamp", timestampString)
-                .build();
+                .add("session", session);
+        if (!isStub) {
+            builder.add("padding", PADDING_MARKER);
+        }
+        final JsonObject record = builder.add("sequence", recordSequence).build();
         return new SyslogMessage()
                 .withTimestamp(timestamp.toEpochMilli())
                 .withAppName(appname)
@@ -81,7 +425,6 @@ public class RecordFactory {
                 .withFacility(Facility.USER)
                 .withSeverity(Severity.INFORMATIONAL)
                 .withMsg(record.toString())
-                .toRfc5424SyslogMessage()
-                .getBytes(StandardCharsets.UTF_8);
+                .toRfc5424SyslogMessage();
     }
 }
@@ -47,42 +47,48 @@ package com.teragrep.rlp_11;
 
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.SlidingWindowReservoir;
 import com.codahale.metrics.Timer;
 import com.teragrep.rlp_01.RelpBatch;
-import com.teragrep.rlp_01.RelpConnection;
 import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
 import com.teragrep.rlp_11.Configuration.MetricsConfiguration;
 import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.metrics.CorrectedLatency;
+import com.teragrep.rlp_11.metrics.MetricNames;
+import com.teragrep.rlp_11.metrics.SizeClassLatency;
+import com.teragrep.rlp_11.metrics.SizeClassLatencyFactory;
+import com.teragrep.rlp_11.metrics.TimerFactory;
+import com.teragrep.rlp_11.reconnect.FixedReconnect;
+import com.teragrep.rlp_11.reconnect.ReconnectPolicy;
+import com.teragrep.rlp_11.reconnect.ReconnectPolicyFactory;
+import com.teragrep.rlp_11.schedule.Schedule;
+import com.teragrep.rlp_11.schedule.ScheduleFactory;
+import com.teragrep.rlp_11.transport.Transport;
+import com.teragrep.rlp_11.transport.TransportFactory;
+import com.teragrep.rlp_11.watchdog.Watchdog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.concurrent.CountDownLatch;
 
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import static com.codahale.metrics.MetricRegistry.name;
-
-public class RelpProbe {
+public class RelpProbe implements Probe {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RelpProbe.class);
     private final TargetConfiguration targetConfiguration;
     private final RecordFactory recordFactory;
-    private final ProbeConfiguration probeConfiguration;
+    private final Schedule schedule;
     private final AtomicBoolean stayRunning = new AtomicBoolean(true);
-    private RelpConnection relpConnection;
+    private final ProbeConnection probeConnection;
     private final CountDownLatch latch = new CountDownLatch(1);
-    private boolean connected = false;
     private final Counter records;
     private final Counter resends;
-    private final Counter connects;
-    private final Counter disconnects;
-    private final Counter retriedConnects;
-    private final Timer sendLatency;
-    private final Timer connectLatency;
+    private final CorrectedLatency sendLatency;
+    private final CorrectedLatency timeoutLatency;
+    private final SizeClassLatency sizeClassLatency;
 
     public RelpProbe(
             final TargetConfiguration targetConfiguration,
@@ -94,20 +100,67 @@ public class RelpProbe {
         this(
                 targetConfiguration,
                 probeConfiguration,
+                metricsConfiguration,
                 recordFactory,
-                metricRegistry.counter(name(RelpProbe.class, "records")),
-                metricRegistry.counter(name(RelpProbe.class, "resends")),
-                metricRegistry.counter(name(RelpProbe.class, "connects")),
-                metricRegistry.counter(name(RelpProbe.class, "disconnects")),
-                metricRegistry.counter(name(RelpProbe.class, "retriedConnects")),
-                metricRegistry.timer(name(RelpProbe.class, "sendLatency"), () -> new Timer(new SlidingWindowReservoir(metricsConfiguration.window()))), metricRegistry.timer(name(RelpProbe.class, "connectLatency"), () -> new Timer(new SlidingWindowReservoir(metricsConfiguration.window())))
+                metricRegistry,
+                new MetricNames(RelpProbe.class, targetConfiguration.name())
+        );
+    }
+
+    private RelpProbe(
+            final TargetConfiguration targetConfiguration,
+            final ProbeConfiguration probeConfiguration,
+            final MetricsConfiguration metricsConfiguration,
+            final RecordFactory recordFactory,
+            final MetricRegistry metricRegistry,
+            final MetricNames metricNames
+    ) {
+        this(
+                targetConfiguration,
+                probeConfiguration,
+                metricsConfiguration,
+                new ScheduleFactory(probeConfiguration, metricRegistry).createSchedule(metricNames),
+                recordFactory,
+                metricRegistry,
+                metricNames
         );
     }
 
     public RelpProbe(
             final TargetConfiguration targetConfiguration,
             final ProbeConfiguration probeConfiguration,
+            final MetricsConfiguration metricsConfiguration,
+            final Schedule schedule,
+            final RecordFactory recordFactory,
+            final MetricRegistry metricRegistry,
+            final MetricNames metricNames
+    ) {
+        this(
+                targetConfiguration,
+                schedule,
+                recordFactory,
+                new TransportFactory(targetConfiguration, probeConfiguration, metricsConfiguration, metricRegistry)
+                        .createTransport(metricNames),
+                metricRegistry.counter(metricNames.name("records")),
+                metricRegistry.counter(metricNames.name("resends")),
+                metricRegistry.counter(metricNames.name("connects")),
+                metricRegistry.counter(metricNames.name("disconnects")),
+                metricRegistry.counter(metricNames.name("retriedConnects")),
+                metricRegistry.timer(metricNames.name("sendLatency"), () -> new TimerFactory(metricsConfiguration).createTimer()),
+                metricRegistry.timer(metricNames.name("connectLatency"), () -> new TimerFactory(metricsConfiguration).createTimer()),
+                new SizeClassLatencyFactory(metricsConfiguration, metricRegistry).create(metricNames, "sendLatency"),
+                new ReconnectPolicyFactory(targetConfiguration, metricRegistry).createReconnectPolicy(metricNames),
+                new Watchdog(),
+                metricRegistry.counter(metricNames.name("timeouts")),
+                metricRegistry.timer(metricNames.name("timeoutLatency"), () -> new TimerFactory(metricsConfiguration).createTimer())
+        );
+    }
+
+    public RelpProbe(
+            final TargetConfiguration targetConfiguration,
+            final Schedule schedule,
             final RecordFactory recordFactory,
+            final Transport transport,
             final Counter records,
             final Counter resends,
             final Counter connects,
@@ -115,123 +168,179 @@ public class RelpProbe {
             final Counter retriedConnects,
             final Timer sendLatency,
             final Timer connectLatency
+    ) {
+        this(
+                targetConfiguration,
+                schedule,
+                recordFactory,
+                transport,
+                records,
+                resends,
+                connects,
+                disconnects,
+                retriedConnects,
+                sendLatency,
+                connectLatency,
+                new SizeClassLatency(),
+                new FixedReconnect(targetConfiguration)
+        );
+    }
+
+    public RelpProbe(
+            final TargetConfiguration targetConfiguration,
+            final Schedule schedule,
+            final RecordFactory recordFactory,
+            final Transport transport,
+            final Counter records,
+            final Counter resends,
+            final Counter connects,
+            final Counter disconnects,
+            final Counter retriedConnects,
+            final Timer sendLatency,
+            final Timer connectLatency,
+            final SizeClassLatency sizeClassLatency,
+            final ReconnectPolicy reconnectPolicy
+    ) {
+        this(
+                targetConfiguration,
+                schedule,
+                recordFactory,
+                transport,
+                records,
+                resends,
+                connects,
+                disconnects,
+                retriedConnects,
+                sendLatency,
+                connectLatency,
+                sizeClassLatency,
+                reconnectPolicy,
+                new Watchdog(),
+                new Counter(),
+                new Timer()
+        );
+    }
+
+    public RelpProbe(
+            final TargetConfiguration targetConfiguration,
+            final Schedule schedule,
+            final RecordFactory recordFactory,
+            final Transport transport,
+            final Counter records,
+            final Counter resends,
+            final Counter connects,
+            final Counter disconnects,
+            final Counter retriedConnects,
+            final Timer sendLatency,
+            final Timer connectLatency,
+            final SizeClassLatency sizeClassLatency,
+            final ReconnectPolicy reconnectPolicy,
+            final Watchdog watchdog,
+            final Counter timeouts,
+            final Timer timeoutLatency
     ) {
         this.targetConfiguration = targetConfiguration;
-        this.probeConfiguration = probeConfiguration;
+        this.schedule = schedule;
         this.recordFactory = recordFactory;
+        this.probeConnection = new ProbeConnection(
+                targetConfiguration,
+                transport,
+                stayRunning,
+                connects,
+                disconnects,
+                retriedConnects,
+                connectLatency,
+                reconnectPolicy,
+                watchdog,
+                timeouts
+        );
         this.records = records;
         this.resends = resends;
-        this.connects = connects;
-        this.disconnects = disconnects;
-        this.retriedConnects = retriedConnects;
-        this.sendLatency = sendLatency;
-        this.connectLatency = connectLatency;
+        this.sendLatency = new CorrectedLatency(sendLatency);
+        this.timeoutLatency = new CorrectedLatency(timeoutLatency);
+        this.sizeClassLatency = sizeClassLatency;
     }
 
+    @Override
     public void start() {
-        relpConnection = new RelpConnection();
-        connect();
-        while (stayRunning.get()) {
-            final RelpBatch relpBatch = new RelpBatch();
-            relpBatch.insert(recordFactory.createRecord());
-
-            boolean allSent = false;
-            while (!allSent && stayRunning.get()) {
-                try (final Timer.Context context = sendLatency.time()) {
-                    LOGGER.debug("Committing Relpbatch");
-                    relpConnection.commit(relpBatch);
-                    records.inc();
+        try {
+            probeConnection.connect();
+            while (stayRunning.get()) {
+                final long intended;
+                try {
+                    intended = schedule.next();
                 }
-                catch (IllegalStateException | IOException | java.util.concurrent.TimeoutException e) {
-                    LOGGER.warn("Failed to commit: <{}>", e.getMessage());
-                    relpConnection.tearDown();
-                    connected = false;
+                catch (InterruptedException e) {
+                    LOGGER.warn("Sleep interrupted: <{}>", e.getMessage());
+                    continue;
                 }
-                LOGGER.debug("Verifying Transaction");
-                allSent = relpBatch.verifyTransactionAll();
-                if (!allSent) {
-                    LOGGER.warn("Transactions failed, retrying");
-                    resends.inc();
-                    relpBatch.retryAllFailed();
-                    reconnect();
+                catch (UncheckedIOException e) {
+                    // a replayed trace that can no longer be read, probing cannot continue
+                    LOGGER.error("Schedule failed, stopping probe: <{}>", e.getMessage());
+                    stayRunning.set(false);
+                    continue;
                 }
-            }
-            try {
-                LOGGER.debug("Sleeping before sending next record");
-                TimeUnit.MILLISECONDS.sleep(probeConfiguration.interval());
-            }
-            catch (InterruptedException e) {
-                LOGGER.warn("Sleep interrupted: <{}>", e.getMessage());
-            }
-        }
-        disconnect();
-        latch.countDown();
-    }
+                final RelpBatch relpBatch = new RelpBatch();
+                final byte[] record = recordFactory.createRecord();
+                relpBatch.insert(record);
 
-    private void connect() {
-        while (!connected && stayRunning.get()) {
-            try (final Timer.Context context = connectLatency.time()) {
-                LOGGER.debug("Connecting to <[{}:{}]>", targetConfiguration.hostname(), targetConfiguration.port());
-                connected = relpConnection.connect(targetConfiguration.hostname(), targetConfiguration.port());
-                LOGGER.debug("Connected.");
-                connects.inc();
-            }
-            catch (TimeoutException | IOException e) {
-                LOGGER
-                        .warn(
-                                "Failed to connect to <[{}:{}]>: <{}>", targetConfiguration.hostname(),
-                                targetConfiguration.port(), e.getMessage()
-                        );
-            }
-            if (!connected) {
-                try {
-                    LOGGER.debug("Sleeping for <[{}]>ms before reconnecting", targetConfiguration.reconnectInterval());
-                    TimeUnit.MILLISECONDS.sleep(targetConfiguration.reconnectInterval());
-                    retriedConnects.inc();
+                boolean allSent = false;
+                boolean timedOut = false;
+                long timedOutAt = 0L;
+                while (!allSent && !timedOut && stayRunning.get()) {
+                    final long commitStart = System.nanoTime();
+                    try {
+                        LOGGER.debug("Committing Relpbatch");
+                        probeConnection.commit(relpBatch);
+                        records.inc();
+                    }
+                    catch (TimeoutException e) {
+                        LOGGER.warn("Commit timed out: <{}>", e.getMessage());
+                        timedOut = true;
+                        timedOutAt = Math.min(System.nanoTime(), probeConnection.commitDeadline(commitStart));
+                        probeConnection.tearDown();
+                    }
+                    catch (IllegalStateException | IOException e) {
+                        LOGGER.warn("Failed to commit: <{}>", e.getMessage());
+                        probeConnection.tearDown();
+                    }
+                    LOGGER.debug("Verifying Transaction");
+                    allSent = relpBatch.verifyTransactionAll();
+                    if (!allSent) {
+                        schedule.failed();
+                        if (!timedOut) {
+                            LOGGER.warn("Transactions failed, retrying");
+                            resends.inc();
+                            relpBatch.retryAllFailed();
+                        }
+                        probeConnection.reconnect();
+                    }
                 }
-                catch (InterruptedException e) {
-                    LOGGER.warn("Sleep was interrupted: <{}>", e.getMessage());
+                if (allSent) {
+                    // measured from the intended send time so retries and stalls are included
+                    final long latency = System.nanoTime() - intended;
+                    sendLatency.record(latency, schedule.expectedInterval());
+                    sizeClassLatency.update(record.length, latency);
+                    schedule.acknowledged(latency);
+                }
+                else if (timedOut) {
+                    // a timed out record is not resent but recorded at the deadline apart from the acknowledged ones,
+                    // so hung periods stay visible without passing for successful sends
+                    timeoutLatency.record(timedOutAt - intended, schedule.expectedInterval());
                 }
             }
+            probeConnection.disconnect();
         }
-    }
-
-    private void reconnect() {
-        disconnect();
-        connect();
-    }
-
-    private void disconnect() {
-        if (!connected) {
-            LOGGER.debug("No need to disconnect, not connected");
-            return;
-        }
-        try {
-            LOGGER.debug("Disconnecting..");
-            relpConnection.disconnect();
-            disconnects.inc();
-        }
-        catch (IOException | TimeoutException e) {
-            LOGGER.warn("Failed to disconnect: <{}>", e.getMessage());
+        finally {
+            latch.countDown();
         }
-        relpConnection.tearDown();
-        LOGGER.debug("Disconnected.");
-        connected = false;
     }
 
+    @Override
     public void stop() {
         LOGGER.debug("Stop called");
         stayRunning.set(false);
-        try {
-            if (!latch.await(5L, TimeUnit.SECONDS)) {
-                LOGGER.error("Timed out while waiting for probe to shutdown.");
-                throw new RuntimeException("Timed out while waiting for probe to shutdown.");
-            }
-        }
-        catch (InterruptedException e) {
-            LOGGER.error("Interrupted while waiting for latch countdown");
-            throw new RuntimeException(e);
-        }
+        new Drain(latch, probeConnection::tearDown).await(targetConfiguration.drainTimeout());
         LOGGER.debug("RelpProbe stopped.");
     }
 }
@@ -0,0 +1,138 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.metrics;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Renders the CollectorRegistry at most once per ttl and serves the same Exposition to every scraper in between, so
+ * that concurrent scrapes do not each snapshot every reservoir.
+ */
+public final class ExpositionCache {
+
+    private final CollectorRegistry collectorRegistry;
+    private final long ttlNanos;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Timer renderDuration;
+    private final Clock clock;
+    private final ByteArrayOutputStream textBuffer;
+    private final ByteArrayOutputStream gzipBuffer;
+    private Exposition exposition;
+    private long renderedAt;
+
+    public ExpositionCache(
+            final CollectorRegistry collectorRegistry,
+            final long ttl,
+            final TimeUnit unit,
+            final Counter cacheHits,
+            final Counter cacheMisses,
+            final Timer renderDuration
+    ) {
+        this(collectorRegistry, ttl, unit, cacheHits, cacheMisses, renderDuration, Clock.defaultClock());
+    }
+
+    public ExpositionCache(
+            final CollectorRegistry collectorRegistry,
+            final long ttl,
+            final TimeUnit unit,
+            final Counter cacheHits,
+            final Counter cacheMisses,
+            final Timer renderDuration,
+            final Clock clock
+    ) {
+        this.collectorRegistry = collectorRegistry;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+        this.renderDuration = renderDuration;
+        this.clock = clock;
+        this.textBuffer = new ByteArrayOutputStream(64 * 1024);
+        this.gzipBuffer = new ByteArrayOutputStream(16 * 1024);
+        this.exposition = null;
+        this.renderedAt = 0L;
+    }
+
+    public synchronized Exposition exposition() throws IOException {
+        final long now = clock.getTick();
+        if (exposition == null || now - renderedAt >= ttlNanos) {
+            cacheMisses.inc();
+            exposition = render();
+            renderedAt = now;
+        }
+        else {
+            cacheHits.inc();
+        }
+        return exposition;
+    }
+
+    private Exposition render() throws IOException {
+        final long start = clock.getTick();
+        textBuffer.reset();
+        try (final Writer writer = new OutputStreamWriter(textBuffer, StandardCharsets.UTF_8)) {
+            TextFormat.write004(writer, collectorRegistry.metricFamilySamples());
+        }
+        gzipBuffer.reset();
+        try (final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(gzipBuffer)) {
+            textBuffer.writeTo(gzipOutputStream);
+        }
+        final Exposition rendered = new Exposition(textBuffer.toByteArray(), gzipBuffer.toByteArray());
+        renderDuration.update(clock.getTick() - start, TimeUnit.NANOSECONDS);
+        return rendered;
+    }
+}
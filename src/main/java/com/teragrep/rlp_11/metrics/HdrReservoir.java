@@ -0,0 +1,110 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.metrics;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservoir backed by a HdrHistogram Recorder. Updates are wait-free and the footprint does not depend on the amount of
+ * samples. Intervals are swapped out of the recorder on snapshot and the snapshot covers at least the latest
+ * <code>window</code> samples.
+ */
+public final class HdrReservoir implements Reservoir {
+
+    // two significant digits up to one hour, values given in nanoseconds. The lowest discernible value stays at one
+    // nanosecond as HdrHistogram rounds it down to a power of two, which would floor sub-microsecond buckets at 512 ns
+    static final long LOWEST_DISCERNIBLE_VALUE = 1L;
+    static final long HIGHEST_TRACKABLE_VALUE = TimeUnit.HOURS.toNanos(1);
+    static final int SIGNIFICANT_DIGITS = 2;
+
+    private final long window;
+    private final Recorder recorder;
+    private Histogram interval;
+    private Histogram current;
+    private Histogram previous;
+
+    public HdrReservoir(final long window) {
+        this(window, new Recorder(LOWEST_DISCERNIBLE_VALUE, HIGHEST_TRACKABLE_VALUE, SIGNIFICANT_DIGITS));
+    }
+
+    public HdrReservoir(final long window, final Recorder recorder) {
+        this.window = window;
+        this.recorder = recorder;
+        this.interval = recorder.getIntervalHistogram();
+        this.current = interval.copy();
+        this.previous = interval.copy();
+    }
+
+    @Override
+    public int size() {
+        return getSnapshot().size();
+    }
+
+    @Override
+    public void update(final long value) {
+        recorder.recordValue(Math.min(Math.max(value, 0L), HIGHEST_TRACKABLE_VALUE));
+    }
+
+    @Override
+    public synchronized Snapshot getSnapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        current.add(interval);
+        if (current.getTotalCount() >= window) {
+            final Histogram rotated = previous;
+            previous = current;
+            current = rotated;
+            current.reset();
+        }
+        final Histogram merged = previous.copy();
+        merged.add(current);
+        return new HdrSnapshot(merged);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import io.prometheus.client.Collector;
+import io.prometheus.client.dropwizard.samplebuilder.SampleBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports the LatencyBuckets of every BucketedTimer as a cumulative Prometheus histogram in seconds, next to the
+ * summary DropwizardExports provides for the same Timer. Unlike the summary quantiles, histogram buckets can be
+ * aggregated across instances and over time.
+ */
+public final class HistogramExports extends Collector {
+
+    private final MetricRegistry metricRegistry;
+    private final SampleBuilder sampleBuilder;
+
+    public HistogramExports(final MetricRegistry metricRegistry, final SampleBuilder sampleBuilder) {
+        super();
+        this.metricRegistry = metricRegistry;
+        this.sampleBuilder = sampleBuilder;
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        // timers of different targets share a family
+        final Map<String, List<MetricFamilySamples.Sample>> families = new LinkedHashMap<>();
+        for (final Map.Entry<String, Timer> entry : metricRegistry.getTimers().entrySet()) {
+            if (entry.getValue() instanceof BucketedTimer) {
+                final String name = entry.getKey();
+                final LatencyBuckets latencyBuckets = ((BucketedTimer) entry.getValue()).latencyBuckets();
+                final long[] bounds = latencyBuckets.bounds();
+                final long[] cumulativeCounts = latencyBuckets.cumulativeCounts();
+                final String familyName = sample(name, "_seconds", 0).name;
+                final List<MetricFamilySamples.Sample> samples = families
+                        .computeIfAbsent(familyName, key -> new ArrayList<>());
+                for (int i = 0; i < bounds.length; i++) {
+                    final String le = doubleToGoString(bounds[i] / NANOSECONDS_PER_SECOND);
+                    samples.add(bucket(name, le, cumulativeCounts[i]));
+                }
+                final long count = cumulativeCounts[cumulativeCounts.length - 1];
+                samples.add(bucket(name, "+Inf", count));
+                samples.add(sample(name, "_seconds_count", count));
+                samples.add(sample(name, "_seconds_sum", latencyBuckets.sum() / NANOSECONDS_PER_SECOND));
+            }
+        }
+        final List<MetricFamilySamples> metricFamilySamples = new ArrayList<>(families.size());
+        for (final Map.Entry<String, List<MetricFamilySamples.Sample>> family : families.entrySet()) {
+            metricFamilySamples
+                    .add(
+                            new MetricFamilySamples(
+                                    family.getKey(),
+                                    Type.HISTOGRAM,
+                                    "Latency histogram of Dropwizard timer " + family.getKey(),
+                                    family.getValue()
+                            )
+                    );
+        }
+        return metricFamilySamples;
+    }
+
+    private MetricFamilySamples.Sample sample(final String name, final String suffix, final double value) {
+        return sampleBuilder.createSample(name, suffix, Collections.emptyList(), Collections.emptyList(), value);
+    }
+
+    private MetricFamilySamples.Sample bucket(final String name, final String le, final long count) {
+        return sampleBuilder
+                .createSample(
+                        name, "_seconds_bucket", Collections.singletonList("le"), Collections.singletonList(le), count
+                );
+    }
+}
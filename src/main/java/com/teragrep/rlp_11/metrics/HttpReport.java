@@ -48,33 +48,48 @@ package com.teragrep.rlp_11.metrics;
 import com.codahale.metrics.MetricRegistry;
 import io.prometheus.client.CollectorRegistry;
 import io.prometheus.client.dropwizard.DropwizardExports;
-import io.prometheus.client.exporter.MetricsServlet;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 public class HttpReport implements Report {
 
     private final Server jettyServer;
     private final MetricRegistry metricRegistry;
+    private final long cacheTtl;
 
-    public HttpReport(final MetricRegistry metricRegistry, final int prometheusPort) {
+    public HttpReport(final MetricRegistry metricRegistry, final int prometheusPort, final long cacheTtl) {
         this.metricRegistry = metricRegistry;
+        this.cacheTtl = cacheTtl;
         jettyServer = new Server(prometheusPort);
     }
 
     @Override
     public void start() {
         // prometheus-exporter
-        CollectorRegistry.defaultRegistry.register(new DropwizardExports(metricRegistry));
+        CollectorRegistry.defaultRegistry.register(new DropwizardExports(metricRegistry, new TargetSampleBuilder()));
+        CollectorRegistry.defaultRegistry.register(new HistogramExports(metricRegistry, new TargetSampleBuilder()));
 
         final ServletContextHandler context = new ServletContextHandler();
         context.setContextPath("/");
         jettyServer.setHandler(context);
 
-        final MetricsServlet metricsServlet = new MetricsServlet();
+        // scrapes within cacheTtl milliseconds share one rendering
+        final ExpositionCache expositionCache = new ExpositionCache(
+                CollectorRegistry.defaultRegistry,
+                cacheTtl,
+                TimeUnit.MILLISECONDS,
+                metricRegistry.counter(MetricRegistry.name(HttpReport.class, "cacheHits")),
+                metricRegistry.counter(MetricRegistry.name(HttpReport.class, "cacheMisses")),
+                metricRegistry.timer(MetricRegistry.name(HttpReport.class, "renderDuration"))
+        );
+        final CachedMetricsServlet metricsServlet = new CachedMetricsServlet(
+                expositionCache,
+                metricRegistry.timer(MetricRegistry.name(HttpReport.class, "scrapeDuration"))
+        );
         final ServletHolder servletHolder = new ServletHolder(metricsServlet);
         context.addServlet(servletHolder, "/metrics");
 
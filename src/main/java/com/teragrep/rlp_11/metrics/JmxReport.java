@@ -68,7 +68,11 @@ public class JmxReport implements Report {
 
     @Override
     public void close() throws IOException {
-        report.close();
-        jmxReporter.close();
+        try {
+            jmxReporter.close();
+        }
+        finally {
+            report.close();
+        }
     }
 }
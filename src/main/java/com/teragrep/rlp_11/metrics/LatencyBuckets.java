@@ -0,0 +1,107 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts latencies into fixed buckets for cumulative Prometheus histograms. Each bucket is a striped LongAdder so
+ * recording does not contend between threads and never takes a lock.
+ */
+public final class LatencyBuckets implements LatencyObserver {
+
+    private final long[] bounds;
+    private final LongAdder[] counts;
+    private final LongAdder sum;
+
+    /**
+     * @param bounds inclusive upper bounds of the buckets in nanoseconds, in increasing order
+     */
+    public LatencyBuckets(final long[] bounds) {
+        this.bounds = bounds.clone();
+        this.counts = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        this.sum = new LongAdder();
+    }
+
+    @Override
+    public void observe(final long nanos) {
+        final int found = Arrays.binarySearch(bounds, nanos);
+        final int index;
+        if (found < 0) {
+            index = -found - 1;
+        }
+        else {
+            index = found;
+        }
+        counts[index].increment();
+        sum.add(nanos);
+    }
+
+    public long[] bounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * @return count of values at or below each bound, the last element being the count of all values
+     */
+    public long[] cumulativeCounts() {
+        final long[] cumulative = new long[counts.length];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            total += counts[i].sum();
+            cumulative[i] = total;
+        }
+        return cumulative;
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+}
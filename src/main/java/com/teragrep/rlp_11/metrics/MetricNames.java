@@ -0,0 +1,102 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class MetricNames {
+
+    private final Class<?> klass;
+    private final String target;
+    private final String address;
+
+    public MetricNames(final Class<?> klass, final String target) {
+        this(klass, target, "");
+    }
+
+    /**
+     * @param address resolved address the metrics are for, dots and colons are replaced so that it stays one segment
+     */
+    public MetricNames(final Class<?> klass, final String target, final String address) {
+        this.klass = klass;
+        this.target = target;
+        this.address = address;
+    }
+
+    public String name(final String metric) {
+        final String name;
+        if (target.isEmpty()) {
+            name = MetricRegistry.name(klass, metric);
+        }
+        else {
+            name = MetricRegistry.name(klass, metric, "target", target);
+        }
+        final String addressName;
+        if (address.isEmpty()) {
+            addressName = name;
+        }
+        else {
+            addressName = MetricRegistry.name(name, "address", address.replaceAll("[^A-Za-z0-9]", "_"));
+        }
+        return addressName;
+    }
+
+    /**
+     * @param metricName name of a metric in the registry
+     * @return true if the metric is one of the target and address of these names, whichever class and metric it is
+     */
+    public boolean matches(final String metricName) {
+        final StringBuilder suffix = new StringBuilder();
+        if (!target.isEmpty()) {
+            suffix.append(".target.").append(target);
+        }
+        if (!address.isEmpty()) {
+            suffix.append(".address.").append(address.replaceAll("[^A-Za-z0-9]", "_"));
+        }
+        // names of the unnamed target have no target segment
+        return metricName.endsWith(suffix.toString()) && (!target.isEmpty() || !metricName.contains(".target."));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.metrics;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Timer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timer that passes every update to its LatencyObservers in addition to its reservoir.
+ */
+public class ObservedTimer extends Timer {
+
+    private final List<LatencyObserver> observers;
+
+    public ObservedTimer(final Reservoir reservoir) {
+        super(reservoir);
+        this.observers = new CopyOnWriteArrayList<>();
+    }
+
+    public void addObserver(final LatencyObserver observer) {
+        observers.add(observer);
+    }
+
+    @Override
+    public void update(final long duration, final TimeUnit unit) {
+        super.update(duration, unit);
+        final long nanos = unit.toNanos(duration);
+        for (final LatencyObserver observer : observers) {
+            observer.observe(nanos);
+        }
+    }
+
+    @Override
+    public void update(final Duration duration) {
+        update(duration.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    // the time variants of Timer bypass update(long, TimeUnit), route them through a Context which does not
+
+    @Override
+    public <T> T time(final Callable<T> event) throws Exception {
+        try (final Context context = time()) {
+            return event.call();
+        }
+    }
+
+    @Override
+    public <T> T timeSupplier(final Supplier<T> event) {
+        try (final Context context = time()) {
+            return event.get();
+        }
+    }
+
+    @Override
+    public void time(final Runnable event) {
+        try (final Context context = time()) {
+            event.run();
+        }
+    }
+}
@@ -75,9 +75,16 @@ public class Slf4jReport implements Report {
         report.start();
     }
 
+    /**
+     * Logs a final report and then closes the wrapped reports, which are still available while it is logged.
+     */
     @Override
     public void close() throws IOException {
-        report.close();
-        slf4jReporter.close();
+        try {
+            slf4jReporter.close();
+        }
+        finally {
+            report.close();
+        }
     }
 }
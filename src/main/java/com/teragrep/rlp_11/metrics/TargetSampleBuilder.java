@@ -0,0 +1,106 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.metrics;
+
+import io.prometheus.client.dropwizard.samplebuilder.CustomMappingSampleBuilder;
+import io.prometheus.client.dropwizard.samplebuilder.MapperConfig;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps metrics named by MetricNames with a target or an address to a common name with the target and the address as
+ * labels.
+ */
+public final class TargetSampleBuilder extends CustomMappingSampleBuilder {
+
+    public TargetSampleBuilder() {
+        super(
+                Arrays
+                        .asList(
+                                new MapperConfig(
+                                        "com.teragrep.rlp_11.*.*.target.*",
+                                        "com.teragrep.rlp_11.${0}.${1}",
+                                        Collections.singletonMap("target", "${2}")
+                                ),
+                                new MapperConfig(
+                                        "com.teragrep.rlp_11.*.*.*.target.*",
+                                        "com.teragrep.rlp_11.${0}.${1}.${2}",
+                                        Collections.singletonMap("target", "${3}")
+                                ),
+                                new MapperConfig(
+                                        "com.teragrep.rlp_11.*.*.address.*",
+                                        "com.teragrep.rlp_11.${0}.${1}",
+                                        Collections.singletonMap("address", "${2}")
+                                ),
+                                new MapperConfig(
+                                        "com.teragrep.rlp_11.*.*.*.address.*",
+                                        "com.teragrep.rlp_11.${0}.${1}.${2}",
+                                        Collections.singletonMap("address", "${3}")
+                                ),
+                                new MapperConfig(
+                                        "com.teragrep.rlp_11.*.*.target.*.address.*",
+                                        "com.teragrep.rlp_11.${0}.${1}",
+                                        labels("${2}", "${3}")
+                                ),
+                                new MapperConfig(
+                                        "com.teragrep.rlp_11.*.*.*.target.*.address.*",
+                                        "com.teragrep.rlp_11.${0}.${1}.${2}",
+                                        labels("${3}", "${4}")
+                                )
+                        )
+        );
+    }
+
+    private static Map<String, String> labels(final String target, final String address) {
+        final Map<String, String> labels = new HashMap<>();
+        labels.put("target", target);
+        labels.put("address", address);
+        return labels;
+    }
+}
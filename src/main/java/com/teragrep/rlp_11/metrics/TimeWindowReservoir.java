@@ -0,0 +1,160 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.metrics;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservoir covering a duration instead of a sample count. Samples go to a HdrHistogram Recorder that is flushed into a
+ * ring of per-bucket histograms whenever the bucket changes, and snapshots merge the buckets still inside the window.
+ * Memory and snapshot cost depend on the amount of buckets only, not on the sample rate.
+ */
+public final class TimeWindowReservoir implements Reservoir {
+
+    private static final int MAX_BUCKETS = 60;
+
+    private final Clock clock;
+    private final long bucketNanos;
+    private final Recorder recorder;
+    private final Histogram[] buckets;
+    private final long[] bucketIndexes;
+    private volatile long currentIndex;
+    private Histogram interval;
+
+    public TimeWindowReservoir(final long windowDuration, final TimeUnit windowUnit) {
+        this(windowDuration, windowUnit, Clock.defaultClock());
+    }
+
+    public TimeWindowReservoir(final long windowDuration, final TimeUnit windowUnit, final Clock clock) {
+        // one bucket per second, or MAX_BUCKETS wider buckets for longer windows
+        this(
+                clock,
+                windowUnit.toNanos(windowDuration),
+                (int) Math.min(MAX_BUCKETS, Math.max(1L, windowUnit.toSeconds(windowDuration)))
+        );
+    }
+
+    private TimeWindowReservoir(final Clock clock, final long windowNanos, final int bucketCount) {
+        this(
+                clock,
+                (windowNanos + bucketCount - 1) / bucketCount,
+                new Recorder(
+                        HdrReservoir.LOWEST_DISCERNIBLE_VALUE,
+                        HdrReservoir.HIGHEST_TRACKABLE_VALUE,
+                        HdrReservoir.SIGNIFICANT_DIGITS
+                ),
+                new Histogram[bucketCount]
+        );
+    }
+
+    private TimeWindowReservoir(
+            final Clock clock,
+            final long bucketNanos,
+            final Recorder recorder,
+            final Histogram[] buckets
+    ) {
+        this.clock = clock;
+        this.bucketNanos = bucketNanos;
+        this.recorder = recorder;
+        this.buckets = buckets;
+        this.bucketIndexes = new long[buckets.length];
+        this.interval = recorder.getIntervalHistogram();
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = interval.copy();
+        }
+        Arrays.fill(bucketIndexes, Long.MIN_VALUE);
+        this.currentIndex = index();
+    }
+
+    @Override
+    public int size() {
+        return getSnapshot().size();
+    }
+
+    @Override
+    public void update(final long value) {
+        if (index() != currentIndex) {
+            rotate();
+        }
+        recorder.recordValue(Math.min(Math.max(value, 0L), HdrReservoir.HIGHEST_TRACKABLE_VALUE));
+    }
+
+    @Override
+    public synchronized Snapshot getSnapshot() {
+        rotate();
+        final Histogram merged = interval.copy();
+        merged.reset();
+        for (int i = 0; i < buckets.length; i++) {
+            if (bucketIndexes[i] > currentIndex - buckets.length) {
+                merged.add(buckets[i]);
+            }
+        }
+        return new HdrSnapshot(merged);
+    }
+
+    private synchronized void rotate() {
+        // samples in the recorder were recorded during the current bucket
+        interval = recorder.getIntervalHistogram(interval);
+        final int slot = (int) Math.floorMod(currentIndex, (long) buckets.length);
+        if (bucketIndexes[slot] != currentIndex) {
+            buckets[slot].reset();
+            bucketIndexes[slot] = currentIndex;
+        }
+        buckets[slot].add(interval);
+        currentIndex = index();
+    }
+
+    private long index() {
+        return Math.floorDiv(clock.getTick(), bucketNanos);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.payload;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws sizes with the weights of an observed histogram.
+ */
+public final class EmpiricalSize implements SizeDistribution {
+
+    private final int[] sizes;
+    private final double[] cumulativeWeights;
+
+    /**
+     * @param sizes             sizes of the histogram
+     * @param cumulativeWeights sum of the weights of each size and the sizes before it
+     */
+    public EmpiricalSize(final int[] sizes, final double[] cumulativeWeights) {
+        this.sizes = sizes;
+        this.cumulativeWeights = cumulativeWeights;
+    }
+
+    @Override
+    public int nextSize() {
+        final double point = ThreadLocalRandom.current().nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int low = 0;
+        int high = cumulativeWeights.length - 1;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (cumulativeWeights[middle] > point) {
+                high = middle;
+            }
+            else {
+                low = middle + 1;
+            }
+        }
+        return sizes[low];
+    }
+
+    @Override
+    public int maxSize() {
+        int max = 0;
+        for (final int size : sizes) {
+            max = Math.max(max, size);
+        }
+        return max;
+    }
+}
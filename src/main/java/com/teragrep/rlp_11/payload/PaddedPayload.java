@@ -0,0 +1,100 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.payload;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * Pads records to the sizes drawn from a distribution with a prefix of padding generated at startup. Records that are
+ * larger than the drawn size without padding are not padded.
+ */
+public final class PaddedPayload implements Payload {
+
+    private static final byte[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789"
+            .getBytes(StandardCharsets.US_ASCII);
+    private final SizeDistribution sizeDistribution;
+    private final byte[] padding;
+
+    public PaddedPayload(final SizeDistribution sizeDistribution) {
+        this(sizeDistribution, padding(sizeDistribution.maxSize()));
+    }
+
+    public PaddedPayload(final SizeDistribution sizeDistribution, final byte[] padding) {
+        this.sizeDistribution = sizeDistribution;
+        this.padding = padding;
+    }
+
+    @Override
+    public int select(final int recordLength) {
+        return Math.max(0, Math.min(padding.length, sizeDistribution.nextSize() - recordLength));
+    }
+
+    @Override
+    public int length(final int selection) {
+        return selection;
+    }
+
+    @Override
+    public void write(final ByteBuffer buffer, final int selection) {
+        buffer.put(padding, 0, selection);
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+
+    private static byte[] padding(final int length) {
+        final SplittableRandom random = new SplittableRandom();
+        final byte[] padding = new byte[length];
+        for (int i = 0; i < length; i++) {
+            padding[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+        }
+        return padding;
+    }
+}
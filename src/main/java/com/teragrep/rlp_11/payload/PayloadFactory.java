@@ -0,0 +1,192 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.payload;
+
+import com.teragrep.rlp_11.Configuration.ConfigurationException;
+import com.teragrep.rlp_11.Configuration.PayloadConfiguration;
+import jakarta.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PayloadFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PayloadFactory.class);
+    private final PayloadConfiguration payloadConfiguration;
+
+    public PayloadFactory(final PayloadConfiguration payloadConfiguration) {
+        this.payloadConfiguration = payloadConfiguration;
+    }
+
+    public Payload createPayload() {
+        final Payload payload;
+        if (!payloadConfiguration.samples().isEmpty()) {
+            payload = new SamplePayload(samples());
+        }
+        else if ("none".equals(payloadConfiguration.distribution())) {
+            payload = new PayloadStub();
+        }
+        else {
+            payload = new PaddedPayload(createSizeDistribution());
+        }
+        return payload;
+    }
+
+    private SizeDistribution createSizeDistribution() {
+        final String distribution = payloadConfiguration.distribution();
+        final SizeDistribution sizeDistribution;
+        if ("fixed".equals(distribution)) {
+            sizeDistribution = new FixedSize(payloadConfiguration.size());
+        }
+        else if ("uniform".equals(distribution)) {
+            sizeDistribution = new UniformSize(payloadConfiguration.sizeMin(), payloadConfiguration.sizeMax());
+        }
+        else if ("lognormal".equals(distribution)) {
+            sizeDistribution = new LogNormalSize(
+                    payloadConfiguration.median(),
+                    payloadConfiguration.sigma(),
+                    payloadConfiguration.maxSize()
+            );
+        }
+        else {
+            sizeDistribution = histogram();
+        }
+        return sizeDistribution;
+    }
+
+    /**
+     * Reads a histogram of lines with a size in bytes and its weight, separated by whitespace or a comma.
+     */
+    private SizeDistribution histogram() {
+        final List<String> lines = lines(payloadConfiguration.histogram(), "payload.size.histogram");
+        final List<Integer> sizes = new ArrayList<>();
+        final List<Double> weights = new ArrayList<>();
+        for (final String line : lines) {
+            final String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                final String[] fields = trimmed.split("[\\s,]+");
+                final int size;
+                final double weight;
+                try {
+                    size = Integer.parseInt(fields[0]);
+                    weight = fields.length == 2 ? Double.parseDouble(fields[1]) : -1;
+                }
+                catch (NumberFormatException e) {
+                    LOGGER.error("Configuration failure: Invalid line in <payload.size.histogram>: <{}>", line);
+                    throw new ConfigurationException("Invalid value for <payload.size.histogram> received");
+                }
+                if (size < 1 || size > payloadConfiguration.maxSize() || !(weight >= 0) || Double.isInfinite(weight)) {
+                    LOGGER
+                            .error(
+                                    "Configuration failure: Invalid line in <payload.size.histogram>: <{}>, expected a size between 1 and {} and a weight >=0",
+                                    line, payloadConfiguration.maxSize()
+                            );
+                    throw new ConfigurationException("Invalid value for <payload.size.histogram> received");
+                }
+                sizes.add(size);
+                weights.add(weight);
+            }
+        }
+        final int[] sizeArray = new int[sizes.size()];
+        final double[] cumulativeWeights = new double[weights.size()];
+        double total = 0;
+        for (int i = 0; i < sizeArray.length; i++) {
+            sizeArray[i] = sizes.get(i);
+            total += weights.get(i);
+            cumulativeWeights[i] = total;
+        }
+        if (!(total > 0)) {
+            LOGGER.error("Configuration failure: <payload.size.histogram> has no sizes with a weight >0");
+            throw new ConfigurationException("Invalid value for <payload.size.histogram> received");
+        }
+        return new EmpiricalSize(sizeArray, cumulativeWeights);
+    }
+
+    /**
+     * Reads each non-empty line of the sample file as a payload, escaped for a json string.
+     */
+    private List<byte[]> samples() {
+        final List<byte[]> samples = new ArrayList<>();
+        for (final String line : lines(payloadConfiguration.samples(), "payload.samples")) {
+            if (!line.isEmpty()) {
+                final String quoted = Json.createValue(line).toString();
+                final byte[] sample = quoted.substring(1, quoted.length() - 1).getBytes(StandardCharsets.UTF_8);
+                if (sample.length > payloadConfiguration.maxSize()) {
+                    LOGGER
+                            .error(
+                                    "Configuration failure: <payload.samples> has a sample of <{}> bytes, expected at most {}",
+                                    sample.length, payloadConfiguration.maxSize()
+                            );
+                    throw new ConfigurationException("Invalid value for <payload.samples> received");
+                }
+                samples.add(sample);
+            }
+        }
+        if (samples.isEmpty()) {
+            LOGGER.error("Configuration failure: <payload.samples> has no samples");
+            throw new ConfigurationException("Invalid value for <payload.samples> received");
+        }
+        return samples;
+    }
+
+    private List<String> lines(final String path, final String key) {
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8);
+        }
+        catch (IOException e) {
+            LOGGER.error("Configuration failure: Unable to read <{}> <[{}]>: <{}>", key, path, e.getMessage());
+            throw new ConfigurationException("Invalid value for <" + key + "> received");
+        }
+        return lines;
+    }
+}
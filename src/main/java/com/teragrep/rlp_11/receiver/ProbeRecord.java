@@ -0,0 +1,120 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.receiver;
+
+import jakarta.json.Json;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+import java.io.StringReader;
+import java.time.Instant;
+
+/**
+ * JSON message of a record sent by RecordFactory, read back from a received syslog payload.
+ */
+public final class ProbeRecord {
+
+    private static final String JSON_START = "{\"origin\":";
+    private final JsonObject json;
+
+    public ProbeRecord(final String payload) {
+        this(json(payload));
+    }
+
+    public ProbeRecord(final JsonObject json) {
+        this.json = json;
+    }
+
+    public String origin() {
+        return string("origin");
+    }
+
+    public Instant timestamp() {
+        // epochSecond.nano, nano is not zero padded
+        final String timestamp = string("timestamp");
+        final int dot = timestamp.indexOf('.');
+        if (dot < 0) {
+            throw new IllegalArgumentException("Invalid timestamp <" + timestamp + ">");
+        }
+        return Instant
+                .ofEpochSecond(
+                        Long.parseLong(timestamp.substring(0, dot)), Long.parseLong(timestamp.substring(dot + 1))
+                );
+    }
+
+    public String session() {
+        return string("session");
+    }
+
+    public long sequence() {
+        final JsonValue value = json.get("sequence");
+        if (!(value instanceof JsonNumber)) {
+            throw new IllegalArgumentException("Probe record has no <sequence>");
+        }
+        return ((JsonNumber) value).longValueExact();
+    }
+
+    private String string(final String key) {
+        final JsonValue value = json.get(key);
+        if (!(value instanceof JsonString)) {
+            throw new IllegalArgumentException("Probe record has no <" + key + ">");
+        }
+        return ((JsonString) value).getString();
+    }
+
+    private static JsonObject json(final String payload) {
+        final int start = payload.indexOf(JSON_START);
+        if (start < 0) {
+            throw new IllegalArgumentException("Payload is not a probe record");
+        }
+        try (JsonReader reader = Json.createReader(new StringReader(payload.substring(start)))) {
+            return reader.readObject();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.receiver;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import jakarta.json.JsonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches received probe records to the session that sent them, tracks their sequence numbers and records how long
+ * they took to arrive.
+ */
+public class ReceivedRecords {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReceivedRecords.class);
+    private static final int WINDOW = 1024;
+    private final Map<String, SequenceTracker> sessions;
+    private final Counter received;
+    private final Counter invalid;
+    private final Counter lost;
+    private final Counter duplicates;
+    private final Counter reordered;
+    private final Counter late;
+    private final Timer endToEndLatency;
+
+    public ReceivedRecords(
+            final Counter received,
+            final Counter invalid,
+            final Counter lost,
+            final Counter duplicates,
+            final Counter reordered,
+            final Counter late,
+            final Timer endToEndLatency
+    ) {
+        this(new ConcurrentHashMap<>(), received, invalid, lost, duplicates, reordered, late, endToEndLatency);
+    }
+
+    public ReceivedRecords(
+            final Map<String, SequenceTracker> sessions,
+            final Counter received,
+            final Counter invalid,
+            final Counter lost,
+            final Counter duplicates,
+            final Counter reordered,
+            final Counter late,
+            final Timer endToEndLatency
+    ) {
+        this.sessions = sessions;
+        this.received = received;
+        this.invalid = invalid;
+        this.lost = lost;
+        this.duplicates = duplicates;
+        this.reordered = reordered;
+        this.late = late;
+        this.endToEndLatency = endToEndLatency;
+    }
+
+    public void accept(final String payload, final Instant receivedAt) {
+        try {
+            final ProbeRecord probeRecord = new ProbeRecord(payload);
+            accept(
+                    probeRecord.origin(), probeRecord.session(), probeRecord.sequence(), probeRecord.timestamp(),
+                    receivedAt
+            );
+        }
+        catch (IllegalArgumentException | ArithmeticException | JsonException e) {
+            LOGGER.debug("Ignoring record that is not a probe record: <{}>", e.getMessage());
+            invalid.inc();
+        }
+    }
+
+    private void accept(
+            final String origin,
+            final String session,
+            final long sequence,
+            final Instant timestamp,
+            final Instant receivedAt
+    ) {
+        // same host or synchronized clocks, a negative latency means the clocks are not
+        final long latency = Math.max(0L, Duration.between(timestamp, receivedAt).toNanos());
+        received.inc();
+        endToEndLatency.update(latency, TimeUnit.NANOSECONDS);
+        sessions
+                .computeIfAbsent(
+                        origin + "/" + session, (key) -> new SequenceTracker(WINDOW, lost, duplicates, reordered, late)
+                )
+                .accept(sequence);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.receiver;
+
+import com.codahale.metrics.MetricRegistry;
+import com.teragrep.net_01.eventloop.EventLoopFactory;
+import com.teragrep.rlp_11.Configuration.MetricsConfiguration;
+import com.teragrep.rlp_11.Configuration.ReceiverConfiguration;
+import com.teragrep.rlp_11.metrics.TimerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+public class ReceiverFactory {
+
+    private final ReceiverConfiguration receiverConfiguration;
+    private final MetricsConfiguration metricsConfiguration;
+    private final MetricRegistry metricRegistry;
+
+    public ReceiverFactory(
+            final ReceiverConfiguration receiverConfiguration,
+            final MetricsConfiguration metricsConfiguration,
+            final MetricRegistry metricRegistry
+    ) {
+        this.receiverConfiguration = receiverConfiguration;
+        this.metricsConfiguration = metricsConfiguration;
+        this.metricRegistry = metricRegistry;
+    }
+
+    public RelpReceiver createReceiver() throws IOException {
+        return new RelpReceiver(
+                receiverConfiguration.port(),
+                new EventLoopFactory().create(),
+                Executors.newSingleThreadExecutor(),
+                new ReceivedRecords(
+                        metricRegistry.counter(name(RelpReceiver.class, "received")),
+                        metricRegistry.counter(name(RelpReceiver.class, "invalid")),
+                        metricRegistry.counter(name(RelpReceiver.class, "lost")),
+                        metricRegistry.counter(name(RelpReceiver.class, "duplicates")),
+                        metricRegistry.counter(name(RelpReceiver.class, "reordered")),
+                        metricRegistry.counter(name(RelpReceiver.class, "late")),
+                        metricRegistry
+                                .timer(
+                                        name(RelpReceiver.class, "endToEndLatency"),
+                                        () -> new TimerFactory(metricsConfiguration).createTimer()
+                                )
+                )
+        );
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.receiver;
+
+import com.teragrep.net_01.channel.socket.PlainFactory;
+import com.teragrep.net_01.eventloop.EventLoop;
+import com.teragrep.net_01.server.Server;
+import com.teragrep.net_01.server.ServerFactory;
+import com.teragrep.rlp_03.frame.FrameDelegationClockFactory;
+import com.teragrep.rlp_03.frame.delegate.DefaultFrameDelegate;
+import com.teragrep.rlp_11.Probe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RELP server that reads probe records back at the end of the pipeline.
+ */
+public class RelpReceiver implements Probe {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RelpReceiver.class);
+    private final int port;
+    private final EventLoop eventLoop;
+    private final ExecutorService executorService;
+    private final ReceivedRecords receivedRecords;
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    public RelpReceiver(
+            final int port,
+            final EventLoop eventLoop,
+            final ExecutorService executorService,
+            final ReceivedRecords receivedRecords
+    ) {
+        this.port = port;
+        this.eventLoop = eventLoop;
+        this.executorService = executorService;
+        this.receivedRecords = receivedRecords;
+    }
+
+    @Override
+    public void start() {
+        final ServerFactory serverFactory = new ServerFactory(
+                eventLoop,
+                executorService,
+                new PlainFactory(),
+                new FrameDelegationClockFactory(() -> new DefaultFrameDelegate((frameContext) -> {
+                    receivedRecords.accept(frameContext.relpFrame().payload().toString(), Instant.now());
+                }))
+        );
+        try (Server server = serverFactory.create(port)) {
+            LOGGER.debug("Receiving records on port <[{}]>", port);
+            eventLoop.run();
+        }
+        catch (IOException e) {
+            LOGGER.error("Failed to receive records on port <[{}]>: <{}>", port, e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            executorService.shutdown();
+            latch.countDown();
+        }
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.debug("Stop called");
+        eventLoop.stop();
+        try {
+            if (!latch.await(5L, TimeUnit.SECONDS)) {
+                LOGGER.error("Timed out while waiting for receiver to shutdown.");
+                throw new RuntimeException("Timed out while waiting for receiver to shutdown.");
+            }
+        }
+        catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for latch countdown");
+            throw new RuntimeException(e);
+        }
+        LOGGER.debug("RelpReceiver stopped.");
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.receiver;
+
+import com.codahale.metrics.Counter;
+
+/**
+ * Tracks the sequence numbers of one stream of probe records with a sliding bitset of the latest <code>window</code>
+ * sequence numbers. A sequence number that is still missing when it slides out of the window is counted as lost, and
+ * one that arrives after that is counted as late.
+ */
+public final class SequenceTracker {
+
+    private final long[] received;
+    private final int window;
+    private final Counter lost;
+    private final Counter duplicates;
+    private final Counter reordered;
+    private final Counter late;
+    private long first = -1L;
+    private long highest = -1L;
+
+    public SequenceTracker(
+            final int window,
+            final Counter lost,
+            final Counter duplicates,
+            final Counter reordered,
+            final Counter late
+    ) {
+        this(new long[(window + Long.SIZE - 1) / Long.SIZE], lost, duplicates, reordered, late);
+    }
+
+    private SequenceTracker(
+            final long[] received,
+            final Counter lost,
+            final Counter duplicates,
+            final Counter reordered,
+            final Counter late
+    ) {
+        this.received = received;
+        this.window = received.length * Long.SIZE;
+        this.lost = lost;
+        this.duplicates = duplicates;
+        this.reordered = reordered;
+        this.late = late;
+    }
+
+    public synchronized void accept(final long sequence) {
+        if (highest < 0) {
+            first = sequence;
+            highest = sequence;
+            set(sequence);
+        }
+        else if (sequence > highest) {
+            advance(sequence);
+            set(sequence);
+        }
+        else if (sequence <= highest - window || sequence < first) {
+            late.inc();
+        }
+        else if (isSet(sequence)) {
+            duplicates.inc();
+        }
+        else {
+            reordered.inc();
+            set(sequence);
+        }
+    }
+
+    private void advance(final long sequence) {
+        final long distance = sequence - highest;
+        if (distance >= window) {
+            // everything in the window slides out, and the sequence numbers skipped beyond it were never seen
+            long seen = 0;
+            for (int i = 0; i < received.length; i++) {
+                seen += Long.bitCount(received[i]);
+                received[i] = 0L;
+            }
+            lost.inc(Math.min(window, highest - first + 1) - seen + distance - window);
+        }
+        else {
+            for (long next = highest + 1; next <= sequence; next++) {
+                // the bit of next was used by next - window, which slides out now
+                if (next - window >= first && !isSet(next)) {
+                    lost.inc();
+                }
+                clear(next);
+            }
+        }
+        highest = sequence;
+    }
+
+    private boolean isSet(final long sequence) {
+        final int bit = (int) Math.floorMod(sequence, (long) window);
+        return (received[bit / Long.SIZE] & (1L << (bit % Long.SIZE))) != 0;
+    }
+
+    private void set(final long sequence) {
+        final int bit = (int) Math.floorMod(sequence, (long) window);
+        received[bit / Long.SIZE] |= 1L << (bit % Long.SIZE);
+    }
+
+    private void clear(final long sequence) {
+        final int bit = (int) Math.floorMod(sequence, (long) window);
+        received[bit / Long.SIZE] &= ~(1L << (bit % Long.SIZE));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.reconnect;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops connecting for the open time after the maximum number of failed connects in a row. After the open time a
+ * single connect is tried while the breaker is half-open: if it succeeds the breaker closes, otherwise it opens
+ * again. Other connections sharing the breaker check back every recheck interval while the attempt is in progress.
+ * While closed the delays come from the wrapped policy.
+ */
+public final class CircuitBreaker implements ReconnectPolicy {
+
+    public static final int CLOSED = 0;
+    public static final int HALF_OPEN = 1;
+    public static final int OPEN = 2;
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+    private final ReconnectPolicy reconnectPolicy;
+    private final int maxAttempts;
+    private final long openTime;
+    private final long recheckInterval;
+    private int state;
+    private long stateSince;
+    private int failures;
+
+    public CircuitBreaker(
+            final ReconnectPolicy reconnectPolicy,
+            final int maxAttempts,
+            final long openTime,
+            final long recheckInterval
+    ) {
+        this.reconnectPolicy = reconnectPolicy;
+        this.maxAttempts = maxAttempts;
+        this.openTime = openTime;
+        this.recheckInterval = recheckInterval;
+        this.state = CLOSED;
+        this.stateSince = System.nanoTime();
+        this.failures = 0;
+    }
+
+    @Override
+    public synchronized long blocked() {
+        final long blocked;
+        if (state == OPEN) {
+            final long remaining = openTime - timeInState();
+            if (remaining > 0) {
+                blocked = remaining;
+            }
+            else {
+                // the caller makes the only attempt until the breaker opens or closes again
+                transition(HALF_OPEN);
+                blocked = 0L;
+            }
+        }
+        else if (state == HALF_OPEN) {
+            // the attempt may close the breaker long before another open time would pass
+            blocked = Math.min(recheckInterval, openTime);
+        }
+        else {
+            blocked = 0L;
+        }
+        return blocked;
+    }
+
+    @Override
+    public synchronized long delay() {
+        final long delay;
+        if (state == CLOSED) {
+            delay = reconnectPolicy.delay();
+        }
+        else {
+            delay = 0L;
+        }
+        return delay;
+    }
+
+    @Override
+    public synchronized void failed() {
+        failures++;
+        reconnectPolicy.failed();
+        if (state == HALF_OPEN || state == CLOSED && failures >= maxAttempts) {
+            LOGGER.warn("Opening circuit after <[{}]> failed connects, retrying in <[{}]>ms", failures, openTime);
+            transition(OPEN);
+        }
+    }
+
+    @Override
+    public synchronized void succeeded() {
+        failures = 0;
+        reconnectPolicy.succeeded();
+        if (state != CLOSED) {
+            LOGGER.info("Closing circuit");
+            transition(CLOSED);
+        }
+    }
+
+    /**
+     * @return {@link #CLOSED}, {@link #HALF_OPEN} or {@link #OPEN}
+     */
+    public synchronized int state() {
+        return state;
+    }
+
+    /**
+     * @return milliseconds since the state last changed
+     */
+    public synchronized long timeInState() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stateSince);
+    }
+
+    private void transition(final int nextState) {
+        state = nextState;
+        stateSince = System.nanoTime();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.reconnect;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.metrics.MetricNames;
+
+public class ReconnectPolicyFactory {
+
+    private final TargetConfiguration targetConfiguration;
+    private final MetricRegistry metricRegistry;
+
+    public ReconnectPolicyFactory(final TargetConfiguration targetConfiguration, final MetricRegistry metricRegistry) {
+        this.targetConfiguration = targetConfiguration;
+        this.metricRegistry = metricRegistry;
+    }
+
+    /**
+     * Creates the policy shared by the connections of the target.
+     */
+    public ReconnectPolicy createReconnectPolicy(final MetricNames metricNames) {
+        final ReconnectPolicy reconnectPolicy;
+        if ("backoff".equals(targetConfiguration.reconnectPolicy())) {
+            reconnectPolicy = new DecorrelatedJitterBackoff(
+                    targetConfiguration.reconnectInterval(),
+                    targetConfiguration.reconnectMaxInterval()
+            );
+        }
+        else {
+            reconnectPolicy = new FixedReconnect(targetConfiguration);
+        }
+        final ReconnectPolicy policy;
+        if (targetConfiguration.reconnectMaxAttempts() > 0) {
+            final CircuitBreaker circuitBreaker = new CircuitBreaker(
+                    reconnectPolicy,
+                    targetConfiguration.reconnectMaxAttempts(),
+                    targetConfiguration.reconnectOpenTime(),
+                    targetConfiguration.reconnectInterval()
+            );
+            metricRegistry.remove(metricNames.name("circuitState"));
+            metricRegistry.register(metricNames.name("circuitState"), (Gauge<Integer>) circuitBreaker::state);
+            metricRegistry.remove(metricNames.name("circuitTimeInState"));
+            metricRegistry.register(metricNames.name("circuitTimeInState"), (Gauge<Long>) circuitBreaker::timeInState);
+            policy = circuitBreaker;
+        }
+        else {
+            policy = reconnectPolicy;
+        }
+        return policy;
+    }
+}
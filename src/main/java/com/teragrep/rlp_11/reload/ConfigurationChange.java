@@ -0,0 +1,166 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.reload;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Difference between the running configuration and a reloaded one, sorted by what it takes to apply each changed key.
+ * Keys read while probing apply as soon as the map is replaced, keys read when a probe is created need the probes to
+ * be created again, and keys read only at startup need the process to be restarted.
+ */
+public final class ConfigurationChange {
+
+    private static final Set<String> LIVE_KEYS = new HashSet<>(
+            Arrays.asList("probe.interval", "probe.adaptive.floor", "probe.adaptive.threshold")
+    );
+    private static final Set<String> LIVE_TARGET_SUFFIXES = new HashSet<>(
+            // the connect timeout is also copied into the rlp_01 connection when the probe is created
+            Arrays.asList("timeout.commit", "timeout.drain")
+    );
+    private static final List<String> PROBE_PREFIXES = Arrays.asList("probe.", "load.", "replay.", "metrics.");
+    private static final List<String> STARTUP_PREFIXES = Arrays
+            .asList("prometheus.", "store.", "receiver.", "payload.", "record.", "reload.");
+    private static final Set<String> STARTUP_KEYS = new HashSet<>(Arrays.asList("metrics.interval", "probe.threads"));
+    private final Map<String, String> previous;
+    private final Map<String, String> next;
+
+    public ConfigurationChange(final Map<String, String> previous, final Map<String, String> next) {
+        this.previous = previous;
+        this.next = next;
+    }
+
+    /**
+     * @return changed, added and removed keys in alphabetical order
+     */
+    public Set<String> changedKeys() {
+        final Set<String> keys = new TreeSet<>(previous.keySet());
+        keys.addAll(next.keySet());
+        keys.removeIf(key -> Objects.equals(previous.get(key), next.get(key)));
+        return Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * @return changed keys that are not applied until the process is restarted
+     */
+    public List<String> startupKeys() {
+        final List<String> startupKeys = new ArrayList<>();
+        for (final String key : changedKeys()) {
+            if (STARTUP_KEYS.contains(key) || startsWithAny(key, STARTUP_PREFIXES)) {
+                startupKeys.add(key);
+            }
+        }
+        return startupKeys;
+    }
+
+    /**
+     * @return true if the probes of all targets have to be created again
+     */
+    public boolean allTargets() {
+        boolean allTargets = false;
+        for (final String key : changedKeys()) {
+            if (startsWithAny(key, PROBE_PREFIXES) && !LIVE_KEYS.contains(key) && !STARTUP_KEYS.contains(key)) {
+                allTargets = true;
+            }
+        }
+        return allTargets;
+    }
+
+    /**
+     * @return true if the reservoirs of the timers changed, so that the timers have to be created again
+     */
+    public boolean reservoirs() {
+        boolean reservoirs = false;
+        for (final String key : changedKeys()) {
+            if (key.startsWith("metrics.") && !STARTUP_KEYS.contains(key)) {
+                reservoirs = true;
+            }
+        }
+        return reservoirs;
+    }
+
+    /**
+     * @param name name of the target, empty for the unnamed target
+     * @return true if the probe of the target has to be created again
+     */
+    public boolean target(final String name) {
+        final String prefix;
+        if (name.isEmpty()) {
+            prefix = "target.";
+        }
+        else {
+            prefix = "target." + name + ".";
+        }
+        boolean target = false;
+        for (final String key : changedKeys()) {
+            if (
+                key.startsWith(prefix) && !"target.names".equals(key)
+                        && !LIVE_TARGET_SUFFIXES.contains(key.substring(prefix.length()))
+            ) {
+                target = true;
+            }
+        }
+        return target;
+    }
+
+    private static boolean startsWithAny(final String key, final List<String> prefixes) {
+        boolean startsWith = false;
+        for (final String prefix : prefixes) {
+            if (key.startsWith(prefix)) {
+                startsWith = true;
+            }
+        }
+        return startsWith;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.reload;
+
+import com.teragrep.rlp_11.Configuration.ConfigurationException;
+import com.teragrep.rlp_11.Configuration.LoadConfiguration;
+import com.teragrep.rlp_11.Configuration.MetricsConfiguration;
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import com.teragrep.rlp_11.Configuration.ReplayConfiguration;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.Configuration.TargetsConfiguration;
+
+import java.util.Map;
+
+/**
+ * Reads every key of a configuration the probes use, so that an invalid configuration is rejected as a whole before
+ * it replaces the running one instead of failing a probe once the key is read.
+ */
+public final class ConfigurationValidation {
+
+    private final Map<String, String> config;
+
+    public ConfigurationValidation(final Map<String, String> config) {
+        this.config = config;
+    }
+
+    /**
+     * @throws ConfigurationException   if a value is invalid
+     * @throws NumberFormatException if a numeric value can not be parsed
+     */
+    public void validate() {
+        final ProbeConfiguration probeConfiguration = new ProbeConfiguration(config);
+        final String mode = probeConfiguration.mode();
+        probeConfiguration.interval();
+        probeConfiguration.transport();
+        probeConfiguration.threads();
+        if ("adaptive".equals(probeConfiguration.scheduling())) {
+            probeConfiguration.adaptiveFloor();
+            probeConfiguration.adaptiveThreshold();
+        }
+        if ("pipelined".equals(mode) || "eventloop".equals(mode)) {
+            probeConfiguration.window();
+        }
+        if ("eventloop".equals(mode) || "pool".equals(mode)) {
+            probeConfiguration.connections();
+        }
+        if ("pool".equals(mode)) {
+            probeConfiguration.fresh();
+        }
+        if ("load".equals(mode)) {
+            final LoadConfiguration loadConfiguration = new LoadConfiguration(config);
+            loadConfiguration.rate();
+            loadConfiguration.batchSize();
+            loadConfiguration.connections();
+        }
+        if ("replay".equals(mode)) {
+            final ReplayConfiguration replayConfiguration = new ReplayConfiguration(config);
+            replayConfiguration.path();
+            replayConfiguration.speedup();
+        }
+        final MetricsConfiguration metricsConfiguration = new MetricsConfiguration(config);
+        metricsConfiguration.window();
+        metricsConfiguration.interval();
+        metricsConfiguration.reservoir();
+        metricsConfiguration.windowDuration();
+        metricsConfiguration.histogram();
+        metricsConfiguration.histogramBuckets();
+        metricsConfiguration.sizeClasses();
+        for (final TargetConfiguration targetConfiguration : new TargetsConfiguration(config).targets()) {
+            targetConfiguration.hostname();
+            targetConfiguration.port();
+            targetConfiguration.reconnectInterval();
+            targetConfiguration.reconnectPolicy();
+            targetConfiguration.reconnectMaxInterval();
+            targetConfiguration.reconnectMaxAttempts();
+            targetConfiguration.reconnectOpenTime();
+            targetConfiguration.connectTimeout();
+            targetConfiguration.commitTimeout();
+            targetConfiguration.ackTimeout();
+            targetConfiguration.drainTimeout();
+            targetConfiguration.resolve();
+            targetConfiguration.resolveTtl();
+            targetConfiguration.tls().enabled();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.reload;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Configuration map whose contents can be replaced while the probe runs. The configuration classes read their map on
+ * every call, so replacing the contents applies the keys that are read while probing without creating anything anew.
+ * The contents are replaced at once, so a reader never sees a mix of two configurations within one call.
+ */
+public final class ReloadableMap extends AbstractMap<String, String> {
+
+    private final AtomicReference<Map<String, String>> current;
+
+    public ReloadableMap(final Map<String, String> map) {
+        this(new AtomicReference<>(Collections.unmodifiableMap(new HashMap<>(map))));
+    }
+
+    public ReloadableMap(final AtomicReference<Map<String, String>> current) {
+        this.current = current;
+    }
+
+    public void replace(final Map<String, String> map) {
+        current.set(Collections.unmodifiableMap(new HashMap<>(map)));
+    }
+
+    /**
+     * @return the current contents, not affected by later replacements
+     */
+    public Map<String, String> snapshot() {
+        return current.get();
+    }
+
+    @Override
+    public String get(final Object key) {
+        return current.get().get(key);
+    }
+
+    @Override
+    public String getOrDefault(final Object key, final String defaultValue) {
+        return current.get().getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return current.get().containsKey(key);
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return current.get().entrySet();
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.reload;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.teragrep.rlp_11.Configuration.ConfigurationException;
+import com.teragrep.rlp_11.Configuration.ReloadConfiguration;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.Configuration.TargetsConfiguration;
+import com.teragrep.rlp_11.ParallelStop;
+import com.teragrep.rlp_11.Probe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Runs a probe for every configured target and applies changes of the configuration file without restarting the
+ * process. A changed file is validated as a whole and rejected if any value is invalid, so that the probes keep running
+ * with the previous configuration. Otherwise only the probes affected by the change are created again, the metrics of
+ * the other targets are kept as they are.
+ */
+public final class ReloadingProbe implements Probe {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReloadingProbe.class);
+    private static final long SLEEP_STEP = 100L;
+    private static final long SHUTDOWN_TIMEOUT = 10000L;
+    // editors and ConfigMap updates write a file in several steps
+    private static final long DEBOUNCE = 200L;
+    private final ReloadableMap map;
+    private final ReloadConfiguration reloadConfiguration;
+    private final ConfigurationSource configurationSource;
+    private final Path path;
+    private final Function<TargetConfiguration, Probe> probeFactory;
+    private final MetricRegistry metricRegistry;
+    private final MetricFilter timerFilter;
+    private final ExecutorService executorService;
+    private final Map<String, Probe> probes;
+    private final AtomicBoolean stayRunning = new AtomicBoolean(true);
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    /**
+     * @param path        configuration file, the directory of which is watched for changes
+     * @param timerFilter timers that are created again when the reservoir configuration changes
+     */
+    public ReloadingProbe(
+            final ReloadableMap map,
+            final ConfigurationSource configurationSource,
+            final Path path,
+            final Function<TargetConfiguration, Probe> probeFactory,
+            final MetricRegistry metricRegistry,
+            final MetricFilter timerFilter,
+            final ExecutorService executorService
+    ) {
+        this.map = map;
+        this.reloadConfiguration = new ReloadConfiguration(map);
+        this.configurationSource = configurationSource;
+        this.path = path;
+        this.probeFactory = probeFactory;
+        this.metricRegistry = metricRegistry;
+        this.timerFilter = timerFilter;
+        this.executorService = executorService;
+        this.probes = new HashMap<>();
+    }
+
+    @Override
+    public void start() {
+        try {
+            for (final TargetConfiguration targetConfiguration : new TargetsConfiguration(map).targets()) {
+                startProbe(targetConfiguration);
+            }
+            if (reloadConfiguration.enabled()) {
+                watch();
+            }
+            else {
+                idle();
+            }
+        }
+        catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while probing: <{}>", e.getMessage());
+        }
+        finally {
+            // the probes drain in parallel, so stopping takes one drain timeout however many targets there are
+            final List<Runnable> stops = new ArrayList<>(probes.size());
+            for (final Map.Entry<String, Probe> entry : probes.entrySet()) {
+                stops.add(() -> stopProbe(entry.getKey(), entry.getValue()));
+            }
+            new ParallelStop(stops).await(drainTimeout() + SHUTDOWN_TIMEOUT);
+            probes.clear();
+            executorService.shutdown();
+            latch.countDown();
+        }
+    }
+
+    private void watch() throws InterruptedException {
+        final Path directory = path.toAbsolutePath().getParent();
+        try (final WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            // ConfigMaps replace a symlink in the directory instead of the file itself
+            directory
+                    .register(
+                            watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY
+                    );
+            LOGGER.info("Reloading the configuration when <[{}]> changes", path);
+            while (stayRunning.get()) {
+                final WatchKey watchKey = watchService.poll(SLEEP_STEP, TimeUnit.MILLISECONDS);
+                if (watchKey != null) {
+                    final boolean changed = concernsFile(watchKey.pollEvents());
+                    watchKey.reset();
+                    if (changed) {
+                        TimeUnit.MILLISECONDS.sleep(DEBOUNCE);
+                        reload();
+                    }
+                }
+            }
+        }
+        catch (IOException e) {
+            LOGGER.error("Failed to watch <[{}]>, configuration is not reloaded: <{}>", directory, e.getMessage());
+            idle();
+        }
+    }
+
+    private boolean concernsFile(final List<WatchEvent<?>> events) {
+        final String fileName = path.getFileName().toString();
+        boolean concernsFile = false;
+        for (final WatchEvent<?> event : events) {
+            final String name = String.valueOf(event.context());
+            // ..data is the symlink a ConfigMap update swaps
+            if (
+                event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(name) || name.startsWith("..")
+            ) {
+                concernsFile = true;
+            }
+        }
+        return concernsFile;
+    }
+
+    private void idle() throws InterruptedException {
+        while (stayRunning.get()) {
+            TimeUnit.MILLISECONDS.sleep(SLEEP_STEP);
+        }
+    }
+
+    private void reload() {
+        Map<String, String> next;
+        try {
+            next = configurationSource.read();
+            new ConfigurationValidation(next).validate();
+        }
+        catch (IOException | ConfigurationException | NumberFormatException e) {
+            LOGGER.error("Rejected reloaded configuration, keeping the running one: <{}>", e.getMessage());
+            next = map.snapshot();
+        }
+        final ConfigurationChange change = new ConfigurationChange(map.snapshot(), next);
+        if (!change.changedKeys().isEmpty()) {
+            for (final String key : change.startupKeys()) {
+                LOGGER.warn("Change of <{}> is applied only after a restart", key);
+            }
+            map.replace(next);
+            apply(change);
+            LOGGER.info("Reloaded configuration, changed keys <{}>", change.changedKeys());
+        }
+    }
+
+    private void apply(final ConfigurationChange change) {
+        final Map<String, TargetConfiguration> targets = new HashMap<>();
+        for (final TargetConfiguration targetConfiguration : new TargetsConfiguration(map).targets()) {
+            targets.put(targetConfiguration.name(), targetConfiguration);
+        }
+        for (final String name : new ArrayList<>(probes.keySet())) {
+            if (!targets.containsKey(name)) {
+                LOGGER.info("Target <[{}]> was removed, stopping its probe", name);
+                stopProbe(name, probes.remove(name));
+                removeMetrics(name);
+            }
+            else if (change.allTargets() || change.target(name)) {
+                LOGGER.info("Configuration of target <[{}]> changed, restarting its probe", name);
+                stopProbe(name, probes.remove(name));
+            }
+        }
+        if (change.reservoirs()) {
+            metricRegistry.removeMatching(timerFilter);
+        }
+        for (final TargetConfiguration targetConfiguration : targets.values()) {
+            if (!probes.containsKey(targetConfiguration.name())) {
+                try {
+                    startProbe(targetConfiguration);
+                }
+                catch (ConfigurationException e) {
+                    LOGGER
+                            .error(
+                                    "Failed to start probe of target <[{}]>: <{}>", targetConfiguration.name(),
+                                    e.getMessage()
+                            );
+                }
+            }
+        }
+    }
+
+    private void startProbe(final TargetConfiguration targetConfiguration) {
+        final Probe probe = probeFactory.apply(targetConfiguration);
+        probes.put(targetConfiguration.name(), probe);
+        executorService.submit(probe::start);
+    }
+
+    private void stopProbe(final String name, final Probe probe) {
+        try {
+            probe.stop();
+        }
+        catch (RuntimeException e) {
+            LOGGER.error("Failed to stop probe of target <[{}]>: <{}>", name, e.getMessage());
+        }
+    }
+
+    private void removeMetrics(final String name) {
+        // the unnamed target is only removed when targets are named, its metrics names have no target to match
+        if (!name.isEmpty()) {
+            metricRegistry
+                    .removeMatching(
+                            (metricName, metric) -> metricName.contains(".target." + name + ".")
+                                    || metricName.endsWith(".target." + name)
+                    );
+        }
+    }
+
+    private long drainTimeout() {
+        long drainTimeout = 0L;
+        for (final TargetConfiguration targetConfiguration : new TargetsConfiguration(map).targets()) {
+            drainTimeout = Math.max(drainTimeout, targetConfiguration.drainTimeout());
+        }
+        return drainTimeout;
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.debug("Stop called");
+        stayRunning.set(false);
+        try {
+            if (!latch.await(drainTimeout() + SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                LOGGER.error("Timed out while waiting for probe to shutdown.");
+                throw new RuntimeException("Timed out while waiting for probe to shutdown.");
+            }
+        }
+        catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for latch countdown");
+            throw new RuntimeException(e);
+        }
+        LOGGER.debug("ReloadingProbe stopped.");
+    }
+}
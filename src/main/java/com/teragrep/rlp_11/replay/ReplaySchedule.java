@@ -0,0 +1,125 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.replay;
+
+import com.teragrep.rlp_11.schedule.Schedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the records at the times of the trace, with the gaps between them divided by the speedup. Records that are
+ * due while the previous one is still being committed are sent as soon as it is acknowledged, and their latency is
+ * measured from the time of the trace.
+ */
+public final class ReplaySchedule implements Schedule {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplaySchedule.class);
+    private final Trace trace;
+    private final double speedup;
+    private boolean started;
+    private long pass;
+    private long base;
+    private long lastIntended;
+
+    public ReplaySchedule(final Trace trace, final double speedup) {
+        this.trace = trace;
+        this.speedup = speedup;
+        this.started = false;
+        this.pass = 0L;
+        this.base = 0L;
+        this.lastIntended = 0L;
+    }
+
+    @Override
+    public long next() throws InterruptedException {
+        try {
+            trace.advance();
+        }
+        catch (IOException e) {
+            LOGGER.error("Failed to read trace: <{}>", e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+        final long scaledOffset = (long) (trace.offset() / speedup);
+        long now = System.nanoTime();
+        if (!started) {
+            base = now - scaledOffset;
+            started = true;
+        }
+        else if (trace.passes() != pass) {
+            LOGGER.info("Trace replayed, starting over");
+            base = Math.max(now, lastIntended) - scaledOffset;
+        }
+        pass = trace.passes();
+        // records out of order in the trace are sent right after the previous one
+        final long intended = Math.max(base + scaledOffset, lastIntended);
+        while (intended - now > 0) {
+            TimeUnit.NANOSECONDS.sleep(intended - now);
+            now = System.nanoTime();
+        }
+        lastIntended = intended;
+        return intended;
+    }
+
+    @Override
+    public long expectedInterval() {
+        // every record of the trace is sent, so there are no missed records to correct for
+        return 0L;
+    }
+
+    @Override
+    public void acknowledged(final long latency) {
+        // the timing comes from the trace
+    }
+
+    @Override
+    public void failed() {
+        // retries delay the following records of the trace, which is included in their latency
+    }
+}
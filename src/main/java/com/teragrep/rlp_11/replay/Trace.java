@@ -0,0 +1,313 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.replay;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Cursor over a trace file with a line <code>&lt;seconds since start&gt; &lt;size&gt; [payload]</code> per record,
+ * for example <code>12.000350 1024</code>. The file is memory-mapped in windows, so traces larger than the heap are
+ * streamed, and the cursor starts over from the first line after the last one. Empty lines and lines starting with
+ * <code>#</code> are skipped.
+ */
+public final class Trace implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Trace.class);
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final int MAX_SIZE = 65536;
+    private final Path path;
+    private final FileChannel fileChannel;
+    private final int windowSize;
+    private MappedByteBuffer window;
+    private long windowStart = 0L;
+    private long position = 0L;
+    private long line = 0L;
+    private long entries = 0L;
+    private long passes = 0L;
+    private long offset = 0L;
+    private int size = 0;
+    private int payloadStart = 0;
+    private int payloadEnd = 0;
+    private int payloadLength = 0;
+
+    public Trace(final Path path) throws IOException {
+        this(path, FileChannel.open(path, StandardOpenOption.READ), WINDOW_SIZE);
+    }
+
+    public Trace(final Path path, final FileChannel fileChannel, final int windowSize) {
+        this.path = path;
+        this.fileChannel = fileChannel;
+        this.windowSize = windowSize;
+        this.window = null;
+    }
+
+    /**
+     * Moves to the next record of the trace, starting over from the first one after the last.
+     */
+    public void advance() throws IOException {
+        boolean found = false;
+        while (!found) {
+            if (position >= fileChannel.size()) {
+                if (entries == 0L) {
+                    throw new IOException("Trace <" + path + "> has no records");
+                }
+                position = 0L;
+                line = 0L;
+                entries = 0L;
+                passes++;
+            }
+            found = readLine();
+        }
+        entries++;
+    }
+
+    /**
+     * @return time of the record since the start of the trace, in nanoseconds
+     */
+    public long offset() {
+        return offset;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of times the cursor has started over from the first record
+     */
+    public long passes() {
+        return passes;
+    }
+
+    public boolean hasPayload() {
+        return payloadEnd > payloadStart;
+    }
+
+    /**
+     * @return length of the payload escaped for a json string
+     */
+    public int payloadLength() {
+        return payloadLength;
+    }
+
+    /**
+     * Writes the payload escaped for a json string.
+     */
+    public void writePayload(final ByteBuffer buffer) {
+        for (int i = payloadStart; i < payloadEnd; i++) {
+            final byte b = window.get(i);
+            if (b == '"' || b == '\\') {
+                buffer.put((byte) '\\');
+                buffer.put(b);
+            }
+            else if (b >= 0 && b < 0x20) {
+                buffer.put((byte) '\\');
+                buffer.put((byte) 'u');
+                buffer.put((byte) '0');
+                buffer.put((byte) '0');
+                buffer.put(hex(b >> 4));
+                buffer.put(hex(b & 0xF));
+            }
+            else {
+                buffer.put(b);
+            }
+        }
+    }
+
+    /**
+     * Reads the line at the position and moves the position past it.
+     *
+     * @return true if the line held a record
+     */
+    private boolean readLine() throws IOException {
+        int start = map(position);
+        int end = newline(start);
+        final long fileSize = fileChannel.size();
+        if (end < 0 && windowStart + window.limit() < fileSize) {
+            if (start == 0) {
+                throw new IOException("Trace <" + path + "> has a line longer than " + windowSize + " bytes");
+            }
+            // the line continues past the window
+            start = remap(position);
+            end = newline(start);
+        }
+        if (end < 0) {
+            end = window.limit();
+        }
+        position = windowStart + end + 1;
+        line++;
+        int contentEnd = end;
+        if (contentEnd > start && window.get(contentEnd - 1) == '\r') {
+            contentEnd--;
+        }
+        final boolean found;
+        if (contentEnd == start || window.get(start) == '#') {
+            found = false;
+        }
+        else {
+            found = parse(start, contentEnd);
+            if (!found) {
+                LOGGER.warn("Skipping invalid line <{}> of trace <{}>", line, path);
+            }
+        }
+        return found;
+    }
+
+    private boolean parse(final int start, final int end) {
+        int index = start;
+        long seconds = 0L;
+        long fraction = 0L;
+        long scale = 1_000_000_000L;
+        boolean valid = index < end && isDigit(window.get(index));
+        while (index < end && isDigit(window.get(index))) {
+            seconds = Math.min(seconds * 10 + (window.get(index) - '0'), Long.MAX_VALUE / 1_000_000_000L);
+            index++;
+        }
+        if (index < end && window.get(index) == '.') {
+            index++;
+            while (index < end && isDigit(window.get(index))) {
+                if (scale > 1L) {
+                    scale /= 10;
+                    fraction += (window.get(index) - '0') * scale;
+                }
+                index++;
+            }
+        }
+        valid = valid && seconds < Long.MAX_VALUE / 1_000_000_000L && index < end && isSeparator(window.get(index));
+        index++;
+        long recordSize = 0L;
+        valid = valid && index < end && isDigit(window.get(index));
+        while (valid && index < end && isDigit(window.get(index))) {
+            recordSize = Math.min(recordSize * 10 + (window.get(index) - '0'), MAX_SIZE + 1L);
+            index++;
+        }
+        valid = valid && recordSize <= MAX_SIZE && (index == end || isSeparator(window.get(index)));
+        if (valid) {
+            offset = seconds * 1_000_000_000L + fraction;
+            size = (int) recordSize;
+            payloadStart = Math.min(index + 1, end);
+            payloadEnd = end;
+            payloadLength = escapedLength(payloadStart, payloadEnd);
+        }
+        return valid;
+    }
+
+    private int escapedLength(final int start, final int end) {
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            final byte b = window.get(i);
+            if (b == '"' || b == '\\') {
+                length += 2;
+            }
+            else if (b >= 0 && b < 0x20) {
+                length += 6;
+            }
+            else {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Maps the window that holds the position.
+     *
+     * @return index of the position in the window
+     */
+    private int map(final long mapPosition) throws IOException {
+        final int index;
+        if (window == null || mapPosition < windowStart || mapPosition >= windowStart + window.limit()) {
+            index = remap(mapPosition);
+        }
+        else {
+            index = (int) (mapPosition - windowStart);
+        }
+        return index;
+    }
+
+    private int remap(final long mapPosition) throws IOException {
+        final long length = Math.min(windowSize, fileChannel.size() - mapPosition);
+        windowStart = mapPosition;
+        window = fileChannel.map(FileChannel.MapMode.READ_ONLY, mapPosition, length);
+        return 0;
+    }
+
+    private int newline(final int start) {
+        int index = -1;
+        for (int i = start; index < 0 && i < window.limit(); i++) {
+            if (window.get(i) == '\n') {
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    private static boolean isDigit(final byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isSeparator(final byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static byte hex(final int value) {
+        return (byte) (value < 10 ? '0' + value : 'a' + value - 10);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.replay;
+
+import com.teragrep.rlp_11.payload.Payload;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Payload of the current record of the trace, or padding to the size of the record when the trace has no payload for
+ * it.
+ */
+public final class TracePayload implements Payload {
+
+    private final Trace trace;
+    private final Payload padding;
+
+    public TracePayload(final Trace trace, final Payload padding) {
+        this.trace = trace;
+        this.padding = padding;
+    }
+
+    @Override
+    public int select(final int recordLength) {
+        final int selection;
+        if (trace.hasPayload()) {
+            selection = trace.payloadLength();
+        }
+        else {
+            selection = padding.select(recordLength);
+        }
+        return selection;
+    }
+
+    @Override
+    public int length(final int selection) {
+        final int length;
+        if (trace.hasPayload()) {
+            length = selection;
+        }
+        else {
+            length = padding.length(selection);
+        }
+        return length;
+    }
+
+    @Override
+    public void write(final ByteBuffer buffer, final int selection) {
+        if (trace.hasPayload()) {
+            trace.writePayload(buffer);
+        }
+        else {
+            padding.write(buffer, selection);
+        }
+    }
+
+    @Override
+    public boolean isStub() {
+        return false;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.resolve;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Addresses a hostname resolves to, resolved again once the TTL has passed. When resolving fails the previous
+ * addresses are kept until the next attempt, so that a DNS outage does not stop probing the backends.
+ */
+public final class AddressCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AddressCache.class);
+    private final String hostname;
+    private final long ttl;
+    private final Resolver resolver;
+    private List<String> addresses;
+    private long expires;
+    private boolean resolved;
+
+    public AddressCache(final String hostname, final long ttl) {
+        this(hostname, ttl, InetAddress::getAllByName);
+    }
+
+    public AddressCache(final String hostname, final long ttl, final Resolver resolver) {
+        this.hostname = hostname;
+        this.ttl = ttl;
+        this.resolver = resolver;
+        this.addresses = Collections.emptyList();
+        this.expires = 0L;
+        this.resolved = false;
+    }
+
+    /**
+     * @return addresses of the hostname in the order the resolver returned them
+     * @throws UnknownHostException if resolving failed and there are no previous addresses to keep
+     */
+    public synchronized List<String> addresses() throws UnknownHostException {
+        final long now = System.nanoTime();
+        if (!resolved || now - expires >= 0) {
+            resolved = true;
+            expires = now + TimeUnit.MILLISECONDS.toNanos(ttl);
+            try {
+                final InetAddress[] resolved = resolver.resolve(hostname);
+                final List<String> resolvedAddresses = new ArrayList<>(resolved.length);
+                for (final InetAddress inetAddress : resolved) {
+                    resolvedAddresses.add(inetAddress.getHostAddress());
+                }
+                if (!resolvedAddresses.equals(addresses)) {
+                    LOGGER.info("Resolved <[{}]> to <{}>", hostname, resolvedAddresses);
+                }
+                addresses = Collections.unmodifiableList(resolvedAddresses);
+            }
+            catch (UnknownHostException e) {
+                if (addresses.isEmpty()) {
+                    throw e;
+                }
+                LOGGER
+                        .warn(
+                                "Failed to resolve <[{}]>, keeping <{}> for <[{}]>ms: <{}>", hostname, addresses,
+                                ttl, e.getMessage()
+                        );
+            }
+        }
+        return addresses;
+    }
+
+    /**
+     * @return count of the latest addresses, without resolving again
+     */
+    public synchronized int size() {
+        return addresses.size();
+    }
+
+    /**
+     * @return milliseconds until the addresses are resolved again
+     */
+    public synchronized long remaining() {
+        return Math.max(0L, TimeUnit.NANOSECONDS.toMillis(expires - System.nanoTime()));
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.resolve;
+
+import com.codahale.metrics.MetricRegistry;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.ParallelStop;
+import com.teragrep.rlp_11.Probe;
+import com.teragrep.rlp_11.metrics.MetricNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Probes every address a hostname resolves to with a probe of its own. The hostname is resolved again whenever the
+ * AddressCache expires, probes are started for new addresses and stopped for addresses that are no longer returned,
+ * along with their metrics.
+ */
+public final class MultiAddressProbe implements Probe {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MultiAddressProbe.class);
+    private static final long SLEEP_STEP = 100L;
+    private static final long SHUTDOWN_TIMEOUT = 10000L;
+    private final TargetConfiguration targetConfiguration;
+    private final AddressCache addressCache;
+    private final Function<String, Probe> probeFactory;
+    private final ExecutorService executorService;
+    private final MetricRegistry metricRegistry;
+    private final Map<String, Probe> probes;
+    private final AtomicBoolean stayRunning = new AtomicBoolean(true);
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    public MultiAddressProbe(
+            final TargetConfiguration targetConfiguration,
+            final AddressCache addressCache,
+            final Function<String, Probe> probeFactory,
+            final ExecutorService executorService,
+            final MetricRegistry metricRegistry
+    ) {
+        this.targetConfiguration = targetConfiguration;
+        this.addressCache = addressCache;
+        this.probeFactory = probeFactory;
+        this.executorService = executorService;
+        this.metricRegistry = metricRegistry;
+        this.probes = new HashMap<>();
+    }
+
+    @Override
+    public void start() {
+        while (stayRunning.get()) {
+            refresh();
+            try {
+                // stop is noticed within a step instead of only after the TTL
+                TimeUnit.MILLISECONDS.sleep(Math.max(1L, Math.min(addressCache.remaining(), SLEEP_STEP)));
+            }
+            catch (InterruptedException e) {
+                LOGGER.warn("Sleep interrupted: <{}>", e.getMessage());
+            }
+        }
+        // the probes drain in parallel, so stopping takes one drain timeout however many addresses there are
+        final List<Runnable> stops = new ArrayList<>(probes.size());
+        for (final Map.Entry<String, Probe> entry : probes.entrySet()) {
+            stops.add(() -> stopProbe(entry.getKey(), entry.getValue()));
+        }
+        new ParallelStop(stops).await(targetConfiguration.drainTimeout() + SHUTDOWN_TIMEOUT);
+        probes.clear();
+        executorService.shutdown();
+        latch.countDown();
+    }
+
+    private void refresh() {
+        List<String> addresses;
+        try {
+            addresses = addressCache.addresses();
+        }
+        catch (UnknownHostException e) {
+            LOGGER.warn("Failed to resolve target: <{}>", e.getMessage());
+            addresses = new ArrayList<>(probes.keySet());
+        }
+        for (final String address : addresses) {
+            if (!probes.containsKey(address)) {
+                LOGGER.info("Starting to probe address <[{}]>", address);
+                final Probe probe = probeFactory.apply(address);
+                probes.put(address, probe);
+                executorService.submit(probe::start);
+            }
+        }
+        for (final String address : new ArrayList<>(probes.keySet())) {
+            if (!addresses.contains(address)) {
+                LOGGER.info("Address <[{}]> is no longer resolved, stopping its probe", address);
+                stopProbe(address, probes.remove(address));
+                removeMetrics(address);
+            }
+        }
+    }
+
+    private void stopProbe(final String address, final Probe probe) {
+        try {
+            probe.stop();
+        }
+        catch (RuntimeException e) {
+            LOGGER.error("Failed to stop probe of address <[{}]>: <{}>", address, e.getMessage());
+        }
+    }
+
+    private void removeMetrics(final String address) {
+        // the metrics of the address would otherwise keep being exported with their last values
+        final MetricNames metricNames = new MetricNames(MultiAddressProbe.class, targetConfiguration.name(), address);
+        metricRegistry.removeMatching((metricName, metric) -> metricNames.matches(metricName));
+    }
+
+    @Override
+    public void stop() {
+        LOGGER.debug("Stop called");
+        stayRunning.set(false);
+        try {
+            if (!latch.await(targetConfiguration.drainTimeout() + SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                LOGGER.error("Timed out while waiting for probe to shutdown.");
+                throw new RuntimeException("Timed out while waiting for probe to shutdown.");
+            }
+        }
+        catch (InterruptedException e) {
+            LOGGER.error("Interrupted while waiting for latch countdown");
+            throw new RuntimeException(e);
+        }
+        LOGGER.debug("MultiAddressProbe stopped.");
+    }
+}
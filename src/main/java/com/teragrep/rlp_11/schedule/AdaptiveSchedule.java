@@ -0,0 +1,125 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.schedule;
+
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Waits between records like {@link FixedDelaySchedule}, but halves the delay down to <code>probe.adaptive.floor</code>
+ * when a record fails or takes longer than <code>probe.adaptive.threshold</code>, and lengthens it by a quarter back
+ * towards <code>probe.interval</code> for each healthy record. Degraded periods are sampled densely without probing
+ * faster all the time.
+ */
+public class AdaptiveSchedule implements Schedule {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveSchedule.class);
+    private final ProbeConfiguration probeConfiguration;
+    private final AtomicLong delay;
+    private boolean started;
+
+    public AdaptiveSchedule(final ProbeConfiguration probeConfiguration) {
+        this(probeConfiguration, new AtomicLong(TimeUnit.MILLISECONDS.toNanos(probeConfiguration.interval())));
+    }
+
+    public AdaptiveSchedule(final ProbeConfiguration probeConfiguration, final AtomicLong delay) {
+        this.probeConfiguration = probeConfiguration;
+        this.delay = delay;
+        this.started = false;
+    }
+
+    @Override
+    public long next() throws InterruptedException {
+        if (started) {
+            LOGGER.debug("Sleeping <[{}]>ns before sending next record", delay.get());
+            TimeUnit.NANOSECONDS.sleep(delay.get());
+        }
+        started = true;
+        return System.nanoTime();
+    }
+
+    @Override
+    public long expectedInterval() {
+        return 0L;
+    }
+
+    @Override
+    public void acknowledged(final long latency) {
+        if (latency > TimeUnit.MILLISECONDS.toNanos(probeConfiguration.adaptiveThreshold())) {
+            speedUp();
+        }
+        else {
+            final long ceiling = TimeUnit.MILLISECONDS.toNanos(probeConfiguration.interval());
+            delay.set(Math.min(ceiling, delay.get() + delay.get() / 4));
+        }
+    }
+
+    @Override
+    public void failed() {
+        speedUp();
+    }
+
+    /**
+     * @return records per second the schedule currently aims at
+     */
+    public double rate() {
+        return TimeUnit.SECONDS.toNanos(1) / (double) delay.get();
+    }
+
+    private void speedUp() {
+        final long floor = TimeUnit.MILLISECONDS.toNanos(probeConfiguration.adaptiveFloor());
+        final long current = delay.get();
+        final long next = Math.max(floor, current / 2);
+        if (next != current) {
+            LOGGER.debug("Probing faster, delay <[{}]>ns", next);
+        }
+        delay.set(next);
+    }
+}
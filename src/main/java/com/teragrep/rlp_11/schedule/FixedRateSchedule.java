@@ -0,0 +1,104 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.schedule;
+
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+public class FixedRateSchedule implements Schedule {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FixedRateSchedule.class);
+    private final ProbeConfiguration probeConfiguration;
+    private long nextSlot;
+    private boolean started;
+
+    public FixedRateSchedule(final ProbeConfiguration probeConfiguration) {
+        this.probeConfiguration = probeConfiguration;
+        this.nextSlot = 0L;
+        this.started = false;
+    }
+
+    @Override
+    public long next() throws InterruptedException {
+        final long interval = expectedInterval();
+        long now = System.nanoTime();
+        if (!started) {
+            nextSlot = now;
+            started = true;
+        }
+        else if (now - nextSlot >= interval) {
+            // Slots missed during a stall are skipped, their latency is accounted by CorrectedLatency
+            final long missed = (now - nextSlot) / interval;
+            LOGGER.debug("Behind schedule, skipping <[{}]> slots", missed);
+            nextSlot += missed * interval;
+        }
+        while (nextSlot - now > 0) {
+            TimeUnit.NANOSECONDS.sleep(nextSlot - now);
+            now = System.nanoTime();
+        }
+        final long intended = nextSlot;
+        nextSlot += interval;
+        return intended;
+    }
+
+    @Override
+    public long expectedInterval() {
+        return TimeUnit.MILLISECONDS.toNanos(probeConfiguration.interval());
+    }
+
+    @Override
+    public void acknowledged(final long latency) {
+        // slots do not move, stalls are accounted by CorrectedLatency
+    }
+
+    @Override
+    public void failed() {
+        // retries are sent without waiting
+    }
+}
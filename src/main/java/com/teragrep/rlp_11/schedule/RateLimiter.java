@@ -0,0 +1,114 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.schedule;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands out send slots at a fixed number of permits per second. Slots are computed from the total number of permits
+ * issued since the start, so rounding errors and oversleeping do not accumulate and the long-term rate stays exact.
+ */
+public class RateLimiter {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private final long rate;
+    private final long maxLag;
+    private long start;
+    private long issued;
+    private boolean started;
+
+    public RateLimiter(final long rate) {
+        this(rate, NANOS_PER_SECOND);
+    }
+
+    public RateLimiter(final long rate, final long maxLag) {
+        this.rate = rate;
+        this.maxLag = maxLag;
+        this.start = 0L;
+        this.issued = 0L;
+        this.started = false;
+    }
+
+    /**
+     * Blocks until the permits are available.
+     *
+     * @return {@link System#nanoTime()} of the slot the permits were scheduled for
+     */
+    public long acquire(final int permits) throws InterruptedException {
+        final long slot = reserve(permits);
+        long now = System.nanoTime();
+        while (slot - now > 0) {
+            LockSupport.parkNanos(slot - now);
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Interrupted while waiting for permits");
+            }
+            now = System.nanoTime();
+        }
+        return slot;
+    }
+
+    private synchronized long reserve(final int permits) {
+        final long now = System.nanoTime();
+        if (!started) {
+            start = now;
+            started = true;
+        }
+        long slot = start + offset(issued);
+        if (now - slot > maxLag) {
+            // too far behind, restart the schedule instead of bursting to catch up
+            start = now;
+            issued = 0L;
+            slot = now;
+        }
+        issued += permits;
+        return slot;
+    }
+
+    private long offset(final long permits) {
+        return permits / rate * NANOS_PER_SECOND + permits % rate * NANOS_PER_SECOND / rate;
+    }
+}
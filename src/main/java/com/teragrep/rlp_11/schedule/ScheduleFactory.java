@@ -0,0 +1,80 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.schedule;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import com.teragrep.rlp_11.metrics.MetricNames;
+
+public class ScheduleFactory {
+
+    private final ProbeConfiguration probeConfiguration;
+    private final MetricRegistry metricRegistry;
+
+    public ScheduleFactory(final ProbeConfiguration probeConfiguration, final MetricRegistry metricRegistry) {
+        this.probeConfiguration = probeConfiguration;
+        this.metricRegistry = metricRegistry;
+    }
+
+    public Schedule createSchedule(final MetricNames metricNames) {
+        final Schedule schedule;
+        if ("fixedrate".equals(probeConfiguration.scheduling())) {
+            schedule = new FixedRateSchedule(probeConfiguration);
+        }
+        else if ("adaptive".equals(probeConfiguration.scheduling())) {
+            final AdaptiveSchedule adaptiveSchedule = new AdaptiveSchedule(probeConfiguration);
+            // replaces the gauge of a schedule created before a configuration reload
+            metricRegistry.remove(metricNames.name("effectiveRate"));
+            metricRegistry.register(metricNames.name("effectiveRate"), (Gauge<Double>) adaptiveSchedule::rate);
+            schedule = adaptiveSchedule;
+        }
+        else {
+            schedule = new FixedDelaySchedule(probeConfiguration);
+        }
+        return schedule;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.schedule;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Schedule shared by several probe loops so that they take turns. The lock is fair, so the loops get the records of
+ * the schedule in the order they asked for them, which is round-robin when every loop asks again after each record.
+ * As each loop gets only every n:th record, the interval a loop expects between its records is n times the interval of
+ * the schedule.
+ */
+public final class SharedSchedule implements Schedule {
+
+    private final Schedule schedule;
+    private final IntSupplier loops;
+    private final ReentrantLock lock;
+
+    /**
+     * @param loops number of loops currently sharing the schedule
+     */
+    public SharedSchedule(final Schedule schedule, final IntSupplier loops) {
+        this(schedule, loops, new ReentrantLock(true));
+    }
+
+    public SharedSchedule(final Schedule schedule, final IntSupplier loops, final ReentrantLock lock) {
+        this.schedule = schedule;
+        this.loops = loops;
+        this.lock = lock;
+    }
+
+    @Override
+    public long next() throws InterruptedException {
+        final long intended;
+        lock.lockInterruptibly();
+        try {
+            intended = schedule.next();
+        }
+        finally {
+            lock.unlock();
+        }
+        return intended;
+    }
+
+    @Override
+    public long expectedInterval() {
+        return schedule.expectedInterval() * Math.max(1, loops.getAsInt());
+    }
+
+    @Override
+    public void acknowledged(final long latency) {
+        schedule.acknowledged(latency);
+    }
+
+    @Override
+    public void failed() {
+        schedule.failed();
+    }
+}
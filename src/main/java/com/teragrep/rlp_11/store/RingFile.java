@@ -0,0 +1,186 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size memory-mapped file holding the latest samples in a ring, so disk use stays at
+ * {@code HEADER_SIZE + capacity * RECORD_SIZE} bytes.
+ * <p>
+ * The header holds the magic, the layout version, the capacity and the count of samples ever appended. A record holds
+ * its sequence number, timestamp in epoch milliseconds, latency in nanoseconds, outcome, target, phase and the address
+ * the sample was measured against, if the target is probed per address. The sequence number is written last, a
+ * RingFileReader only trusts records whose sequence number matches their slot.
+ */
+public final class RingFile implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RingFile.class);
+    static final int MAGIC = 0x524C5031;
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 128;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int CAPACITY_OFFSET = 8;
+    static final int APPENDED_OFFSET = 16;
+    static final int SEQUENCE_OFFSET = 0;
+    static final int TIMESTAMP_OFFSET = 8;
+    static final int LATENCY_OFFSET = 16;
+    static final int OUTCOME_OFFSET = 24;
+    static final int TARGET_OFFSET = 25;
+    static final int TARGET_SIZE = 19;
+    static final int PHASE_OFFSET = 45;
+    static final int PHASE_SIZE = 18;
+    static final int ADDRESS_OFFSET = 64;
+    // an IPv6 address in full
+    static final int ADDRESS_SIZE = 39;
+    public static final byte OUTCOME_OK = 0;
+    public static final byte OUTCOME_FAILED = 1;
+    public static final byte OUTCOME_TIMEOUT = 2;
+
+    private final FileChannel fileChannel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final AtomicLong appended;
+
+    public RingFile(final Path path, final int capacity) throws IOException {
+        this(
+                FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE),
+                capacity
+        );
+    }
+
+    public RingFile(final FileChannel fileChannel, final int capacity) throws IOException {
+        this.fileChannel = fileChannel;
+        this.capacity = capacity;
+        this.buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        if (
+            buffer.getInt(MAGIC_OFFSET) == MAGIC && buffer.getInt(VERSION_OFFSET) == VERSION
+                    && buffer.getInt(CAPACITY_OFFSET) == capacity
+        ) {
+            this.appended = new AtomicLong(buffer.getLong(APPENDED_OFFSET));
+        }
+        else {
+            LOGGER.info("Initializing ring file for <[{}]> samples", capacity);
+            this.appended = new AtomicLong();
+            for (int i = 0; i < capacity; i++) {
+                buffer.putLong(HEADER_SIZE + i * RECORD_SIZE + SEQUENCE_OFFSET, -1L);
+            }
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.putLong(APPENDED_OFFSET, 0L);
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+        }
+    }
+
+    public void append(
+            final long timestamp,
+            final String target,
+            final String phase,
+            final long latencyNanos,
+            final byte outcome
+    ) {
+        append(timestamp, target, "", phase, latencyNanos, outcome);
+    }
+
+    /**
+     * Overwrites the oldest sample once the ring is full. Safe to call from several threads.
+     *
+     * @param address address the sample was measured against, empty if the target is not probed per address
+     */
+    public void append(
+            final long timestamp,
+            final String target,
+            final String address,
+            final String phase,
+            final long latencyNanos,
+            final byte outcome
+    ) {
+        final long sequence = appended.getAndIncrement();
+        final int offset = HEADER_SIZE + (int) (sequence % capacity) * RECORD_SIZE;
+        // invalidate the slot while it is rewritten
+        buffer.putLong(offset + SEQUENCE_OFFSET, -1L);
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+        buffer.putLong(offset + LATENCY_OFFSET, latencyNanos);
+        buffer.put(offset + OUTCOME_OFFSET, outcome);
+        putString(offset + TARGET_OFFSET, TARGET_SIZE, target);
+        putString(offset + PHASE_OFFSET, PHASE_SIZE, phase);
+        putString(offset + ADDRESS_OFFSET, ADDRESS_SIZE, address);
+        buffer.putLong(offset + SEQUENCE_OFFSET, sequence);
+        synchronized (buffer) {
+            if (buffer.getLong(APPENDED_OFFSET) <= sequence) {
+                buffer.putLong(APPENDED_OFFSET, sequence + 1);
+            }
+        }
+    }
+
+    // length prefixed and truncated to the size of the field
+    private void putString(final int offset, final int size, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        final int length = Math.min(bytes.length, size);
+        buffer.put(offset, (byte) length);
+        for (int i = 0; i < length; i++) {
+            buffer.put(offset + 1 + i, bytes[i]);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        fileChannel.close();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads samples back from a RingFile, possibly while the probe is still appending to it.
+ */
+public final class RingFileReader implements Closeable {
+
+    private final FileChannel fileChannel;
+
+    public RingFileReader(final Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    public RingFileReader(final FileChannel fileChannel) {
+        this.fileChannel = fileChannel;
+    }
+
+    /**
+     * @return samples with timestamp between from and to, inclusive, oldest first
+     */
+    public List<StoredSample> samples(final long from, final long to) throws IOException {
+        if (fileChannel.size() < RingFile.HEADER_SIZE) {
+            throw new IOException("Not a ring file, size <" + fileChannel.size() + "> is smaller than the header");
+        }
+        final MappedByteBuffer header = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, RingFile.HEADER_SIZE);
+        if (header.getInt(RingFile.MAGIC_OFFSET) != RingFile.MAGIC) {
+            throw new IOException("Not a ring file, magic does not match");
+        }
+        if (header.getInt(RingFile.VERSION_OFFSET) != RingFile.VERSION) {
+            throw new IOException("Unsupported ring file version <" + header.getInt(RingFile.VERSION_OFFSET) + ">");
+        }
+        final int capacity = header.getInt(RingFile.CAPACITY_OFFSET);
+        final MappedByteBuffer buffer = fileChannel
+                .map(FileChannel.MapMode.READ_ONLY, 0, RingFile.HEADER_SIZE + (long) capacity * RingFile.RECORD_SIZE);
+        final long appended = buffer.getLong(RingFile.APPENDED_OFFSET);
+        final List<StoredSample> samples = new ArrayList<>();
+        for (long sequence = Math.max(0, appended - capacity); sequence < appended; sequence++) {
+            final int offset = RingFile.HEADER_SIZE + (int) (sequence % capacity) * RingFile.RECORD_SIZE;
+            final boolean written = buffer.getLong(offset + RingFile.SEQUENCE_OFFSET) == sequence;
+            final long timestamp = buffer.getLong(offset + RingFile.TIMESTAMP_OFFSET);
+            if (written && timestamp >= from && timestamp <= to) {
+                final StoredSample sample = new StoredSample(
+                        timestamp,
+                        string(buffer, offset + RingFile.TARGET_OFFSET, RingFile.TARGET_SIZE),
+                        string(buffer, offset + RingFile.ADDRESS_OFFSET, RingFile.ADDRESS_SIZE),
+                        string(buffer, offset + RingFile.PHASE_OFFSET, RingFile.PHASE_SIZE),
+                        buffer.getLong(offset + RingFile.LATENCY_OFFSET),
+                        buffer.get(offset + RingFile.OUTCOME_OFFSET)
+                );
+                // skip the record if it was rewritten while it was read
+                if (buffer.getLong(offset + RingFile.SEQUENCE_OFFSET) == sequence) {
+                    samples.add(sample);
+                }
+            }
+        }
+        return samples;
+    }
+
+    private String string(final MappedByteBuffer buffer, final int offset, final int size) {
+        final int length = Math.min(Byte.toUnsignedInt(buffer.get(offset)), size);
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + 1 + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.store;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.MetricRegistryListener;
+import com.codahale.metrics.Timer;
+import com.teragrep.rlp_11.metrics.ObservedTimer;
+
+/**
+ * Appends every update of the latency timers in a MetricRegistry to a RingFile. The target and phase of a sample are
+ * taken from the name of the timer, for example {@code com.teragrep.rlp_11.RelpProbe.sendLatency.target.first} is
+ * stored as phase {@code sendLatency} of target {@code first}. The address of a target probed per address is stored
+ * apart from the target, for example {@code sendLatency.target.first.address.192_0_2_1} as target {@code first} and
+ * address {@code 192_0_2_1}. Samples of the {@code timeoutLatency} timers are stored
+ * with outcome {@link RingFile#OUTCOME_TIMEOUT}, all others with {@link RingFile#OUTCOME_OK}.
+ */
+public final class StoreListener extends MetricRegistryListener.Base {
+
+    private final RingFile ringFile;
+    private final Clock clock;
+
+    public StoreListener(final RingFile ringFile) {
+        this(ringFile, Clock.defaultClock());
+    }
+
+    public StoreListener(final RingFile ringFile, final Clock clock) {
+        super();
+        this.ringFile = ringFile;
+        this.clock = clock;
+    }
+
+    @Override
+    public void onTimerAdded(final String name, final Timer timer) {
+        if (timer instanceof ObservedTimer) {
+            final int addressIndex = name.lastIndexOf(".address.");
+            final String address;
+            final String withoutAddress;
+            if (addressIndex < 0) {
+                address = "";
+                withoutAddress = name;
+            }
+            else {
+                address = name.substring(addressIndex + ".address.".length());
+                withoutAddress = name.substring(0, addressIndex);
+            }
+            final int targetIndex = withoutAddress.indexOf(".target.");
+            final String target;
+            final String metric;
+            if (targetIndex < 0) {
+                target = "";
+                metric = withoutAddress;
+            }
+            else {
+                target = withoutAddress.substring(targetIndex + ".target.".length());
+                metric = withoutAddress.substring(0, targetIndex);
+            }
+            final String phase = metric.substring(metric.lastIndexOf('.') + 1);
+            final byte outcome;
+            if ("timeoutLatency".equals(phase)) {
+                outcome = RingFile.OUTCOME_TIMEOUT;
+            }
+            else {
+                outcome = RingFile.OUTCOME_OK;
+            }
+            ((ObservedTimer) timer)
+                    .addObserver(nanos -> ringFile.append(clock.getTime(), target, address, phase, nanos, outcome));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.store;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prints latency percentiles of the stored samples in a time range, one line per target, address and phase.
+ */
+public final class StoreQuery {
+
+    private static final double[] PERCENTILES = {
+            50D, 90D, 99D, 99.9D
+    };
+    private final RingFileReader ringFileReader;
+
+    public StoreQuery(final RingFileReader ringFileReader) {
+        this.ringFileReader = ringFileReader;
+    }
+
+    /**
+     * @param target only samples of this target, of all its addresses, all targets if empty
+     * @param phase  only samples of this phase, all phases if empty
+     */
+    public void print(
+            final PrintStream out,
+            final long from,
+            final long to,
+            final String target,
+            final String phase
+    ) throws IOException {
+        final Map<String, List<StoredSample>> groups = new TreeMap<>();
+        for (final StoredSample sample : ringFileReader.samples(from, to)) {
+            if (
+                (target.isEmpty() || target.equals(sample.target()))
+                        && (phase.isEmpty() || phase.equals(sample.phase()))
+            ) {
+                final String key = (sample.target().isEmpty() ? "-" : sample.target()) + " "
+                        + (sample.address().isEmpty() ? "-" : sample.address()) + " " + sample.phase();
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(sample);
+            }
+        }
+        out.println("target address phase count failed p50_ms p90_ms p99_ms p999_ms max_ms");
+        for (final Map.Entry<String, List<StoredSample>> group : groups.entrySet()) {
+            final List<StoredSample> samples = group.getValue();
+            final long[] latencies = new long[samples.size()];
+            int failed = 0;
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = samples.get(i).latencyNanos();
+                if (samples.get(i).outcome() != RingFile.OUTCOME_OK) {
+                    failed++;
+                }
+            }
+            Arrays.sort(latencies);
+            final StringBuilder line = new StringBuilder(group.getKey())
+                    .append(' ')
+                    .append(latencies.length)
+                    .append(' ')
+                    .append(failed);
+            for (final double percentile : PERCENTILES) {
+                // nearest rank
+                final int rank = (int) Math.ceil(percentile / 100D * latencies.length);
+                line.append(' ').append(millis(latencies[Math.max(rank, 1) - 1]));
+            }
+            line.append(' ').append(millis(latencies[latencies.length - 1]));
+            out.println(line);
+        }
+    }
+
+    private String millis(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000D);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.transport;
+
+import com.codahale.metrics.Timer;
+import com.teragrep.rlp_01.RelpBatch;
+import com.teragrep.rlp_01.RelpFrameRX;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Commits RelpBatches over a PipelinedConnection so that the phases of connecting and committing can be timed
+ * separately. All requests of a batch are written before the acknowledgements are read, the time from the last write
+ * until the last acknowledgement is recorded as ack wait.
+ */
+public final class InstrumentedTransport implements Transport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InstrumentedTransport.class);
+    private final PipelinedConnection connection;
+    private final Timer ackWaitLatency;
+
+    public InstrumentedTransport(final PipelinedConnection connection, final Timer ackWaitLatency) {
+        this.connection = connection;
+        this.ackWaitLatency = ackWaitLatency;
+    }
+
+    @Override
+    public boolean connect(final String hostname, final int port) throws IOException {
+        connection.connect(hostname, port);
+        return true;
+    }
+
+    @Override
+    public void commit(final RelpBatch relpBatch) throws IOException {
+        final Map<Integer, Long> pending = new HashMap<>();
+        while (relpBatch.getWorkQueueLength() > 0) {
+            final Long id = relpBatch.popWorkQueue();
+            pending.put(connection.send(relpBatch.getRequest(id)), id);
+        }
+        final long written = System.nanoTime();
+        while (!pending.isEmpty()) {
+            final RelpFrameRX response = connection.read();
+            final Long id = pending.remove(response.getTransactionNumber());
+            if (id == null) {
+                LOGGER.debug("Discarding unexpected response <{}>", response);
+            }
+            else {
+                relpBatch.putResponse(id, response);
+            }
+        }
+        ackWaitLatency.update(System.nanoTime() - written, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public boolean disconnect() throws IOException {
+        connection.disconnect();
+        return true;
+    }
+
+    @Override
+    public void tearDown() {
+        connection.tearDown();
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.transport;
+
+import com.codahale.metrics.Timer;
+import com.teragrep.rlp_01.RelpCommand;
+import com.teragrep.rlp_01.RelpFrameRX;
+import com.teragrep.rlp_01.RelpFrameTX;
+import com.teragrep.rlp_01.RelpParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RELP client that does not wait for acknowledgements when sending, so that several transactions can be in flight on
+ * one connection. Acknowledgements are read separately with {@link #read()}.
+ */
+public class PipelinedConnection {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelinedConnection.class);
+    private static final byte[] OFFER = "\nrelp_version=0\nrelp_software=rlp_11\ncommands=syslog\n"
+            .getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_TXNR = 999_999_999;
+    private final ByteBuffer readBuffer;
+    private final RelpParser parser;
+    private final Timer dnsLatency;
+    private final Timer tcpConnectLatency;
+    private final Timer openLatency;
+    private final Timer writeLatency;
+    private final ChannelLayer channelLayer;
+    // read by cancel() on another thread
+    private volatile ByteChannel channel;
+    private int txnr;
+
+    public PipelinedConnection() {
+        this(new Timer(), new Timer(), new Timer(), new Timer());
+    }
+
+    public PipelinedConnection(
+            final Timer dnsLatency,
+            final Timer tcpConnectLatency,
+            final Timer openLatency,
+            final Timer writeLatency
+    ) {
+        this(dnsLatency, tcpConnectLatency, openLatency, writeLatency, new PlainChannelLayer());
+    }
+
+    public PipelinedConnection(
+            final Timer dnsLatency,
+            final Timer tcpConnectLatency,
+            final Timer openLatency,
+            final Timer writeLatency,
+            final ChannelLayer channelLayer
+    ) {
+        this(
+                ByteBuffer.allocateDirect(64 * 1024),
+                new RelpParser(),
+                dnsLatency,
+                tcpConnectLatency,
+                openLatency,
+                writeLatency,
+                channelLayer
+        );
+    }
+
+    public PipelinedConnection(
+            final ByteBuffer readBuffer,
+            final RelpParser parser,
+            final Timer dnsLatency,
+            final Timer tcpConnectLatency,
+            final Timer openLatency,
+            final Timer writeLatency,
+            final ChannelLayer channelLayer
+    ) {
+        this.readBuffer = readBuffer;
+        this.parser = parser;
+        this.dnsLatency = dnsLatency;
+        this.tcpConnectLatency = tcpConnectLatency;
+        this.openLatency = openLatency;
+        this.writeLatency = writeLatency;
+        this.channelLayer = channelLayer;
+        this.txnr = 0;
+    }
+
+    /**
+     * Resolves the hostname, connects, opens the channel layer and the RELP session, timing each phase separately.
+     */
+    public void connect(final String hostname, final int port) throws IOException {
+        tearDown();
+        try {
+            final long resolveStart = System.nanoTime();
+            final InetAddress address = InetAddress.getByName(hostname);
+            final long connectStart = System.nanoTime();
+            dnsLatency.update(connectStart - resolveStart, TimeUnit.NANOSECONDS);
+            final SocketChannel socketChannel = SocketChannel.open();
+            channel = socketChannel;
+            socketChannel.connect(new InetSocketAddress(address, port));
+            tcpConnectLatency.update(System.nanoTime() - connectStart, TimeUnit.NANOSECONDS);
+            socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel = channelLayer.open(socketChannel, hostname, port);
+            final long openStart = System.nanoTime();
+            readBuffer.clear();
+            readBuffer.flip();
+            parser.reset();
+            txnr = 0;
+            final int openTxnr = write(new RelpFrameTX(RelpCommand.OPEN, OFFER));
+            final RelpFrameRX response = read();
+            if (response.getTransactionNumber() != openTxnr || response.getResponseCode() != 200) {
+                throw new IOException("Server refused to open session: <" + response + ">");
+            }
+            openLatency.update(System.nanoTime() - openStart, TimeUnit.NANOSECONDS);
+        }
+        catch (IOException e) {
+            tearDown();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a syslog frame without waiting for its acknowledgement.
+     *
+     * @return transaction number of the written frame
+     */
+    public int send(final byte[] record) throws IOException {
+        return send(new RelpFrameTX(record));
+    }
+
+    /**
+     * Writes a frame without waiting for its acknowledgement. The transaction number of the frame is set.
+     *
+     * @return transaction number of the written frame
+     */
+    public int send(final RelpFrameTX frame) throws IOException {
+        final long start = System.nanoTime();
+        final int frameTxnr = write(frame);
+        writeLatency.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return frameTxnr;
+    }
+
+    /**
+     * Blocks until the next response frame has been read.
+     */
+    public RelpFrameRX read() throws IOException {
+        RelpFrameRX frame = null;
+        while (frame == null) {
+            if (!readBuffer.hasRemaining()) {
+                readBuffer.clear();
+                final int read = channel.read(readBuffer);
+                readBuffer.flip();
+                if (read < 0) {
+                    throw new IOException("Connection closed by server");
+                }
+            }
+            while (frame == null && readBuffer.hasRemaining()) {
+                parser.parse(readBuffer.get());
+                if (parser.isComplete()) {
+                    frame = new RelpFrameRX(
+                            parser.getTxnId(),
+                            parser.getCommandString(),
+                            parser.getLength(),
+                            parser.getData()
+                    );
+                    parser.reset();
+                }
+            }
+        }
+        if (RelpCommand.SERVER_CLOSE.equals(frame.getCommand())) {
+            throw new IOException("Server closed the session");
+        }
+        return frame;
+    }
+
+    public void disconnect() throws IOException {
+        final int closeTxnr = write(new RelpFrameTX(RelpCommand.CLOSE));
+        RelpFrameRX response = read();
+        while (response.getTransactionNumber() != closeTxnr) {
+            LOGGER.debug("Discarding response <{}> while closing", response);
+            response = read();
+        }
+        tearDown();
+    }
+
+    /**
+     * Closes the socket from another thread, so that a blocked or a following read fails. The connection still has to
+     * be torn down by the thread using it.
+     */
+    public void cancel() {
+        final ByteChannel cancelled = channel;
+        if (cancelled != null) {
+            try {
+                cancelled.close();
+            }
+            catch (IOException e) {
+                LOGGER.warn("Failed to close socket: <{}>", e.getMessage());
+            }
+        }
+    }
+
+    public void tearDown() {
+        if (channel != null) {
+            try {
+                channel.close();
+            }
+            catch (IOException e) {
+                LOGGER.warn("Failed to close socket: <{}>", e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private int write(final RelpFrameTX frame) throws IOException {
+        if (txnr >= MAX_TXNR) {
+            txnr = 1;
+        }
+        else {
+            txnr++;
+        }
+        frame.setTransactionNumber(txnr);
+        final ByteBuffer buffer = ByteBuffer.allocate(frame.length());
+        frame.write(buffer);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return txnr;
+    }
+}
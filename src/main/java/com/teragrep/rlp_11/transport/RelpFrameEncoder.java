@@ -0,0 +1,107 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.transport;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes RELP frames {@code TXNR SP COMMAND SP DATALEN [SP DATA] LF} into a buffer without allocating.
+ */
+public final class RelpFrameEncoder {
+
+    public int length(final int txnr, final byte[] command, final int dataLength) {
+        final int data;
+        if (dataLength == 0) {
+            data = 0;
+        }
+        else {
+            data = 1 + dataLength;
+        }
+        return digits(txnr) + 1 + command.length + 1 + digits(dataLength) + data + 1;
+    }
+
+    /**
+     * Writes the frame at the position of the target and consumes the data.
+     *
+     * @throws BufferOverflowException if the frame does not fit in the target
+     */
+    public void encode(final ByteBuffer target, final int txnr, final byte[] command, final ByteBuffer data) {
+        final int dataLength = data.remaining();
+        if (target.remaining() < length(txnr, command, dataLength)) {
+            throw new BufferOverflowException();
+        }
+        putNumber(target, txnr);
+        target.put((byte) ' ');
+        target.put(command);
+        target.put((byte) ' ');
+        putNumber(target, dataLength);
+        if (dataLength > 0) {
+            target.put((byte) ' ');
+            target.put(data);
+        }
+        target.put((byte) '\n');
+    }
+
+    private int digits(final int number) {
+        int digits = 1;
+        for (int remaining = number; remaining >= 10; remaining /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private void putNumber(final ByteBuffer target, final int number) {
+        final int digits = digits(number);
+        final int start = target.position();
+        int remaining = number;
+        for (int i = digits - 1; i >= 0; i--) {
+            target.put(start + i, (byte) ('0' + remaining % 10));
+            remaining /= 10;
+        }
+        target.position(start + digits);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Incremental decoder for the frames a RELP server sends. Only the transaction number, whether the command was
+ * {@code rsp} or {@code serverclose} and the response code at the start of the data are kept, so decoding does not
+ * allocate.
+ */
+public final class RelpResponseDecoder {
+
+    private static final int TXNR = 0;
+    private static final int COMMAND = 1;
+    private static final int LENGTH = 2;
+    private static final int DATA = 3;
+    private static final int TRAILER = 4;
+    private static final int COMPLETE = 5;
+    private static final int MAX_TXNR = 999_999_999;
+    private static final int MAX_COMMAND = 32;
+    private static final byte[] RSP = "rsp".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SERVER_CLOSE = "serverclose".getBytes(StandardCharsets.US_ASCII);
+    private final byte[] command;
+    private int state;
+    private int txnr;
+    private int commandLength;
+    private int length;
+    private int dataRead;
+    private int code;
+    private boolean digits;
+
+    public RelpResponseDecoder() {
+        this.command = new byte[MAX_COMMAND];
+        reset();
+    }
+
+    /**
+     * Consumes bytes until a frame is complete or the buffer is exhausted.
+     *
+     * @return true if a frame was completed, its fields stay available until the next call
+     */
+    public boolean decode(final ByteBuffer buffer) throws IOException {
+        if (state == COMPLETE) {
+            reset();
+        }
+        while (state != COMPLETE && buffer.hasRemaining()) {
+            final byte b = buffer.get();
+            if (state == TXNR) {
+                if (b == ' ' && digits) {
+                    state = COMMAND;
+                    digits = false;
+                }
+                else {
+                    txnr = digit(txnr, b, MAX_TXNR);
+                }
+            }
+            else if (state == COMMAND) {
+                if (b == ' ' && commandLength > 0) {
+                    state = LENGTH;
+                }
+                else if (b >= 'a' && b <= 'z' && commandLength < MAX_COMMAND) {
+                    command[commandLength++] = b;
+                }
+                else {
+                    throw new IOException("Invalid RELP command");
+                }
+            }
+            else if (state == LENGTH) {
+                if (b == ' ' && digits && length > 0) {
+                    state = DATA;
+                }
+                else if (b == '\n' && digits && length == 0) {
+                    state = COMPLETE;
+                }
+                else {
+                    length = digit(length, b, Integer.MAX_VALUE);
+                }
+            }
+            else if (state == DATA) {
+                if (dataRead < 3) {
+                    if (b < '0' || b > '9') {
+                        code = -1;
+                    }
+                    else if (code >= 0) {
+                        code = code * 10 + (b - '0');
+                    }
+                }
+                dataRead++;
+                if (dataRead == length) {
+                    state = TRAILER;
+                }
+            }
+            else if (b == '\n') {
+                state = COMPLETE;
+            }
+            else {
+                throw new IOException("Invalid RELP trailer");
+            }
+        }
+        return state == COMPLETE;
+    }
+
+    public int txnr() {
+        return txnr;
+    }
+
+    public boolean isResponse() {
+        return isCommand(RSP);
+    }
+
+    public boolean isServerClose() {
+        return isCommand(SERVER_CLOSE);
+    }
+
+    /**
+     * @return the three digit code at the start of the data, -1 if there was none
+     */
+    public int code() {
+        final int responseCode;
+        if (dataRead < 3) {
+            responseCode = -1;
+        }
+        else {
+            responseCode = code;
+        }
+        return responseCode;
+    }
+
+    private boolean isCommand(final byte[] expected) {
+        boolean matches = commandLength == expected.length;
+        for (int i = 0; matches && i < commandLength; i++) {
+            matches = command[i] == expected[i];
+        }
+        return matches;
+    }
+
+    private int digit(final int value, final byte b, final int max) throws IOException {
+        if (b < '0' || b > '9') {
+            throw new IOException("Invalid RELP number");
+        }
+        final long next = value * 10L + (b - '0');
+        if (next > max) {
+            throw new IOException("RELP number out of range");
+        }
+        digits = true;
+        return (int) next;
+    }
+
+    /**
+     * Discards a partially decoded frame, for example after reconnecting.
+     */
+    public void reset() {
+        state = TXNR;
+        txnr = 0;
+        commandLength = 0;
+        length = 0;
+        dataRead = 0;
+        code = 0;
+        digits = false;
+    }
+}
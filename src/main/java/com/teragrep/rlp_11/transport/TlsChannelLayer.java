@@ -0,0 +1,114 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.transport;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the TLS handshake over a connected socket and times it. A handshake that resumed a session cached in the
+ * context is counted separately from a full handshake.
+ */
+public final class TlsChannelLayer implements ChannelLayer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TlsChannelLayer.class);
+    private final SSLContext sslContext;
+    private final TlsParameters tlsParameters;
+    private final Timer handshakeLatency;
+    private final Counter fullHandshakes;
+    private final Counter resumedHandshakes;
+
+    public TlsChannelLayer(
+            final SSLContext sslContext,
+            final TlsParameters tlsParameters,
+            final Timer handshakeLatency,
+            final Counter fullHandshakes,
+            final Counter resumedHandshakes
+    ) {
+        this.sslContext = sslContext;
+        this.tlsParameters = tlsParameters;
+        this.handshakeLatency = handshakeLatency;
+        this.fullHandshakes = fullHandshakes;
+        this.resumedHandshakes = resumedHandshakes;
+    }
+
+    @Override
+    public ByteChannel open(
+            final SocketChannel socketChannel,
+            final String hostname,
+            final int port
+    ) throws IOException {
+        final SSLSocket sslSocket = (SSLSocket) sslContext
+                .getSocketFactory()
+                .createSocket(socketChannel.socket(), hostname, port, true);
+        sslSocket.setUseClientMode(true);
+        sslSocket.setSSLParameters(tlsParameters.apply(sslSocket.getSSLParameters()));
+        final long handshakeStartMillis = System.currentTimeMillis();
+        final long handshakeStart = System.nanoTime();
+        sslSocket.startHandshake();
+        handshakeLatency.update(System.nanoTime() - handshakeStart, TimeUnit.NANOSECONDS);
+        final SSLSession session = sslSocket.getSession();
+        // a resumed session keeps the creation time of the handshake that established it
+        if (session.getCreationTime() < handshakeStartMillis) {
+            resumedHandshakes.inc();
+        }
+        else {
+            fullHandshakes.inc();
+        }
+        LOGGER.debug("Negotiated <{}> with <{}>", session.getProtocol(), session.getCipherSuite());
+        return new SocketStreamChannel(sslSocket);
+    }
+}
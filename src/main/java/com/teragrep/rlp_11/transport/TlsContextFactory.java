@@ -0,0 +1,123 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.transport;
+
+import com.teragrep.rlp_11.Configuration.ConfigurationException;
+import com.teragrep.rlp_11.Configuration.TlsConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+public class TlsContextFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TlsContextFactory.class);
+    private final TlsConfiguration tlsConfiguration;
+
+    public TlsContextFactory(final TlsConfiguration tlsConfiguration) {
+        this.tlsConfiguration = tlsConfiguration;
+    }
+
+    /**
+     * Sessions are cached in the context, so connections created from the same context can resume them.
+     */
+    public SSLContext createContext() {
+        final SSLContext context;
+        try {
+            context = SSLContext.getInstance("TLS");
+            context.init(keyManagers(), trustManagers(), null);
+        }
+        catch (GeneralSecurityException | IOException e) {
+            LOGGER.error("Configuration failure: Unable to initialize TLS: <{}>", e.getMessage());
+            throw new ConfigurationException("Invalid TLS configuration received");
+        }
+        return context;
+    }
+
+    private KeyManager[] keyManagers() throws GeneralSecurityException, IOException {
+        final KeyManager[] keyManagers;
+        if (tlsConfiguration.keystore().isEmpty()) {
+            keyManagers = null;
+        }
+        else {
+            final char[] password = tlsConfiguration.keystorePassword().toCharArray();
+            final KeyManagerFactory keyManagerFactory = KeyManagerFactory
+                    .getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagerFactory.init(KeyStore.getInstance(new File(tlsConfiguration.keystore()), password), password);
+            keyManagers = keyManagerFactory.getKeyManagers();
+        }
+        return keyManagers;
+    }
+
+    private TrustManager[] trustManagers() throws GeneralSecurityException, IOException {
+        final TrustManager[] trustManagers;
+        if (tlsConfiguration.truststore().isEmpty()) {
+            trustManagers = null;
+        }
+        else {
+            final TrustManagerFactory trustManagerFactory = TrustManagerFactory
+                    .getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagerFactory
+                    .init(
+                            KeyStore
+                                    .getInstance(
+                                            new File(tlsConfiguration.truststore()),
+                                            tlsConfiguration.truststorePassword().toCharArray()
+                                    )
+                    );
+            trustManagers = trustManagerFactory.getTrustManagers();
+        }
+        return trustManagers;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.transport;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.teragrep.rlp_01.RelpConnection;
+import com.teragrep.rlp_11.Configuration.MetricsConfiguration;
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.Configuration.TlsConfiguration;
+import com.teragrep.rlp_11.metrics.HitRatio;
+import com.teragrep.rlp_11.metrics.MetricNames;
+import com.teragrep.rlp_11.metrics.TimerFactory;
+
+public class TransportFactory {
+
+    private final TargetConfiguration targetConfiguration;
+    private final ProbeConfiguration probeConfiguration;
+    private final MetricsConfiguration metricsConfiguration;
+    private final MetricRegistry metricRegistry;
+
+    public TransportFactory(
+            final TargetConfiguration targetConfiguration,
+            final ProbeConfiguration probeConfiguration,
+            final MetricsConfiguration metricsConfiguration,
+            final MetricRegistry metricRegistry
+    ) {
+        this.targetConfiguration = targetConfiguration;
+        this.probeConfiguration = probeConfiguration;
+        this.metricsConfiguration = metricsConfiguration;
+        this.metricRegistry = metricRegistry;
+    }
+
+    public Transport createTransport(final MetricNames metricNames) {
+        final Transport transport;
+        if ("instrumented".equals(probeConfiguration.transport())) {
+            transport = new InstrumentedTransport(
+                    createPipelinedConnection(metricNames),
+                    timer(metricNames, "ackWaitLatency")
+            );
+        }
+        else if (targetConfiguration.tls().enabled()) {
+            final TlsConfiguration tlsConfiguration = targetConfiguration.tls();
+            transport = new RelpConnectionTransport(
+                    withTimeouts(
+                            new RelpConnection(
+                                    new TlsEngineSupplier(
+                                            new TlsContextFactory(tlsConfiguration).createContext(),
+                                            new TlsParameters(tlsConfiguration),
+                                            targetConfiguration.hostname(),
+                                            targetConfiguration.port()
+                                    )
+                            )
+                    )
+            );
+        }
+        else {
+            transport = new RelpConnectionTransport(withTimeouts(new RelpConnection()));
+        }
+        return transport;
+    }
+
+    /**
+     * Applies the connect and ack timeouts of the target, the rlp_01 defaults are kept for the ones that are disabled.
+     */
+    private RelpConnection withTimeouts(final RelpConnection relpConnection) {
+        final int connectTimeout = targetConfiguration.connectTimeout();
+        if (connectTimeout > 0) {
+            relpConnection.setConnectionTimeout(connectTimeout);
+        }
+        final int ackTimeout = targetConfiguration.ackTimeout();
+        if (ackTimeout > 0) {
+            relpConnection.setReadTimeout(ackTimeout);
+        }
+        return relpConnection;
+    }
+
+    public PipelinedConnection createPipelinedConnection(final MetricNames metricNames) {
+        return new PipelinedConnection(
+                timer(metricNames, "dnsLatency"),
+                timer(metricNames, "tcpConnectLatency"),
+                timer(metricNames, "openLatency"),
+                timer(metricNames, "writeLatency"),
+                createChannelLayer(metricNames)
+        );
+    }
+
+    private ChannelLayer createChannelLayer(final MetricNames metricNames) {
+        final ChannelLayer channelLayer;
+        if (targetConfiguration.tls().enabled()) {
+            final TlsConfiguration tlsConfiguration = targetConfiguration.tls();
+            final Counter fullHandshakes = metricRegistry.counter(metricNames.name("tlsFullHandshakes"));
+            final Counter resumedHandshakes = metricRegistry.counter(metricNames.name("tlsResumedHandshakes"));
+            metricRegistry
+                    .gauge(
+                            metricNames.name("tlsResumptionRatio"),
+                            () -> new HitRatio(resumedHandshakes, fullHandshakes)
+                    );
+            channelLayer = new TlsChannelLayer(
+                    new TlsContextFactory(tlsConfiguration).createContext(),
+                    new TlsParameters(tlsConfiguration),
+                    timer(metricNames, "tlsHandshakeLatency"),
+                    fullHandshakes,
+                    resumedHandshakes
+            );
+        }
+        else {
+            channelLayer = new PlainChannelLayer();
+        }
+        return channelLayer;
+    }
+
+    private Timer timer(final MetricNames metricNames, final String name) {
+        return metricRegistry
+                .timer(metricNames.name(name), () -> new TimerFactory(metricsConfiguration).createTimer());
+    }
+}
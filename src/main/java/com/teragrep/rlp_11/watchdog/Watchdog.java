@@ -0,0 +1,101 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.watchdog;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enforces deadlines on blocking calls from a thread of its own. The thread is started by the first armed deadline and
+ * exits after a minute without deadlines, so a Watchdog does not need to be closed.
+ */
+public final class Watchdog {
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    public Watchdog() {
+        this(executor());
+    }
+
+    public Watchdog(final ScheduledThreadPoolExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Runs onExpiry on the watchdog thread unless the returned deadline is disarmed within the timeout.
+     *
+     * @param timeout milliseconds, 0 arms a deadline that never expires
+     */
+    public Deadline arm(final long timeout, final Runnable onExpiry) {
+        final Deadline deadline;
+        if (timeout <= 0) {
+            deadline = new Deadline(new AtomicInteger(Deadline.ARMED), CompletableFuture.completedFuture(null));
+        }
+        else {
+            final AtomicInteger state = new AtomicInteger(Deadline.ARMED);
+            final ScheduledFuture<?> future = executor
+                    .schedule(new Expiry(state, onExpiry), timeout, TimeUnit.MILLISECONDS);
+            deadline = new Deadline(state, future);
+        }
+        return deadline;
+    }
+
+    private static ScheduledThreadPoolExecutor executor() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(1L, TimeUnit.MINUTES);
+        executor.allowCoreThreadTimeOut(true);
+        // disarmed deadlines are dropped right away instead of being kept until they would have expired
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.Configuration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class LoadConfigurationTest {
+
+    // load.rate
+    @Test
+    public void testGoodRate() {
+        Map<String, String> map = baseConfig();
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertEquals(100000L, loadConfiguration.rate());
+    }
+
+    @Test
+    public void testNullRate() {
+        Map<String, String> map = baseConfig();
+        map.remove("load.rate");
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, loadConfiguration::rate);
+    }
+
+    @Test
+    public void testTooSmallRate() {
+        Map<String, String> map = baseConfig();
+        map.put("load.rate", "0");
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, loadConfiguration::rate);
+    }
+
+    @Test
+    public void testTooHighRate() {
+        Map<String, String> map = baseConfig();
+        map.put("load.rate", "1000000001");
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, loadConfiguration::rate);
+    }
+
+    @Test
+    public void testNonNumericRate() {
+        Map<String, String> map = baseConfig();
+        map.put("load.rate", "not a number");
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertThrowsExactly(NumberFormatException.class, loadConfiguration::rate);
+    }
+
+    // load.batchsize
+    @Test
+    public void testGoodBatchSize() {
+        Map<String, String> map = baseConfig();
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertEquals(100, loadConfiguration.batchSize());
+    }
+
+    @Test
+    public void testNullBatchSize() {
+        Map<String, String> map = baseConfig();
+        map.remove("load.batchsize");
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, loadConfiguration::batchSize);
+    }
+
+    @Test
+    public void testTooSmallBatchSize() {
+        Map<String, String> map = baseConfig();
+        map.put("load.batchsize", "0");
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, loadConfiguration::batchSize);
+    }
+
+    @Test
+    public void testNonNumericBatchSize() {
+        Map<String, String> map = baseConfig();
+        map.put("load.batchsize", "not a number");
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertThrowsExactly(NumberFormatException.class, loadConfiguration::batchSize);
+    }
+
+    // load.connections
+    @Test
+    public void testGoodConnections() {
+        Map<String, String> map = baseConfig();
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertEquals(4, loadConfiguration.connections());
+    }
+
+    @Test
+    public void testNullConnections() {
+        Map<String, String> map = baseConfig();
+        map.remove("load.connections");
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, loadConfiguration::connections);
+    }
+
+    @Test
+    public void testTooSmallConnections() {
+        Map<String, String> map = baseConfig();
+        map.put("load.connections", "0");
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, loadConfiguration::connections);
+    }
+
+    @Test
+    public void testNonNumericConnections() {
+        Map<String, String> map = baseConfig();
+        map.put("load.connections", "not a number");
+        LoadConfiguration loadConfiguration = new LoadConfiguration(map);
+        Assertions.assertThrowsExactly(NumberFormatException.class, loadConfiguration::connections);
+    }
+
+    private Map<String, String> baseConfig() {
+        Map<String, String> map = new HashMap<>();
+        map.put("load.rate", "100000");
+        map.put("load.batchsize", "100");
+        map.put("load.connections", "4");
+        return map;
+    }
+}
@@ -48,7 +48,9 @@ package com.teragrep.rlp_11.Configuration;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class MetricsConfigurationTest {
@@ -117,10 +119,170 @@ public class MetricsConfigurationTest {
         Assertions.assertThrowsExactly(NumberFormatException.class, metricsConfiguration::interval);
     }
 
+    // metrics.reservoir
+    @Test
+    public void testGoodReservoir() {
+        Map<String, String> map = baseConfig();
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertEquals("hdr", metricsConfiguration.reservoir());
+    }
+
+    @Test
+    public void testDefaultReservoir() {
+        Map<String, String> map = baseConfig();
+        map.remove("metrics.reservoir");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertEquals("sliding", metricsConfiguration.reservoir());
+    }
+
+    @Test
+    public void testInvalidReservoir() {
+        Map<String, String> map = baseConfig();
+        map.put("metrics.reservoir", "uniform");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, metricsConfiguration::reservoir);
+    }
+
+    // metrics.window.duration
+    @Test
+    public void testGoodWindowDuration() {
+        Map<String, String> map = baseConfig();
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertEquals(300L, metricsConfiguration.windowDuration());
+    }
+
+    @Test
+    public void testDefaultWindowDuration() {
+        Map<String, String> map = baseConfig();
+        map.remove("metrics.window.duration");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertEquals(60L, metricsConfiguration.windowDuration());
+    }
+
+    @Test
+    public void testTooSmallWindowDuration() {
+        Map<String, String> map = baseConfig();
+        map.put("metrics.window.duration", "0");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, metricsConfiguration::windowDuration);
+    }
+
+    @Test
+    public void testNonNumericWindowDuration() {
+        Map<String, String> map = baseConfig();
+        map.put("metrics.window.duration", "Not a number here");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertThrowsExactly(NumberFormatException.class, metricsConfiguration::windowDuration);
+    }
+
+    // metrics.histogram
+    @Test
+    public void testGoodHistogram() {
+        Map<String, String> map = baseConfig();
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertFalse(metricsConfiguration.histogram());
+    }
+
+    @Test
+    public void testDefaultHistogram() {
+        Map<String, String> map = baseConfig();
+        map.remove("metrics.histogram");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertTrue(metricsConfiguration.histogram());
+    }
+
+    @Test
+    public void testInvalidHistogram() {
+        Map<String, String> map = baseConfig();
+        map.put("metrics.histogram", "yes");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, metricsConfiguration::histogram);
+    }
+
+    // metrics.histogram.buckets
+    @Test
+    public void testGoodHistogramBuckets() {
+        Map<String, String> map = baseConfig();
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertEquals(Arrays.asList(0.5, 1.0, 2.5, 10.0), metricsConfiguration.histogramBuckets());
+    }
+
+    @Test
+    public void testDefaultHistogramBuckets() {
+        Map<String, String> map = baseConfig();
+        map.remove("metrics.histogram.buckets");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        List<Double> buckets = metricsConfiguration.histogramBuckets();
+        Assertions.assertEquals(20, buckets.size());
+        Assertions.assertEquals(0.125, (double) buckets.get(0));
+        Assertions.assertEquals(65536.0, (double) buckets.get(19));
+    }
+
+    @Test
+    public void testUnorderedHistogramBuckets() {
+        Map<String, String> map = baseConfig();
+        map.put("metrics.histogram.buckets", "1,10,5");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, metricsConfiguration::histogramBuckets);
+    }
+
+    @Test
+    public void testNonPositiveHistogramBuckets() {
+        Map<String, String> map = baseConfig();
+        map.put("metrics.histogram.buckets", "0,1");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, metricsConfiguration::histogramBuckets);
+    }
+
+    @Test
+    public void testNonNumericHistogramBuckets() {
+        Map<String, String> map = baseConfig();
+        map.put("metrics.histogram.buckets", "1,ten");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertThrowsExactly(NumberFormatException.class, metricsConfiguration::histogramBuckets);
+    }
+
+    // metrics.sizeclasses
+    @Test
+    public void testGoodSizeClasses() {
+        Map<String, String> map = baseConfig();
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertEquals(Arrays.asList(512, 4096, 65536), metricsConfiguration.sizeClasses());
+    }
+
+    @Test
+    public void testDefaultSizeClasses() {
+        Map<String, String> map = baseConfig();
+        map.remove("metrics.sizeclasses");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertTrue(metricsConfiguration.sizeClasses().isEmpty());
+    }
+
+    @Test
+    public void testUnorderedSizeClasses() {
+        Map<String, String> map = baseConfig();
+        map.put("metrics.sizeclasses", "1024,512");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, metricsConfiguration::sizeClasses);
+    }
+
+    @Test
+    public void testNonNumericSizeClasses() {
+        Map<String, String> map = baseConfig();
+        map.put("metrics.sizeclasses", "512,large");
+        MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        Assertions.assertThrowsExactly(NumberFormatException.class, metricsConfiguration::sizeClasses);
+    }
+
     private Map<String, String> baseConfig() {
         Map<String, String> map = new HashMap<>();
         map.put("metrics.window", "1337");
         map.put("metrics.interval", "60");
+        map.put("metrics.reservoir", "hdr");
+        map.put("metrics.window.duration", "300");
+        map.put("metrics.histogram", "false");
+        map.put("metrics.histogram.buckets", "0.5, 1, 2.5, 10");
+        map.put("metrics.sizeclasses", "512, 4096, 65536");
         return map;
     }
 }
@@ -0,0 +1,171 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.Configuration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class PayloadConfigurationTest {
+
+    // payload.size.distribution
+    @Test
+    public void testGoodDistribution() {
+        Map<String, String> map = baseConfig();
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertEquals("lognormal", payloadConfiguration.distribution());
+    }
+
+    @Test
+    public void testDefaultDistribution() {
+        Map<String, String> map = baseConfig();
+        map.remove("payload.size.distribution");
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertEquals("none", payloadConfiguration.distribution());
+    }
+
+    @Test
+    public void testInvalidDistribution() {
+        Map<String, String> map = baseConfig();
+        map.put("payload.size.distribution", "pareto");
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, payloadConfiguration::distribution);
+    }
+
+    // payload.size
+    @Test
+    public void testGoodSize() {
+        Map<String, String> map = baseConfig();
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertEquals(1024, payloadConfiguration.size());
+    }
+
+    @Test
+    public void testNullSize() {
+        Map<String, String> map = baseConfig();
+        map.remove("payload.size");
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, payloadConfiguration::size);
+    }
+
+    @Test
+    public void testTooLargeSize() {
+        Map<String, String> map = baseConfig();
+        map.put("payload.size", "65537");
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, payloadConfiguration::size);
+    }
+
+    @Test
+    public void testNonNumericSize() {
+        Map<String, String> map = baseConfig();
+        map.put("payload.size", "Not a number here");
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertThrowsExactly(NumberFormatException.class, payloadConfiguration::size);
+    }
+
+    // payload.size.min and payload.size.max
+    @Test
+    public void testGoodSizeRange() {
+        Map<String, String> map = baseConfig();
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertEquals(256, payloadConfiguration.sizeMin());
+        Assertions.assertEquals(8192, payloadConfiguration.sizeMax());
+    }
+
+    @Test
+    public void testInvertedSizeRange() {
+        Map<String, String> map = baseConfig();
+        map.put("payload.size.max", "128");
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, payloadConfiguration::sizeMax);
+    }
+
+    // payload.size.sigma
+    @Test
+    public void testGoodSigma() {
+        Map<String, String> map = baseConfig();
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertEquals(0.5, payloadConfiguration.sigma());
+    }
+
+    @Test
+    public void testNonPositiveSigma() {
+        Map<String, String> map = baseConfig();
+        map.put("payload.size.sigma", "0");
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, payloadConfiguration::sigma);
+    }
+
+    // payload.size.histogram
+    @Test
+    public void testNullHistogram() {
+        Map<String, String> map = baseConfig();
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, payloadConfiguration::histogram);
+    }
+
+    // payload.samples
+    @Test
+    public void testDefaultSamples() {
+        Map<String, String> map = baseConfig();
+        PayloadConfiguration payloadConfiguration = new PayloadConfiguration(map);
+        Assertions.assertEquals("", payloadConfiguration.samples());
+    }
+
+    private Map<String, String> baseConfig() {
+        Map<String, String> map = new HashMap<>();
+        map.put("payload.size.distribution", "lognormal");
+        map.put("payload.size", "1024");
+        map.put("payload.size.min", "256");
+        map.put("payload.size.max", "8192");
+        map.put("payload.size.median", "512");
+        map.put("payload.size.sigma", "0.5");
+        return map;
+    }
+}
@@ -85,9 +85,289 @@ public class ProbeConfigurationTest {
         Assertions.assertThrowsExactly(NumberFormatException.class, probeConfiguration::interval);
     }
 
+    // probe.scheduling
+    @Test
+    public void testGoodScheduling() {
+        Map<String, String> map = baseConfig();
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals("fixedrate", probeConfiguration.scheduling());
+    }
+
+    @Test
+    public void testDefaultScheduling() {
+        Map<String, String> map = baseConfig();
+        map.remove("probe.scheduling");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals("fixeddelay", probeConfiguration.scheduling());
+    }
+
+    @Test
+    public void testInvalidScheduling() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.scheduling", "whenever");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, probeConfiguration::scheduling);
+    }
+
+    @Test
+    public void testAdaptiveScheduling() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.scheduling", "adaptive");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals("adaptive", probeConfiguration.scheduling());
+    }
+
+    // probe.adaptive.floor
+    @Test
+    public void testGoodAdaptiveFloor() {
+        Map<String, String> map = baseConfig();
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals(500, probeConfiguration.adaptiveFloor());
+    }
+
+    @Test
+    public void testDefaultAdaptiveFloor() {
+        Map<String, String> map = baseConfig();
+        map.remove("probe.adaptive.floor");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals(100, probeConfiguration.adaptiveFloor());
+    }
+
+    @Test
+    public void testAdaptiveFloorAboveInterval() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.adaptive.floor", "12501");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, probeConfiguration::adaptiveFloor);
+    }
+
+    // probe.adaptive.threshold
+    @Test
+    public void testGoodAdaptiveThreshold() {
+        Map<String, String> map = baseConfig();
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals(250, probeConfiguration.adaptiveThreshold());
+    }
+
+    @Test
+    public void testNullAdaptiveThreshold() {
+        Map<String, String> map = baseConfig();
+        map.remove("probe.adaptive.threshold");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, probeConfiguration::adaptiveThreshold);
+    }
+
+    @Test
+    public void testTooSmallAdaptiveThreshold() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.adaptive.threshold", "0");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, probeConfiguration::adaptiveThreshold);
+    }
+
+    // probe.mode
+    @Test
+    public void testGoodMode() {
+        Map<String, String> map = baseConfig();
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals("pipelined", probeConfiguration.mode());
+    }
+
+    @Test
+    public void testDefaultMode() {
+        Map<String, String> map = baseConfig();
+        map.remove("probe.mode");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals("interval", probeConfiguration.mode());
+    }
+
+    @Test
+    public void testInvalidMode() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.mode", "invalid");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, probeConfiguration::mode);
+    }
+
+    @Test
+    public void testEventLoopMode() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.mode", "eventloop");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals("eventloop", probeConfiguration.mode());
+    }
+
+    @Test
+    public void testReplayMode() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.mode", "replay");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals("replay", probeConfiguration.mode());
+    }
+
+    @Test
+    public void testPoolMode() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.mode", "pool");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals("pool", probeConfiguration.mode());
+    }
+
+    // probe.fresh
+    @Test
+    public void testGoodFresh() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.fresh", "0.25");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals(0.25, probeConfiguration.fresh());
+    }
+
+    @Test
+    public void testDefaultFresh() {
+        Map<String, String> map = baseConfig();
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals(0.1, probeConfiguration.fresh());
+    }
+
+    @Test
+    public void testTooLargeFresh() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.fresh", "1.5");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, probeConfiguration::fresh);
+    }
+
+    @Test
+    public void testNegativeFresh() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.fresh", "-0.1");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, probeConfiguration::fresh);
+    }
+
+    // probe.connections
+    @Test
+    public void testGoodConnections() {
+        Map<String, String> map = baseConfig();
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals(8, probeConfiguration.connections());
+    }
+
+    @Test
+    public void testDefaultConnections() {
+        Map<String, String> map = baseConfig();
+        map.remove("probe.connections");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals(1, probeConfiguration.connections());
+    }
+
+    @Test
+    public void testTooSmallConnections() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.connections", "0");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, probeConfiguration::connections);
+    }
+
+    @Test
+    public void testNonNumericConnections() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.connections", "not a number");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(NumberFormatException.class, probeConfiguration::connections);
+    }
+
+    // probe.window
+    @Test
+    public void testGoodWindow() {
+        Map<String, String> map = baseConfig();
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals(64, probeConfiguration.window());
+    }
+
+    @Test
+    public void testDefaultWindow() {
+        Map<String, String> map = baseConfig();
+        map.remove("probe.window");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals(16, probeConfiguration.window());
+    }
+
+    @Test
+    public void testTooSmallWindow() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.window", "0");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, probeConfiguration::window);
+    }
+
+    @Test
+    public void testNonNumericWindow() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.window", "not a number");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(NumberFormatException.class, probeConfiguration::window);
+    }
+
+    // probe.transport
+    @Test
+    public void testGoodTransport() {
+        Map<String, String> map = baseConfig();
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals("instrumented", probeConfiguration.transport());
+    }
+
+    @Test
+    public void testDefaultTransport() {
+        Map<String, String> map = baseConfig();
+        map.remove("probe.transport");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals("rlp_01", probeConfiguration.transport());
+    }
+
+    @Test
+    public void testInvalidTransport() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.transport", "carrier pigeon");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, probeConfiguration::transport);
+    }
+
+    // probe.threads
+    @Test
+    public void testGoodThreads() {
+        Map<String, String> map = baseConfig();
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals("virtual", probeConfiguration.threads());
+    }
+
+    @Test
+    public void testDefaultThreads() {
+        Map<String, String> map = baseConfig();
+        map.remove("probe.threads");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertEquals("platform", probeConfiguration.threads());
+    }
+
+    @Test
+    public void testInvalidThreads() {
+        Map<String, String> map = baseConfig();
+        map.put("probe.threads", "green");
+        ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, probeConfiguration::threads);
+    }
+
     private Map<String, String> baseConfig() {
         Map<String, String> map = new HashMap<>();
         map.put("probe.interval", "12500");
+        map.put("probe.scheduling", "fixedrate");
+        map.put("probe.mode", "pipelined");
+        map.put("probe.window", "64");
+        map.put("probe.connections", "8");
+        map.put("probe.transport", "instrumented");
+        map.put("probe.threads", "virtual");
+        map.put("probe.adaptive.floor", "500");
+        map.put("probe.adaptive.threshold", "250");
         return map;
     }
 }
@@ -93,9 +93,50 @@ public class PrometheusConfigurationTest {
         Assertions.assertThrowsExactly(NumberFormatException.class, prometheusConfiguration::port);
     }
 
+    // prometheus.cache.ttl
+    @Test
+    public void testGoodCacheTtl() {
+        Map<String, String> map = baseConfig();
+        PrometheusConfiguration prometheusConfiguration = new PrometheusConfiguration(map);
+        Assertions.assertEquals(5000L, prometheusConfiguration.cacheTtl());
+    }
+
+    @Test
+    public void testDefaultCacheTtl() {
+        Map<String, String> map = baseConfig();
+        map.remove("prometheus.cache.ttl");
+        PrometheusConfiguration prometheusConfiguration = new PrometheusConfiguration(map);
+        Assertions.assertEquals(1000L, prometheusConfiguration.cacheTtl());
+    }
+
+    @Test
+    public void testDisabledCacheTtl() {
+        Map<String, String> map = baseConfig();
+        map.put("prometheus.cache.ttl", "0");
+        PrometheusConfiguration prometheusConfiguration = new PrometheusConfiguration(map);
+        Assertions.assertEquals(0L, prometheusConfiguration.cacheTtl());
+    }
+
+    @Test
+    public void testNegativeCacheTtl() {
+        Map<String, String> map = baseConfig();
+        map.put("prometheus.cache.ttl", "-1");
+        PrometheusConfiguration prometheusConfiguration = new PrometheusConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, prometheusConfiguration::cacheTtl);
+    }
+
+    @Test
+    public void testNonNumericCacheTtl() {
+        Map<String, String> map = baseConfig();
+        map.put("prometheus.cache.ttl", "not a number");
+        PrometheusConfiguration prometheusConfiguration = new PrometheusConfiguration(map);
+        Assertions.assertThrowsExactly(NumberFormatException.class, prometheusConfiguration::cacheTtl);
+    }
+
     private Map<String, String> baseConfig() {
         Map<String, String> map = new HashMap<>();
         map.put("prometheus.port", "8080");
+        map.put("prometheus.cache.ttl", "5000");
         return map;
     }
 }
@@ -0,0 +1,40 @@
+package com.teragrep.rlp_11.Configuration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ReloadConfigurationTest {
+
+    // reload.enabled
+    @Test
+    public void testGoodEnabled() {
+        Map<String, String> map = baseConfig();
+        ReloadConfiguration reloadConfiguration = new ReloadConfiguration(map);
+        Assertions.assertTrue(reloadConfiguration.enabled());
+    }
+
+    @Test
+    public void testDefaultEnabled() {
+        Map<String, String> map = baseConfig();
+        map.remove("reload.enabled");
+        ReloadConfiguration reloadConfiguration = new ReloadConfiguration(map);
+        Assertions.assertFalse(reloadConfiguration.enabled());
+    }
+
+    @Test
+    public void testInvalidEnabled() {
+        Map<String, String> map = baseConfig();
+        map.put("reload.enabled", "yes");
+        ReloadConfiguration reloadConfiguration = new ReloadConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, reloadConfiguration::enabled);
+    }
+
+    private Map<String, String> baseConfig() {
+        Map<String, String> map = new HashMap<>();
+        map.put("reload.enabled", "true");
+        return map;
+    }
+}
@@ -141,6 +141,187 @@ public class TargetConfigurationTest {
         Assertions.assertThrowsExactly(NumberFormatException.class, targetConfiguration::reconnectInterval);
     }
 
+    // target.<name>.*
+    @Test
+    public void testNamedTarget() {
+        Map<String, String> map = baseConfig();
+        map.put("target.relay1.hostname", "relay1-hostname");
+        map.put("target.relay1.port", "1601");
+        map.put("target.relay1.reconnectinterval", "500");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map, "relay1");
+        Assertions.assertEquals("relay1", targetConfiguration.name());
+        Assertions.assertEquals("relay1-hostname", targetConfiguration.hostname());
+        Assertions.assertEquals(1601, targetConfiguration.port());
+        Assertions.assertEquals(500, targetConfiguration.reconnectInterval());
+    }
+
+    @Test
+    public void testNamedTargetDoesNotFallBackToUnnamed() {
+        Map<String, String> map = baseConfig();
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map, "relay1");
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetConfiguration::hostname);
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetConfiguration::port);
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetConfiguration::reconnectInterval);
+    }
+
+    @Test
+    public void testUnnamedTargetName() {
+        Map<String, String> map = baseConfig();
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertEquals("", targetConfiguration.name());
+    }
+
+    // target.reconnect.*
+    @Test
+    public void testDefaultReconnectPolicy() {
+        Map<String, String> map = baseConfig();
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertEquals("fixed", targetConfiguration.reconnectPolicy());
+        Assertions.assertEquals(60000, targetConfiguration.reconnectMaxInterval());
+        Assertions.assertEquals(0, targetConfiguration.reconnectMaxAttempts());
+        Assertions.assertEquals(30000, targetConfiguration.reconnectOpenTime());
+    }
+
+    @Test
+    public void testGoodReconnectPolicy() {
+        Map<String, String> map = baseConfig();
+        map.put("target.reconnect.policy", "backoff");
+        map.put("target.reconnect.maxinterval", "120000");
+        map.put("target.reconnect.maxattempts", "5");
+        map.put("target.reconnect.opentime", "10000");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertEquals("backoff", targetConfiguration.reconnectPolicy());
+        Assertions.assertEquals(120000, targetConfiguration.reconnectMaxInterval());
+        Assertions.assertEquals(5, targetConfiguration.reconnectMaxAttempts());
+        Assertions.assertEquals(10000, targetConfiguration.reconnectOpenTime());
+    }
+
+    @Test
+    public void testInvalidReconnectPolicy() {
+        Map<String, String> map = baseConfig();
+        map.put("target.reconnect.policy", "linear");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetConfiguration::reconnectPolicy);
+    }
+
+    @Test
+    public void testReconnectMaxIntervalBelowReconnectInterval() {
+        Map<String, String> map = baseConfig();
+        map.put("target.reconnect.maxinterval", "1000");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetConfiguration::reconnectMaxInterval);
+    }
+
+    @Test
+    public void testNegativeReconnectMaxAttempts() {
+        Map<String, String> map = baseConfig();
+        map.put("target.reconnect.maxattempts", "-1");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetConfiguration::reconnectMaxAttempts);
+    }
+
+    @Test
+    public void testNonNumericReconnectOpenTime() {
+        Map<String, String> map = baseConfig();
+        map.put("target.reconnect.opentime", "soon");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertThrowsExactly(NumberFormatException.class, targetConfiguration::reconnectOpenTime);
+    }
+
+    // target.timeout.*
+    @Test
+    public void testDefaultTimeouts() {
+        Map<String, String> map = baseConfig();
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertEquals(0, targetConfiguration.connectTimeout());
+        Assertions.assertEquals(0, targetConfiguration.commitTimeout());
+        Assertions.assertEquals(0, targetConfiguration.ackTimeout());
+        Assertions.assertEquals(5000, targetConfiguration.drainTimeout());
+    }
+
+    @Test
+    public void testGoodTimeouts() {
+        Map<String, String> map = baseConfig();
+        map.put("target.timeout.connect", "5000");
+        map.put("target.timeout.commit", "10000");
+        map.put("target.timeout.ack", "2000");
+        map.put("target.timeout.drain", "0");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertEquals(5000, targetConfiguration.connectTimeout());
+        Assertions.assertEquals(10000, targetConfiguration.commitTimeout());
+        Assertions.assertEquals(2000, targetConfiguration.ackTimeout());
+        Assertions.assertEquals(0, targetConfiguration.drainTimeout());
+    }
+
+    @Test
+    public void testNegativeCommitTimeout() {
+        Map<String, String> map = baseConfig();
+        map.put("target.timeout.commit", "-1");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetConfiguration::commitTimeout);
+    }
+
+    @Test
+    public void testNegativeDrainTimeout() {
+        Map<String, String> map = baseConfig();
+        map.put("target.timeout.drain", "-1");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetConfiguration::drainTimeout);
+    }
+
+    @Test
+    public void testNamedTargetTimeout() {
+        Map<String, String> map = baseConfig();
+        map.put("target.relay1.timeout.connect", "3000");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map, "relay1");
+        Assertions.assertEquals(3000, targetConfiguration.connectTimeout());
+    }
+
+    // target.resolve
+    @Test
+    public void testDefaultResolve() {
+        Map<String, String> map = baseConfig();
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertEquals("none", targetConfiguration.resolve());
+        Assertions.assertEquals(60000, targetConfiguration.resolveTtl());
+    }
+
+    @Test
+    public void testGoodResolve() {
+        Map<String, String> map = baseConfig();
+        map.put("target.resolve", "roundrobin");
+        map.put("target.resolve.ttl", "30000");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertEquals("roundrobin", targetConfiguration.resolve());
+        Assertions.assertEquals(30000, targetConfiguration.resolveTtl());
+    }
+
+    @Test
+    public void testInvalidResolve() {
+        Map<String, String> map = baseConfig();
+        map.put("target.resolve", "random");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetConfiguration::resolve);
+    }
+
+    @Test
+    public void testTooSmallResolveTtl() {
+        Map<String, String> map = baseConfig();
+        map.put("target.resolve.ttl", "0");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetConfiguration::resolveTtl);
+    }
+
+    @Test
+    public void testAddress() {
+        Map<String, String> map = baseConfig();
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions.assertEquals(targetConfiguration.hostname(), targetConfiguration.address());
+        TargetConfiguration addressConfiguration = targetConfiguration.withAddress("192.0.2.1");
+        Assertions.assertEquals("192.0.2.1", addressConfiguration.address());
+        Assertions.assertEquals(targetConfiguration.hostname(), addressConfiguration.hostname());
+    }
+
     private Map<String, String> baseConfig() {
         Map<String, String> map = new HashMap<>();
         map.put("target.hostname", "target-hostname");
@@ -0,0 +1,132 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.Configuration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TargetsConfigurationTest {
+
+    // target.names
+    @Test
+    public void testNullNames() {
+        Map<String, String> map = baseConfig();
+        map.remove("target.names");
+        TargetsConfiguration targetsConfiguration = new TargetsConfiguration(map);
+        List<TargetConfiguration> targets = targetsConfiguration.targets();
+        Assertions.assertEquals(1, targets.size());
+        Assertions.assertEquals("", targets.get(0).name());
+        Assertions.assertEquals("target-hostname", targets.get(0).hostname());
+    }
+
+    @Test
+    public void testGoodNames() {
+        Map<String, String> map = baseConfig();
+        TargetsConfiguration targetsConfiguration = new TargetsConfiguration(map);
+        List<TargetConfiguration> targets = targetsConfiguration.targets();
+        Assertions.assertEquals(2, targets.size());
+        Assertions.assertEquals("relay1", targets.get(0).name());
+        Assertions.assertEquals("relay1-hostname", targets.get(0).hostname());
+        Assertions.assertEquals(1601, targets.get(0).port());
+        Assertions.assertEquals("relay-2", targets.get(1).name());
+        Assertions.assertEquals("relay2-hostname", targets.get(1).hostname());
+        Assertions.assertEquals(2601, targets.get(1).port());
+    }
+
+    @Test
+    public void testNamesWithWhitespace() {
+        Map<String, String> map = baseConfig();
+        map.put("target.names", " relay1 , relay-2 ");
+        TargetsConfiguration targetsConfiguration = new TargetsConfiguration(map);
+        List<TargetConfiguration> targets = targetsConfiguration.targets();
+        Assertions.assertEquals(2, targets.size());
+        Assertions.assertEquals("relay1", targets.get(0).name());
+        Assertions.assertEquals("relay-2", targets.get(1).name());
+    }
+
+    @Test
+    public void testEmptyName() {
+        Map<String, String> map = baseConfig();
+        map.put("target.names", "relay1,,relay-2");
+        TargetsConfiguration targetsConfiguration = new TargetsConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetsConfiguration::targets);
+    }
+
+    @Test
+    public void testNameWithDot() {
+        Map<String, String> map = baseConfig();
+        map.put("target.names", "relay.1");
+        TargetsConfiguration targetsConfiguration = new TargetsConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetsConfiguration::targets);
+    }
+
+    @Test
+    public void testDuplicateNames() {
+        Map<String, String> map = baseConfig();
+        map.put("target.names", "relay1,relay1");
+        TargetsConfiguration targetsConfiguration = new TargetsConfiguration(map);
+        Assertions.assertThrowsExactly(ConfigurationException.class, targetsConfiguration::targets);
+    }
+
+    private Map<String, String> baseConfig() {
+        Map<String, String> map = new HashMap<>();
+        map.put("target.hostname", "target-hostname");
+        map.put("target.port", "601");
+        map.put("target.reconnectinterval", "15000");
+        map.put("target.names", "relay1,relay-2");
+        map.put("target.relay1.hostname", "relay1-hostname");
+        map.put("target.relay1.port", "1601");
+        map.put("target.relay1.reconnectinterval", "1000");
+        map.put("target.relay-2.hostname", "relay2-hostname");
+        map.put("target.relay-2.port", "2601");
+        map.put("target.relay-2.reconnectinterval", "1000");
+        return map;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.Configuration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TlsConfigurationTest {
+
+    // target.tls.enabled
+    @Test
+    public void testGoodEnabled() {
+        Map<String, String> map = baseConfig();
+        TlsConfiguration tlsConfiguration = new TargetConfiguration(map).tls();
+        Assertions.assertTrue(tlsConfiguration.enabled());
+    }
+
+    @Test
+    public void testDefaultEnabled() {
+        Map<String, String> map = baseConfig();
+        map.remove("target.tls.enabled");
+        TlsConfiguration tlsConfiguration = new TargetConfiguration(map).tls();
+        Assertions.assertFalse(tlsConfiguration.enabled());
+    }
+
+    @Test
+    public void testInvalidEnabled() {
+        Map<String, String> map = baseConfig();
+        map.put("target.tls.enabled", "yes");
+        TlsConfiguration tlsConfiguration = new TargetConfiguration(map).tls();
+        Assertions.assertThrowsExactly(ConfigurationException.class, tlsConfiguration::enabled);
+    }
+
+    @Test
+    public void testNamedTargetEnabled() {
+        Map<String, String> map = baseConfig();
+        map.put("target.relay1.tls.enabled", "false");
+        Assertions.assertTrue(new TargetConfiguration(map).tls().enabled());
+        Assertions.assertFalse(new TargetConfiguration(map, "relay1").tls().enabled());
+    }
+
+    // target.tls.keystore and target.tls.truststore
+    @Test
+    public void testGoodStores() {
+        Map<String, String> map = baseConfig();
+        TlsConfiguration tlsConfiguration = new TargetConfiguration(map).tls();
+        Assertions.assertEquals("/etc/rlp_11/keystore.p12", tlsConfiguration.keystore());
+        Assertions.assertEquals("keystore secret", tlsConfiguration.keystorePassword());
+        Assertions.assertEquals("/etc/rlp_11/truststore.p12", tlsConfiguration.truststore());
+        Assertions.assertEquals("truststore secret", tlsConfiguration.truststorePassword());
+    }
+
+    @Test
+    public void testDefaultStores() {
+        Map<String, String> map = baseConfig();
+        map.remove("target.tls.keystore");
+        map.remove("target.tls.keystore.password");
+        map.remove("target.tls.truststore");
+        map.remove("target.tls.truststore.password");
+        TlsConfiguration tlsConfiguration = new TargetConfiguration(map).tls();
+        Assertions.assertEquals("", tlsConfiguration.keystore());
+        Assertions.assertEquals("", tlsConfiguration.keystorePassword());
+        Assertions.assertEquals("", tlsConfiguration.truststore());
+        Assertions.assertEquals("", tlsConfiguration.truststorePassword());
+    }
+
+    // target.tls.servername
+    @Test
+    public void testGoodServerName() {
+        Map<String, String> map = baseConfig();
+        TlsConfiguration tlsConfiguration = new TargetConfiguration(map).tls();
+        Assertions.assertEquals("relay.example.com", tlsConfiguration.serverName());
+    }
+
+    @Test
+    public void testDefaultServerName() {
+        Map<String, String> map = baseConfig();
+        map.remove("target.tls.servername");
+        TlsConfiguration tlsConfiguration = new TargetConfiguration(map).tls();
+        Assertions.assertEquals("", tlsConfiguration.serverName());
+    }
+
+    // target.tls.protocols and target.tls.ciphers
+    @Test
+    public void testGoodProtocolsAndCiphers() {
+        Map<String, String> map = baseConfig();
+        TlsConfiguration tlsConfiguration = new TargetConfiguration(map).tls();
+        Assertions.assertEquals(Arrays.asList("TLSv1.3", "TLSv1.2"), tlsConfiguration.protocols());
+        Assertions.assertEquals(Collections.singletonList("TLS_AES_256_GCM_SHA384"), tlsConfiguration.ciphers());
+    }
+
+    @Test
+    public void testDefaultProtocolsAndCiphers() {
+        Map<String, String> map = baseConfig();
+        map.remove("target.tls.protocols");
+        map.put("target.tls.ciphers", " ");
+        TlsConfiguration tlsConfiguration = new TargetConfiguration(map).tls();
+        Assertions.assertTrue(tlsConfiguration.protocols().isEmpty());
+        Assertions.assertTrue(tlsConfiguration.ciphers().isEmpty());
+    }
+
+    private Map<String, String> baseConfig() {
+        Map<String, String> map = new HashMap<>();
+        map.put("target.tls.enabled", "true");
+        map.put("target.tls.keystore", "/etc/rlp_11/keystore.p12");
+        map.put("target.tls.keystore.password", "keystore secret");
+        map.put("target.tls.truststore", "/etc/rlp_11/truststore.p12");
+        map.put("target.tls.truststore.password", "truststore secret");
+        map.put("target.tls.servername", "relay.example.com");
+        map.put("target.tls.protocols", "TLSv1.3, TLSv1.2");
+        map.put("target.tls.ciphers", "TLS_AES_256_GCM_SHA384");
+        return map;
+    }
+}
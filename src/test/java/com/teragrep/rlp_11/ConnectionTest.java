@@ -55,19 +55,34 @@ import com.teragrep.net_01.server.ServerFactory;
 import com.teragrep.rlp_03.frame.FrameDelegationClockFactory;
 import com.teragrep.rlp_03.frame.delegate.DefaultFrameDelegate;
 import com.teragrep.rlp_03.frame.delegate.FrameDelegate;
+import com.teragrep.rlp_11.Configuration.LoadConfiguration;
 import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
 import com.teragrep.rlp_11.Configuration.MetricsConfiguration;
+import com.teragrep.rlp_11.Configuration.ReceiverConfiguration;
 import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.Configuration.TargetsConfiguration;
+import com.teragrep.rlp_11.receiver.ReceiverFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -79,7 +94,7 @@ public class ConnectionTest {
     private Thread eventLoopThread;
     private EventLoop eventLoop;
     private ThreadPoolExecutor threadPoolExecutor;
-    private final List<String> records = new ArrayList<>();
+    private final List<String> records = Collections.synchronizedList(new ArrayList<>());
     private Server server;
 
     @BeforeEach
@@ -149,4 +164,451 @@ public class ConnectionTest {
 
         relpProbe.start();
     }
+
+    @Test
+    public void connectMultipleTargetsTest() {
+        Map<String, String> map = new HashMap<>(
+                Assertions
+                        .assertDoesNotThrow(() -> new PathConfiguration("src/test/resources/connect.properties").asMap())
+        );
+        map.put("target.names", "first,second");
+        map.put("target.first.hostname", "127.0.0.1");
+        map.put("target.first.port", String.valueOf(serverPort));
+        map.put("target.first.reconnectinterval", "1000");
+        map.put("target.second.hostname", "127.0.0.1");
+        map.put("target.second.port", String.valueOf(serverPort));
+        map.put("target.second.reconnectinterval", "1000");
+        final ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        final MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final List<Probe> probes = new ArrayList<>();
+        for (final TargetConfiguration targetConfiguration : new TargetsConfiguration(map).targets()) {
+            probes
+                    .add(
+                            new RelpProbe(
+                                    targetConfiguration,
+                                    probeConfiguration,
+                                    metricsConfiguration,
+                                    new RecordFactory("localhost", "rlp_11", "rlp_11"),
+                                    metricRegistry
+                            )
+                    );
+        }
+        final Probe probe = new ProbeGroup(probes, Executors.newFixedThreadPool(probes.size()));
+
+        TimerTask task = new TimerTask() {
+
+            public void run() {
+                probe.stop();
+            }
+        };
+        Timer timer = new Timer("Timer");
+        timer.schedule(task, 5_000L);
+
+        probe.start();
+
+        Assertions.assertFalse(records.isEmpty());
+        Assertions
+                .assertTrue(
+                        metricRegistry
+                                .counter("com.teragrep.rlp_11.RelpProbe.records.target.first")
+                                .getCount() > 0
+                );
+        Assertions
+                .assertTrue(
+                        metricRegistry
+                                .counter("com.teragrep.rlp_11.RelpProbe.records.target.second")
+                                .getCount() > 0
+                );
+    }
+
+    @Test
+    public void pipelinedConnectionTest() {
+        Map<String, String> map = new HashMap<>(
+                Assertions
+                        .assertDoesNotThrow(() -> new PathConfiguration("src/test/resources/connect.properties").asMap())
+        );
+        map.put("probe.mode", "pipelined");
+        map.put("probe.window", "4");
+        final ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final Probe probe = new ProbeFactory(
+                probeConfiguration,
+                new MetricsConfiguration(map),
+                new LoadConfiguration(map),
+                metricRegistry
+        ).createProbe(new TargetConfiguration(map), new RecordFactory("localhost", "rlp_11", "rlp_11"));
+        Assertions.assertEquals(PipelinedProbe.class, probe.getClass());
+
+        TimerTask task = new TimerTask() {
+
+            public void run() {
+                probe.stop();
+            }
+        };
+        Timer timer = new Timer("Timer");
+        timer.schedule(task, 5_000L);
+
+        probe.start();
+
+        final long acknowledged = metricRegistry.counter("com.teragrep.rlp_11.PipelinedProbe.records").getCount();
+        Assertions.assertTrue(acknowledged > 0);
+        Assertions.assertTrue(records.size() >= acknowledged);
+        Assertions
+                .assertEquals(
+                        acknowledged,
+                        metricRegistry.timer("com.teragrep.rlp_11.PipelinedProbe.sendLatency").getCount()
+                );
+        Assertions.assertEquals(0, metricRegistry.counter("com.teragrep.rlp_11.PipelinedProbe.inFlight").getCount());
+    }
+
+    @Test
+    public void pipelinedStopWhileTargetDownTest() {
+        Map<String, String> map = new HashMap<>(
+                Assertions
+                        .assertDoesNotThrow(() -> new PathConfiguration("src/test/resources/connect.properties").asMap())
+        );
+        map.put("probe.mode", "pipelined");
+        // nothing listens on the port
+        map.put("target.port", "12347");
+        map.put("target.reconnectinterval", "100");
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final Probe probe = new ProbeFactory(
+                new ProbeConfiguration(map),
+                new MetricsConfiguration(map),
+                new LoadConfiguration(map),
+                metricRegistry
+        ).createProbe(new TargetConfiguration(map), new RecordFactory("localhost", "rlp_11", "rlp_11"));
+        final Thread probeThread = new Thread(probe::start);
+        probeThread.start();
+        Assertions.assertDoesNotThrow(() -> Thread.sleep(1000));
+
+        final long start = System.nanoTime();
+        Assertions.assertDoesNotThrow(probe::stop);
+        Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        Assertions.assertDoesNotThrow(() -> probeThread.join(1000));
+        Assertions.assertFalse(probeThread.isAlive());
+        Assertions.assertEquals(0, metricRegistry.counter("com.teragrep.rlp_11.PipelinedProbe.records").getCount());
+    }
+
+    @Test
+    public void eventLoopConnectionTest() {
+        Map<String, String> map = new HashMap<>(
+                Assertions
+                        .assertDoesNotThrow(() -> new PathConfiguration("src/test/resources/connect.properties").asMap())
+        );
+        map.put("probe.mode", "eventloop");
+        map.put("probe.window", "4");
+        map.put("probe.connections", "2");
+        final ProbeConfiguration probeConfiguration = new ProbeConfiguration(map);
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final Probe probe = new ProbeFactory(
+                probeConfiguration,
+                new MetricsConfiguration(map),
+                new LoadConfiguration(map),
+                metricRegistry
+        ).createProbe(new TargetConfiguration(map), new RecordFactory("localhost", "rlp_11", "rlp_11"));
+        Assertions.assertEquals(EventLoopProbe.class, probe.getClass());
+
+        TimerTask task = new TimerTask() {
+
+            public void run() {
+                probe.stop();
+            }
+        };
+        Timer timer = new Timer("Timer");
+        timer.schedule(task, 5_000L);
+
+        probe.start();
+
+        final long acknowledged = metricRegistry.counter("com.teragrep.rlp_11.EventLoopProbe.records").getCount();
+        Assertions.assertTrue(acknowledged > 0);
+        Assertions.assertTrue(records.size() >= acknowledged);
+        Assertions
+                .assertEquals(
+                        acknowledged,
+                        metricRegistry.timer("com.teragrep.rlp_11.EventLoopProbe.sendLatency").getCount()
+                );
+        Assertions.assertEquals(0, metricRegistry.counter("com.teragrep.rlp_11.EventLoopProbe.inFlight").getCount());
+    }
+
+    @Test
+    public void eventLoopReconnectTest() {
+        // a server that drops the first session after three records, to check the transaction numbers of the next one
+        final ServerSocket serverSocket = Assertions.assertDoesNotThrow(() -> new ServerSocket(12346));
+        final List<String> firstFrames = Collections.synchronizedList(new ArrayList<>());
+        final Thread serverThread = new Thread(() -> {
+            for (int session = 0; session < 2; session++) {
+                try (Socket socket = serverSocket.accept()) {
+                    final InputStream in = new BufferedInputStream(socket.getInputStream());
+                    final OutputStream out = socket.getOutputStream();
+                    int syslogFrames = 0;
+                    String txnr = relpToken(in);
+                    while (txnr != null && (session > 0 || syslogFrames < 3)) {
+                        final String command = relpToken(in);
+                        final int length = Integer.parseInt(relpToken(in));
+                        in.readNBytes(length);
+                        if (length > 0) {
+                            in.read();
+                        }
+                        if (firstFrames.size() == session) {
+                            firstFrames.add(txnr + " " + command);
+                        }
+                        if ("syslog".equals(command)) {
+                            syslogFrames++;
+                        }
+                        final String data = "200 OK";
+                        out.write((txnr + " rsp " + data.length() + " " + data + "\n").getBytes(StandardCharsets.US_ASCII));
+                        out.flush();
+                        txnr = relpToken(in);
+                    }
+                }
+                catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        serverThread.start();
+
+        Map<String, String> map = new HashMap<>(
+                Assertions
+                        .assertDoesNotThrow(() -> new PathConfiguration("src/test/resources/connect.properties").asMap())
+        );
+        map.put("probe.mode", "eventloop");
+        map.put("probe.window", "1");
+        map.put("probe.connections", "1");
+        map.put("target.port", "12346");
+        map.put("target.reconnectinterval", "100");
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final Probe probe = new ProbeFactory(
+                new ProbeConfiguration(map),
+                new MetricsConfiguration(map),
+                new LoadConfiguration(map),
+                metricRegistry
+        ).createProbe(new TargetConfiguration(map), new RecordFactory("localhost", "rlp_11", "rlp_11"));
+
+        TimerTask task = new TimerTask() {
+
+            public void run() {
+                probe.stop();
+            }
+        };
+        Timer timer = new Timer("Timer");
+        timer.schedule(task, 2_000L);
+
+        probe.start();
+        Assertions.assertDoesNotThrow(serverSocket::close);
+        Assertions.assertDoesNotThrow(() -> serverThread.join());
+
+        Assertions.assertEquals(Arrays.asList("1 open", "1 open"), firstFrames);
+    }
+
+    private static String relpToken(final InputStream in) throws IOException {
+        final StringBuilder token = new StringBuilder();
+        int c = in.read();
+        while (c != -1 && c != ' ' && c != '\n') {
+            token.append((char) c);
+            c = in.read();
+        }
+        final String relpToken;
+        if (c == -1 && token.length() == 0) {
+            relpToken = null;
+        }
+        else {
+            relpToken = token.toString();
+        }
+        return relpToken;
+    }
+
+    @Test
+    public void loadConnectionTest() {
+        Map<String, String> map = new HashMap<>(
+                Assertions
+                        .assertDoesNotThrow(() -> new PathConfiguration("src/test/resources/connect.properties").asMap())
+        );
+        map.put("probe.mode", "load");
+        map.put("load.rate", "20");
+        map.put("load.batchsize", "5");
+        map.put("load.connections", "2");
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final Probe probe = new ProbeFactory(
+                new ProbeConfiguration(map),
+                new MetricsConfiguration(map),
+                new LoadConfiguration(map),
+                metricRegistry
+        ).createProbe(new TargetConfiguration(map), new RecordFactory("localhost", "rlp_11", "rlp_11"));
+
+        TimerTask task = new TimerTask() {
+
+            public void run() {
+                probe.stop();
+            }
+        };
+        Timer timer = new Timer("Timer");
+        timer.schedule(task, 5_000L);
+
+        probe.start();
+
+        final long commits = metricRegistry.meter("com.teragrep.rlp_11.LoadProbe.commits").getCount();
+        Assertions.assertTrue(commits > 0);
+        Assertions.assertEquals(commits * 5, metricRegistry.meter("com.teragrep.rlp_11.LoadProbe.records").getCount());
+        Assertions.assertEquals(commits, metricRegistry.timer("com.teragrep.rlp_11.LoadProbe.batchLatency").getCount());
+        Assertions.assertTrue(records.size() >= commits * 5);
+    }
+
+    @Test
+    public void poolConnectionTest() {
+        Map<String, String> map = new HashMap<>(
+                Assertions
+                        .assertDoesNotThrow(() -> new PathConfiguration("src/test/resources/connect.properties").asMap())
+        );
+        map.put("probe.mode", "pool");
+        map.put("probe.interval", "100");
+        map.put("probe.connections", "2");
+        map.put("probe.fresh", "0.5");
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final Probe probe = new ProbeFactory(
+                new ProbeConfiguration(map),
+                new MetricsConfiguration(map),
+                new LoadConfiguration(map),
+                metricRegistry
+        ).createProbe(new TargetConfiguration(map), new RecordFactory("localhost", "rlp_11", "rlp_11"));
+        Assertions.assertEquals(PoolProbe.class, probe.getClass());
+
+        TimerTask task = new TimerTask() {
+
+            public void run() {
+                probe.stop();
+            }
+        };
+        Timer timer = new Timer("Timer");
+        timer.schedule(task, 5_000L);
+
+        probe.start();
+
+        final long warm = metricRegistry.timer("com.teragrep.rlp_11.PoolProbe.sendLatency").getCount();
+        final long fresh = metricRegistry.timer("com.teragrep.rlp_11.PoolProbe.freshLatency").getCount();
+        Assertions.assertTrue(warm > 0);
+        Assertions.assertTrue(fresh > 0);
+        Assertions.assertEquals(0, metricRegistry.counter("com.teragrep.rlp_11.PoolProbe.freshFailures").getCount());
+        Assertions
+                .assertEquals(warm + fresh, metricRegistry.counter("com.teragrep.rlp_11.PoolProbe.records").getCount());
+        Assertions.assertTrue(records.size() >= warm + fresh);
+    }
+
+    @Test
+    public void instrumentedTransportTest() {
+        Map<String, String> map = new HashMap<>(
+                Assertions
+                        .assertDoesNotThrow(() -> new PathConfiguration("src/test/resources/connect.properties").asMap())
+        );
+        map.put("probe.transport", "instrumented");
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final Probe probe = new ProbeFactory(
+                new ProbeConfiguration(map),
+                new MetricsConfiguration(map),
+                new LoadConfiguration(map),
+                metricRegistry
+        ).createProbe(new TargetConfiguration(map), new RecordFactory("localhost", "rlp_11", "rlp_11"));
+
+        TimerTask task = new TimerTask() {
+
+            public void run() {
+                probe.stop();
+            }
+        };
+        Timer timer = new Timer("Timer");
+        timer.schedule(task, 5_000L);
+
+        probe.start();
+
+        final long acknowledged = metricRegistry.counter("com.teragrep.rlp_11.RelpProbe.records").getCount();
+        Assertions.assertTrue(acknowledged > 0);
+        Assertions.assertTrue(records.size() >= acknowledged);
+        Assertions.assertTrue(metricRegistry.timer("com.teragrep.rlp_11.RelpProbe.dnsLatency").getCount() > 0);
+        Assertions.assertTrue(metricRegistry.timer("com.teragrep.rlp_11.RelpProbe.tcpConnectLatency").getCount() > 0);
+        Assertions.assertTrue(metricRegistry.timer("com.teragrep.rlp_11.RelpProbe.openLatency").getCount() > 0);
+        Assertions
+                .assertTrue(metricRegistry.timer("com.teragrep.rlp_11.RelpProbe.writeLatency").getCount() >= acknowledged);
+        Assertions
+                .assertEquals(acknowledged, metricRegistry.timer("com.teragrep.rlp_11.RelpProbe.ackWaitLatency").getCount());
+    }
+
+    @Test
+    public void receiverTest() {
+        Map<String, String> map = new HashMap<>(
+                Assertions
+                        .assertDoesNotThrow(() -> new PathConfiguration("src/test/resources/connect.properties").asMap())
+        );
+        map.put("probe.interval", "100");
+        map.put("receiver.enabled", "true");
+        map.put("receiver.port", "12347");
+        map.put("target.port", "12347");
+        final MetricsConfiguration metricsConfiguration = new MetricsConfiguration(map);
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final List<Probe> probes = new ArrayList<>();
+        probes
+                .add(
+                        Assertions
+                                .assertDoesNotThrow(
+                                        () -> new ReceiverFactory(
+                                                new ReceiverConfiguration(map),
+                                                metricsConfiguration,
+                                                metricRegistry
+                                        ).createReceiver()
+                                )
+                );
+        probes
+                .add(
+                        new RelpProbe(
+                                new TargetConfiguration(map),
+                                new ProbeConfiguration(map),
+                                metricsConfiguration,
+                                new RecordFactory("localhost", "rlp_11", "rlp_11"),
+                                metricRegistry
+                        )
+                );
+        final Probe probe = new ProbeGroup(probes, Executors.newFixedThreadPool(probes.size()));
+
+        TimerTask task = new TimerTask() {
+
+            public void run() {
+                probe.stop();
+            }
+        };
+        Timer timer = new Timer("Timer");
+        timer.schedule(task, 5_000L);
+
+        probe.start();
+
+        final long acknowledged = metricRegistry.counter("com.teragrep.rlp_11.RelpProbe.records").getCount();
+        final long received = metricRegistry.counter("com.teragrep.rlp_11.receiver.RelpReceiver.received").getCount();
+        Assertions.assertTrue(acknowledged > 0);
+        Assertions.assertTrue(received >= acknowledged);
+        Assertions
+                .assertEquals(
+                        0, metricRegistry.counter("com.teragrep.rlp_11.receiver.RelpReceiver.invalid").getCount()
+                );
+        Assertions
+                .assertEquals(
+                        0, metricRegistry.counter("com.teragrep.rlp_11.receiver.RelpReceiver.reordered").getCount()
+                );
+        Assertions
+                .assertEquals(
+                        0, metricRegistry.counter("com.teragrep.rlp_11.receiver.RelpReceiver.lost").getCount()
+                );
+        Assertions
+                .assertEquals(
+                        0, metricRegistry.counter("com.teragrep.rlp_11.receiver.RelpReceiver.duplicates").getCount()
+                );
+        Assertions
+                .assertEquals(
+                        0, metricRegistry.counter("com.teragrep.rlp_11.receiver.RelpReceiver.late").getCount()
+                );
+        Assertions
+                .assertEquals(
+                        received,
+                        metricRegistry.timer("com.teragrep.rlp_11.receiver.RelpReceiver.endToEndLatency").getCount()
+                );
+    }
 }
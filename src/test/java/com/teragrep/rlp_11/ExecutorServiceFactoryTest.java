@@ -0,0 +1,98 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import com.teragrep.rlp_11.Configuration.ConfigurationException;
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+public class ExecutorServiceFactoryTest {
+
+    @Test
+    public void testPlatformThreads() {
+        final ExecutorService executorService = new ExecutorServiceFactory(
+                new ProbeConfiguration(Collections.singletonMap("probe.threads", "platform"))
+        ).createExecutorService(2);
+        final Future<Boolean> virtual = executorService.submit(this::isVirtual);
+        Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> virtual.get()));
+        executorService.shutdown();
+    }
+
+    @Test
+    public void testVirtualThreads() {
+        final ExecutorServiceFactory executorServiceFactory = new ExecutorServiceFactory(
+                new ProbeConfiguration(Collections.singletonMap("probe.threads", "virtual"))
+        );
+        if (Runtime.version().feature() >= 21) {
+            final ExecutorService executorService = executorServiceFactory.createExecutorService(2);
+            final Future<Boolean> virtual = executorService.submit(this::isVirtual);
+            Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> virtual.get()));
+            executorService.shutdown();
+        }
+        else {
+            Assertions
+                    .assertThrowsExactly(
+                            ConfigurationException.class, () -> executorServiceFactory.createExecutorService(2)
+                    );
+        }
+    }
+
+    private boolean isVirtual() {
+        boolean virtual;
+        try {
+            virtual = (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+        }
+        catch (ReflectiveOperationException e) {
+            virtual = false;
+        }
+        return virtual;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import com.teragrep.rlo_14.Facility;
+import com.teragrep.rlo_14.Severity;
+import com.teragrep.rlo_14.SyslogMessage;
+import com.teragrep.rlp_11.payload.FixedSize;
+import com.teragrep.rlp_11.payload.PaddedPayload;
+import com.teragrep.rlp_11.payload.SamplePayload;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RecordFactoryTest {
+
+    private static final String SESSION = "0b5b5ad4-43c5-4a6c-9e66-5c5b0e0a37e1";
+
+    private byte[] expected(final String origin, final Instant timestamp, final long sequence) {
+        final String timestampString = timestamp.getEpochSecond() + "." + timestamp.getNano();
+        final JsonObject record = Json
+                .createObjectBuilder()
+                .add("origin", origin)
+                .add("timestamp", timestampString)
+                .add("session", SESSION)
+                .add("sequence", sequence)
+                .build();
+        return new SyslogMessage()
+                .withTimestamp(timestamp.toEpochMilli())
+                .withAppName("appname")
+                .withHostname("hostname")
+                .withFacility(Facility.USER)
+                .withSeverity(Severity.INFORMATIONAL)
+                .withMsg(record.toString())
+                .toRfc5424SyslogMessage()
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private RecordFactory recordFactory(final String origin, final long sequence) {
+        return new RecordFactory(origin, "hostname", "appname", SESSION, new AtomicLong(sequence));
+    }
+
+    private void assertRecord(final String origin, final Instant timestamp, final long sequence) {
+        final RecordFactory recordFactory = recordFactory(origin, sequence - 1);
+        Assertions
+                .assertArrayEquals(
+                        expected(origin, timestamp, sequence), recordFactory.createRecord(timestamp),
+                        timestamp.toString()
+                );
+    }
+
+    @Test
+    public void testKnownTimestamps() {
+        assertRecord("localhost", Instant.EPOCH, 1L);
+        assertRecord("localhost", Instant.ofEpochSecond(0, 1), 9L);
+        assertRecord("localhost", Instant.ofEpochSecond(1700000000L, 0), 10L);
+        assertRecord("localhost", Instant.ofEpochSecond(1700000000L, 7_000_000), 99L);
+        assertRecord("localhost", Instant.ofEpochSecond(1700000000L, 999_999_999), 1000L);
+        assertRecord("localhost", Instant.parse("2000-02-29T12:34:56.789Z"), 123456789L);
+        assertRecord("localhost", Instant.parse("9999-12-31T23:59:59.999Z"), Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testTimestampsOutsideTemplate() {
+        assertRecord("localhost", Instant.ofEpochSecond(-5, 3), 1L);
+        assertRecord("localhost", Instant.parse("+10000-01-01T00:00:00.001Z"), 2L);
+    }
+
+    @Test
+    public void testRandomTimestamps() {
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            long epochSecond = (long) (random.nextDouble() * 253402300800L);
+            int nano = random.nextBoolean() ? random.nextInt(1000) * 1_000_000 : random.nextInt(1_000_000_000);
+            long sequence = 1L + random.nextInt(Integer.MAX_VALUE);
+            assertRecord("localhost", Instant.ofEpochSecond(epochSecond, nano), sequence);
+        }
+    }
+
+    @Test
+    public void testEscapedOrigin() {
+        String origin = "quote\" backslash\\ umlautä control\u0001 at@";
+        assertRecord(origin, Instant.ofEpochSecond(1700000000L, 123_456_789), 1L);
+    }
+
+    @Test
+    public void testSequenceIncrements() {
+        RecordFactory recordFactory = recordFactory("localhost", 0L);
+        Instant timestamp = Instant.ofEpochSecond(1700000000L, 0);
+        for (long sequence = 1L; sequence <= 3L; sequence++) {
+            Assertions
+                    .assertArrayEquals(expected("localhost", timestamp, sequence), recordFactory.createRecord(timestamp));
+        }
+    }
+
+    @Test
+    public void testWriteRecordReusesBuffer() {
+        RecordFactory recordFactory = recordFactory("localhost", 0L);
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        for (long second = 1700000000L; second < 1700000010L; second++) {
+            Instant timestamp = Instant.ofEpochSecond(second, 0);
+            byte[] expected = expected("localhost", timestamp, second - 1700000000L + 1L);
+            buffer.clear();
+            int written = recordFactory.writeRecord(buffer, timestamp);
+            Assertions.assertEquals(expected.length, written);
+            Assertions.assertEquals(expected.length, buffer.position());
+            byte[] actual = new byte[written];
+            buffer.flip();
+            buffer.get(actual);
+            Assertions.assertArrayEquals(expected, actual);
+        }
+    }
+
+    private JsonObject message(final byte[] record) {
+        final String recordString = new String(record, StandardCharsets.UTF_8);
+        final String message = recordString.substring(recordString.indexOf('{'));
+        try (JsonReader reader = Json.createReader(new StringReader(message))) {
+            return reader.readObject();
+        }
+    }
+
+    @Test
+    public void testPaddedRecordHasFixedSize() {
+        byte[] padding = new byte[4096];
+        Arrays.fill(padding, (byte) 'x');
+        RecordFactory recordFactory = new RecordFactory(
+                "localhost",
+                "hostname",
+                "appname",
+                SESSION,
+                new AtomicLong(),
+                new PaddedPayload(new FixedSize(1000), padding)
+        );
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        Instant[] timestamps = new Instant[] {
+                Instant.ofEpochSecond(1700000000L, 7_000_000), Instant.ofEpochSecond(-5, 3)
+        };
+        long sequence = 0L;
+        for (Instant timestamp : timestamps) {
+            byte[] record = recordFactory.createRecord(timestamp);
+            sequence++;
+            Assertions.assertEquals(1000, record.length, timestamp.toString());
+            JsonObject message = message(record);
+            Assertions.assertEquals(sequence, message.getJsonNumber("sequence").longValue());
+            Assertions.assertEquals(SESSION, message.getString("session"));
+            Assertions.assertTrue(message.getString("padding").chars().allMatch(c -> c == 'x'));
+
+            buffer.clear();
+            int written = recordFactory.writeRecord(buffer, timestamp);
+            sequence++;
+            Assertions.assertEquals(1000, written);
+            JsonObject writtenMessage = message(Arrays.copyOf(buffer.array(), written));
+            Assertions.assertEquals(sequence, writtenMessage.getJsonNumber("sequence").longValue());
+        }
+    }
+
+    @Test
+    public void testPaddingDoesNotShrinkRecord() {
+        RecordFactory recordFactory = new RecordFactory(
+                "localhost",
+                "hostname",
+                "appname",
+                SESSION,
+                new AtomicLong(),
+                new PaddedPayload(new FixedSize(10), new byte[10])
+        );
+        JsonObject message = message(recordFactory.createRecord(Instant.ofEpochSecond(1700000000L, 0)));
+        Assertions.assertEquals("", message.getString("padding"));
+        Assertions.assertEquals(1L, message.getJsonNumber("sequence").longValue());
+    }
+
+    @Test
+    public void testSamplePayloadRoundRobin() {
+        String[] samples = new String[] {
+                "first sample", "quote\\\" second sample", "third"
+        };
+        RecordFactory recordFactory = new RecordFactory(
+                "localhost",
+                "hostname",
+                "appname",
+                SESSION,
+                new AtomicLong(),
+                new SamplePayload(
+                        Arrays
+                                .asList(
+                                        samples[0].getBytes(StandardCharsets.UTF_8),
+                                        samples[1].getBytes(StandardCharsets.UTF_8),
+                                        samples[2].getBytes(StandardCharsets.UTF_8)
+                                )
+                )
+        );
+        String[] expected = new String[] {
+                "first sample", "quote\" second sample", "third", "first sample"
+        };
+        for (int i = 0; i < expected.length; i++) {
+            JsonObject message = message(recordFactory.createRecord(Instant.ofEpochSecond(1700000000L, 0)));
+            Assertions.assertEquals(expected[i], message.getString("padding"));
+            Assertions.assertEquals(i + 1L, message.getJsonNumber("sequence").longValue());
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11;
+
+import com.codahale.metrics.MetricRegistry;
+import com.teragrep.cnf_01.PathConfiguration;
+import com.teragrep.net_01.channel.socket.TLSFactory;
+import com.teragrep.net_01.eventloop.EventLoop;
+import com.teragrep.net_01.eventloop.EventLoopFactory;
+import com.teragrep.net_01.server.Server;
+import com.teragrep.net_01.server.ServerFactory;
+import com.teragrep.rlp_01.RelpBatch;
+import com.teragrep.rlp_01.SSLContextFactory;
+import com.teragrep.rlp_03.frame.FrameDelegationClockFactory;
+import com.teragrep.rlp_03.frame.delegate.DefaultFrameDelegate;
+import com.teragrep.rlp_03.frame.delegate.FrameDelegate;
+import com.teragrep.rlp_11.Configuration.LoadConfiguration;
+import com.teragrep.rlp_11.Configuration.MetricsConfiguration;
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.metrics.MetricNames;
+import com.teragrep.rlp_11.transport.Transport;
+import com.teragrep.rlp_11.transport.TransportFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class TlsConnectionTest {
+
+    private final int serverPort = 12349;
+    private Thread eventLoopThread;
+    private EventLoop eventLoop;
+    private ThreadPoolExecutor threadPoolExecutor;
+    private final List<String> records = Collections.synchronizedList(new ArrayList<>());
+    private Server server;
+
+    @BeforeEach
+    public void startServer() {
+        EventLoopFactory eventLoopFactory = new EventLoopFactory();
+        eventLoop = Assertions.assertDoesNotThrow(eventLoopFactory::create);
+
+        eventLoopThread = new Thread(eventLoop);
+        eventLoopThread.start();
+
+        Supplier<FrameDelegate> frameDelegateSupplier = () -> new DefaultFrameDelegate(
+                (frameContext) -> records.add(frameContext.relpFrame().payload().toString())
+        );
+
+        threadPoolExecutor = new ThreadPoolExecutor(
+                1,
+                1,
+                Long.MAX_VALUE,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>()
+        );
+        SSLContext sslContext = Assertions
+                .assertDoesNotThrow(
+                        () -> SSLContextFactory
+                                .authenticatedContext("src/test/resources/tls/keystore-server.jks", "changeit", "TLSv1.3")
+                );
+        Function<SSLContext, SSLEngine> sslEngineFunction = context -> {
+            SSLEngine sslEngine = context.createSSLEngine();
+            sslEngine.setUseClientMode(false);
+            return sslEngine;
+        };
+        ServerFactory serverFactory = new ServerFactory(
+                eventLoop,
+                threadPoolExecutor,
+                new TLSFactory(sslContext, sslEngineFunction),
+                new FrameDelegationClockFactory(frameDelegateSupplier)
+        );
+        server = Assertions.assertDoesNotThrow(() -> serverFactory.create(serverPort));
+    }
+
+    @AfterEach
+    public void stopServer() {
+        eventLoop.stop();
+        threadPoolExecutor.shutdown();
+        Assertions.assertDoesNotThrow(() -> eventLoopThread.join());
+        Assertions.assertDoesNotThrow(server::close);
+        records.clear();
+    }
+
+    @Test
+    public void pipelinedTlsConnectionTest() {
+        Map<String, String> map = tlsConfig();
+        map.put("probe.mode", "pipelined");
+        map.put("probe.window", "4");
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final Probe probe = new ProbeFactory(
+                new ProbeConfiguration(map),
+                new MetricsConfiguration(map),
+                new LoadConfiguration(map),
+                metricRegistry
+        ).createProbe(new TargetConfiguration(map), new RecordFactory("localhost", "rlp_11", "rlp_11"));
+
+        TimerTask task = new TimerTask() {
+
+            public void run() {
+                probe.stop();
+            }
+        };
+        Timer timer = new Timer("Timer");
+        timer.schedule(task, 3_000L);
+
+        probe.start();
+
+        final long acknowledged = metricRegistry.counter("com.teragrep.rlp_11.PipelinedProbe.records").getCount();
+        Assertions.assertTrue(acknowledged > 0);
+        Assertions.assertTrue(records.size() >= acknowledged);
+        Assertions
+                .assertEquals(
+                        1,
+                        metricRegistry.counter("com.teragrep.rlp_11.PipelinedProbe.tlsFullHandshakes").getCount()
+                );
+        Assertions
+                .assertEquals(
+                        1,
+                        metricRegistry.timer("com.teragrep.rlp_11.PipelinedProbe.tlsHandshakeLatency").getCount()
+                );
+    }
+
+    @Test
+    public void sessionResumptionTest() {
+        Map<String, String> map = tlsConfig();
+        map.put("probe.transport", "instrumented");
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final Transport transport = new TransportFactory(
+                new TargetConfiguration(map),
+                new ProbeConfiguration(map),
+                new MetricsConfiguration(map),
+                metricRegistry
+        ).createTransport(new MetricNames(RelpProbe.class, ""));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertDoesNotThrow(() -> transport.connect("localhost", serverPort));
+            RelpBatch relpBatch = new RelpBatch();
+            relpBatch.insert(new RecordFactory("localhost", "rlp_11", "rlp_11").createRecord());
+            Assertions.assertDoesNotThrow(() -> transport.commit(relpBatch));
+            Assertions.assertTrue(relpBatch.verifyTransactionAll());
+            Assertions.assertDoesNotThrow(transport::disconnect);
+        }
+        transport.tearDown();
+
+        final long full = metricRegistry.counter("com.teragrep.rlp_11.RelpProbe.tlsFullHandshakes").getCount();
+        final long resumed = metricRegistry.counter("com.teragrep.rlp_11.RelpProbe.tlsResumedHandshakes").getCount();
+        Assertions.assertEquals(1, full);
+        Assertions.assertEquals(2, resumed);
+        Assertions
+                .assertEquals(
+                        2.0 / 3.0,
+                        (double) metricRegistry
+                                .getGauges()
+                                .get("com.teragrep.rlp_11.RelpProbe.tlsResumptionRatio")
+                                .getValue(),
+                        0.001
+                );
+    }
+
+    @Test
+    public void untrustedServerTest() {
+        Map<String, String> map = tlsConfig();
+        map.remove("target.tls.truststore");
+        map.put("probe.transport", "instrumented");
+        final Transport transport = new TransportFactory(
+                new TargetConfiguration(map),
+                new ProbeConfiguration(map),
+                new MetricsConfiguration(map),
+                new MetricRegistry()
+        ).createTransport(new MetricNames(RelpProbe.class, ""));
+        Assertions.assertThrows(Exception.class, () -> transport.connect("localhost", serverPort));
+        transport.tearDown();
+    }
+
+    private Map<String, String> tlsConfig() {
+        Map<String, String> map = new HashMap<>(
+                Assertions
+                        .assertDoesNotThrow(() -> new PathConfiguration("src/test/resources/connect.properties").asMap())
+        );
+        // the certificate is valid for localhost and 127.0.0.1
+        map.put("target.hostname", "localhost");
+        map.put("target.port", String.valueOf(serverPort));
+        map.put("target.tls.enabled", "true");
+        map.put("target.tls.truststore", "src/test/resources/tls/truststore.jks");
+        map.put("target.tls.truststore.password", "changeit");
+        return map;
+    }
+}
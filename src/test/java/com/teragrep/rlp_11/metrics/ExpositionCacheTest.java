@@ -0,0 +1,152 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.metrics;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import io.prometheus.client.CollectorRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+public class ExpositionCacheTest {
+
+    private static final class ManualClock extends Clock {
+
+        private long tick = TimeUnit.HOURS.toNanos(1);
+
+        private void advance(final long duration, final TimeUnit unit) {
+            tick += unit.toNanos(duration);
+        }
+
+        @Override
+        public long getTick() {
+            return tick;
+        }
+    }
+
+    @Test
+    public void testServedFromCacheWithinTtl() {
+        final ManualClock clock = new ManualClock();
+        final CollectorRegistry collectorRegistry = new CollectorRegistry();
+        final io.prometheus.client.Counter probes = io.prometheus.client.Counter
+                .build("probes", "probes")
+                .register(collectorRegistry);
+        final Counter hits = new Counter();
+        final Counter misses = new Counter();
+        final ExpositionCache expositionCache = new ExpositionCache(
+                collectorRegistry,
+                1,
+                TimeUnit.SECONDS,
+                hits,
+                misses,
+                new Timer(),
+                clock
+        );
+        final Exposition first = Assertions.assertDoesNotThrow(expositionCache::exposition);
+        Assertions.assertTrue(new String(first.text(), StandardCharsets.UTF_8).contains("probes_total 0.0"));
+
+        probes.inc();
+        clock.advance(999, TimeUnit.MILLISECONDS);
+        Assertions.assertSame(first, Assertions.assertDoesNotThrow(expositionCache::exposition));
+        Assertions.assertEquals(1, hits.getCount());
+        Assertions.assertEquals(1, misses.getCount());
+
+        clock.advance(1, TimeUnit.MILLISECONDS);
+        final Exposition second = Assertions.assertDoesNotThrow(expositionCache::exposition);
+        Assertions.assertTrue(new String(second.text(), StandardCharsets.UTF_8).contains("probes_total 1.0"));
+        Assertions.assertEquals(1, hits.getCount());
+        Assertions.assertEquals(2, misses.getCount());
+    }
+
+    @Test
+    public void testZeroTtlAlwaysRenders() {
+        final Counter hits = new Counter();
+        final Counter misses = new Counter();
+        final Timer renderDuration = new Timer();
+        final ExpositionCache expositionCache = new ExpositionCache(
+                new CollectorRegistry(),
+                0,
+                TimeUnit.SECONDS,
+                hits,
+                misses,
+                renderDuration,
+                new ManualClock()
+        );
+        Assertions.assertDoesNotThrow(expositionCache::exposition);
+        Assertions.assertDoesNotThrow(expositionCache::exposition);
+        Assertions.assertEquals(0, hits.getCount());
+        Assertions.assertEquals(2, misses.getCount());
+        Assertions.assertEquals(2, renderDuration.getCount());
+    }
+
+    @Test
+    public void testGzippedMatchesText() throws IOException {
+        final CollectorRegistry collectorRegistry = new CollectorRegistry();
+        io.prometheus.client.Gauge.build("window", "window").register(collectorRegistry).set(64);
+        final Exposition exposition = new ExpositionCache(
+                collectorRegistry,
+                1,
+                TimeUnit.SECONDS,
+                new Counter(),
+                new Counter(),
+                new Timer()
+        ).exposition();
+        final ByteArrayOutputStream gunzipped = new ByteArrayOutputStream();
+        try (final InputStream in = new GZIPInputStream(new ByteArrayInputStream(exposition.gzipped()))) {
+            in.transferTo(gunzipped);
+        }
+        Assertions.assertArrayEquals(exposition.text(), gunzipped.toByteArray());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.metrics;
+
+import com.codahale.metrics.Snapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class HdrReservoirTest {
+
+    @Test
+    public void testQuantiles() {
+        HdrReservoir reservoir = new HdrReservoir(10000);
+        for (long i = 1; i <= 1000; i++) {
+            reservoir.update(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        Snapshot snapshot = reservoir.getSnapshot();
+        Assertions.assertEquals(1000, snapshot.size());
+        // two significant digits
+        Assertions.assertEquals(500_000.0, snapshot.getMedian(), 500_000.0 * 0.01);
+        Assertions.assertEquals(990_000.0, snapshot.get99thPercentile(), 990_000.0 * 0.01);
+        Assertions.assertEquals(1_000_000.0, snapshot.getMax(), 1_000_000.0 * 0.01);
+        Assertions.assertEquals(1_000.0, snapshot.getMin(), 1_000.0 * 0.01);
+    }
+
+    @Test
+    public void testSnapshotsDoNotConsumeSamples() {
+        HdrReservoir reservoir = new HdrReservoir(10000);
+        reservoir.update(TimeUnit.MILLISECONDS.toNanos(5));
+        Assertions.assertEquals(1, reservoir.getSnapshot().size());
+        Assertions.assertEquals(1, reservoir.getSnapshot().size());
+    }
+
+    @Test
+    public void testOldSamplesRotateOut() {
+        HdrReservoir reservoir = new HdrReservoir(100);
+        for (int i = 0; i < 100; i++) {
+            reservoir.update(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        Assertions.assertEquals(100, reservoir.getSnapshot().size());
+        for (int i = 0; i < 100; i++) {
+            reservoir.update(TimeUnit.MILLISECONDS.toNanos(2));
+        }
+        Snapshot snapshot = reservoir.getSnapshot();
+        Assertions.assertEquals(100, snapshot.size());
+        Assertions.assertEquals(2_000_000.0, snapshot.getMin(), 2_000_000.0 * 0.01);
+    }
+
+    @Test
+    public void testOutOfRangeValuesAreClamped() {
+        HdrReservoir reservoir = new HdrReservoir(100);
+        Assertions.assertDoesNotThrow(() -> reservoir.update(-1L));
+        Assertions.assertDoesNotThrow(() -> reservoir.update(Long.MAX_VALUE));
+        Assertions.assertEquals(2, reservoir.getSnapshot().size());
+    }
+
+    @Test
+    public void testEmptySnapshot() {
+        Snapshot snapshot = new HdrReservoir(100).getSnapshot();
+        Assertions.assertEquals(0, snapshot.size());
+        Assertions.assertEquals(0L, snapshot.getMax());
+        Assertions.assertEquals(0.0, snapshot.getMedian());
+        Assertions.assertEquals(0, snapshot.getValues().length);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.Timer;
+import com.teragrep.rlp_11.RelpProbe;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.exporter.common.TextFormat;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public class HistogramExportsTest {
+
+    @Test
+    public void testBucketsAreCumulative() {
+        final LatencyBuckets latencyBuckets = new LatencyBuckets(new long[] {
+                1_000_000L, 10_000_000L
+        });
+        latencyBuckets.observe(500_000L);
+        latencyBuckets.observe(1_000_000L);
+        latencyBuckets.observe(5_000_000L);
+        latencyBuckets.observe(50_000_000L);
+        Assertions.assertArrayEquals(new long[] {
+                2, 3, 4
+        }, latencyBuckets.cumulativeCounts());
+        Assertions.assertEquals(56_500_000L, latencyBuckets.sum());
+    }
+
+    @Test
+    public void testTimerUpdatesBuckets() {
+        final BucketedTimer timer = new BucketedTimer(
+                new SlidingWindowReservoir(10),
+                new LatencyBuckets(new long[] {
+                        1_000_000L
+                })
+        );
+        timer.update(1, TimeUnit.MILLISECONDS);
+        timer.update(Duration.ofSeconds(1));
+        timer.time(() -> {
+        });
+        timer.time().stop();
+        Assertions.assertEquals(4, timer.getCount());
+        Assertions.assertEquals(4, timer.latencyBuckets().cumulativeCounts()[1]);
+        Assertions.assertEquals(3, timer.latencyBuckets().cumulativeCounts()[0]);
+    }
+
+    @Test
+    public void testExportedWithTargetLabel() throws IOException {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        for (final String target : new String[] {
+                "first", "second"
+        }) {
+            final Timer timer = metricRegistry
+                    .timer(
+                            new MetricNames(RelpProbe.class, target).name("sendLatency"),
+                            () -> new BucketedTimer(new SlidingWindowReservoir(10), new LatencyBuckets(new long[] {
+                                    1_000_000L, 2_500_000L
+                            }))
+                    );
+            timer.update(2, TimeUnit.MILLISECONDS);
+        }
+        // timers without buckets are left to DropwizardExports
+        metricRegistry.timer(MetricRegistry.name(RelpProbe.class, "connectLatency")).update(1, TimeUnit.SECONDS);
+        final CollectorRegistry collectorRegistry = new CollectorRegistry();
+        collectorRegistry.register(new HistogramExports(metricRegistry, new TargetSampleBuilder()));
+        final StringWriter writer = new StringWriter();
+        TextFormat.write004(writer, collectorRegistry.metricFamilySamples());
+        final String exposition = writer.toString();
+
+        Assertions.assertTrue(exposition.contains("# TYPE com_teragrep_rlp_11_RelpProbe_sendLatency_seconds histogram\n"));
+        Assertions
+                .assertTrue(
+                        exposition
+                                .contains(
+                                        "com_teragrep_rlp_11_RelpProbe_sendLatency_seconds_bucket{target=\"first\",le=\"0.001\",} 0.0\n"
+                                )
+                );
+        Assertions
+                .assertTrue(
+                        exposition
+                                .contains(
+                                        "com_teragrep_rlp_11_RelpProbe_sendLatency_seconds_bucket{target=\"second\",le=\"0.0025\",} 1.0\n"
+                                )
+                );
+        Assertions
+                .assertTrue(
+                        exposition
+                                .contains(
+                                        "com_teragrep_rlp_11_RelpProbe_sendLatency_seconds_bucket{target=\"second\",le=\"+Inf\",} 1.0\n"
+                                )
+                );
+        Assertions
+                .assertTrue(
+                        exposition
+                                .contains(
+                                        "com_teragrep_rlp_11_RelpProbe_sendLatency_seconds_count{target=\"first\",} 1.0\n"
+                                )
+                );
+        Assertions
+                .assertTrue(
+                        exposition
+                                .contains(
+                                        "com_teragrep_rlp_11_RelpProbe_sendLatency_seconds_sum{target=\"first\",} 0.002\n"
+                                )
+                );
+        Assertions.assertFalse(exposition.contains("connectLatency"));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.metrics;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Snapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class TimeWindowReservoirTest {
+
+    private static final class ManualClock extends Clock {
+
+        private long tick = TimeUnit.HOURS.toNanos(1);
+
+        private void advance(final long duration, final TimeUnit unit) {
+            tick += unit.toNanos(duration);
+        }
+
+        @Override
+        public long getTick() {
+            return tick;
+        }
+    }
+
+    @Test
+    public void testSamplesWithinWindow() {
+        ManualClock clock = new ManualClock();
+        TimeWindowReservoir reservoir = new TimeWindowReservoir(10, TimeUnit.SECONDS, clock);
+        for (int second = 0; second < 10; second++) {
+            for (int i = 0; i < 100; i++) {
+                reservoir.update(TimeUnit.MILLISECONDS.toNanos(second + 1));
+            }
+            clock.advance(1, TimeUnit.SECONDS);
+        }
+        Snapshot snapshot = reservoir.getSnapshot();
+        Assertions.assertEquals(900, snapshot.size());
+        Assertions.assertEquals(2_000_000.0, snapshot.getMin(), 2_000_000.0 * 0.01);
+        Assertions.assertEquals(10_000_000.0, snapshot.getMax(), 10_000_000.0 * 0.01);
+    }
+
+    @Test
+    public void testSamplesExpire() {
+        ManualClock clock = new ManualClock();
+        TimeWindowReservoir reservoir = new TimeWindowReservoir(10, TimeUnit.SECONDS, clock);
+        reservoir.update(TimeUnit.MILLISECONDS.toNanos(1));
+        Assertions.assertEquals(1, reservoir.getSnapshot().size());
+        clock.advance(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(1, reservoir.getSnapshot().size());
+        clock.advance(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(0, reservoir.getSnapshot().size());
+    }
+
+    @Test
+    public void testSnapshotsDoNotConsumeSamples() {
+        ManualClock clock = new ManualClock();
+        TimeWindowReservoir reservoir = new TimeWindowReservoir(60, TimeUnit.SECONDS, clock);
+        reservoir.update(TimeUnit.MILLISECONDS.toNanos(1));
+        clock.advance(1, TimeUnit.SECONDS);
+        reservoir.update(TimeUnit.MILLISECONDS.toNanos(2));
+        Assertions.assertEquals(2, reservoir.getSnapshot().size());
+        Assertions.assertEquals(2, reservoir.getSnapshot().size());
+    }
+
+    @Test
+    public void testLongWindowUsesWiderBuckets() {
+        ManualClock clock = new ManualClock();
+        TimeWindowReservoir reservoir = new TimeWindowReservoir(1, TimeUnit.HOURS, clock);
+        for (int minute = 0; minute < 120; minute++) {
+            reservoir.update(TimeUnit.MILLISECONDS.toNanos(1));
+            clock.advance(1, TimeUnit.MINUTES);
+        }
+        int size = reservoir.getSnapshot().size();
+        Assertions.assertTrue(size >= 59 && size <= 60, "size was " + size);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.receiver;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.codahale.metrics.Timer;
+import com.teragrep.rlp_11.RecordFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ReceivedRecordsTest {
+
+    private final Counter received = new Counter();
+    private final Counter invalid = new Counter();
+    private final Counter lost = new Counter();
+    private final Counter duplicates = new Counter();
+    private final Counter reordered = new Counter();
+    private final Counter late = new Counter();
+    private final Timer endToEndLatency = new Timer(new SlidingWindowReservoir(100));
+    private final ReceivedRecords receivedRecords = new ReceivedRecords(
+            received,
+            invalid,
+            lost,
+            duplicates,
+            reordered,
+            late,
+            endToEndLatency
+    );
+    private final AtomicLong sequence = new AtomicLong();
+    private final RecordFactory recordFactory = new RecordFactory(
+            "localhost",
+            "rlp_11",
+            "rlp_11",
+            "session",
+            sequence
+    );
+
+    private String payload(final Instant timestamp) {
+        return new String(recordFactory.createRecord(timestamp), StandardCharsets.UTF_8);
+    }
+
+    private String payload(final Instant timestamp, final long recordSequence) {
+        sequence.set(recordSequence - 1);
+        return payload(timestamp);
+    }
+
+    @Test
+    public void testProbeRecord() {
+        Instant timestamp = Instant.ofEpochSecond(1700000000L, 7);
+        ProbeRecord probeRecord = new ProbeRecord(payload(timestamp));
+        Assertions.assertEquals("localhost", probeRecord.origin());
+        Assertions.assertEquals(timestamp, probeRecord.timestamp());
+        Assertions.assertEquals("session", probeRecord.session());
+        Assertions.assertEquals(1L, probeRecord.sequence());
+    }
+
+    @Test
+    public void testEndToEndLatency() {
+        Instant timestamp = Instant.ofEpochSecond(1700000000L, 0);
+        receivedRecords.accept(payload(timestamp), timestamp.plusMillis(250));
+        Assertions.assertEquals(1, received.getCount());
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(250), endToEndLatency.getSnapshot().getMax());
+    }
+
+    @Test
+    public void testSequence() {
+        Instant timestamp = Instant.ofEpochSecond(1700000000L, 0);
+        receivedRecords.accept(payload(timestamp, 1L), timestamp);
+        receivedRecords.accept(payload(timestamp, 3L), timestamp);
+        receivedRecords.accept(payload(timestamp, 2L), timestamp);
+        receivedRecords.accept(payload(timestamp, 2L), timestamp);
+        Assertions.assertEquals(4, received.getCount());
+        Assertions.assertEquals(1, reordered.getCount());
+        Assertions.assertEquals(1, duplicates.getCount());
+        Assertions.assertEquals(0, lost.getCount());
+    }
+
+    @Test
+    public void testSessionsAreTrackedSeparately() {
+        Instant timestamp = Instant.ofEpochSecond(1700000000L, 0);
+        RecordFactory other = new RecordFactory("localhost", "rlp_11", "rlp_11", "other", new AtomicLong());
+        receivedRecords.accept(payload(timestamp), timestamp);
+        receivedRecords.accept(new String(other.createRecord(timestamp), StandardCharsets.UTF_8), timestamp);
+        receivedRecords.accept(payload(timestamp), timestamp);
+        receivedRecords.accept(new String(other.createRecord(timestamp), StandardCharsets.UTF_8), timestamp);
+        Assertions.assertEquals(4, received.getCount());
+        Assertions.assertEquals(0, reordered.getCount());
+        Assertions.assertEquals(0, duplicates.getCount());
+    }
+
+    @Test
+    public void testInvalid() {
+        receivedRecords.accept("<14>1 2024-01-01T00:00:00Z host app - - - not a probe record", Instant.now());
+        receivedRecords.accept("<14>1 2024-01-01T00:00:00Z host app - - - {\"origin\":\"x\"}", Instant.now());
+        receivedRecords
+                .accept(
+                        "<14>1 2024-01-01T00:00:00Z host app - - - {\"origin\":\"x\",\"timestamp\":\"x\"}",
+                        Instant.now()
+                );
+        receivedRecords.accept("<14>1 2024-01-01T00:00:00Z host app - - - {\"origin\":", Instant.now());
+        receivedRecords
+                .accept(
+                        "<14>1 2024-01-01T00:00:00Z host app - - - "
+                                + "{\"origin\":\"x\",\"timestamp\":\"1.0\",\"session\":\"s\"}",
+                        Instant.now()
+                );
+        Assertions.assertEquals(0, received.getCount());
+        Assertions.assertEquals(5, invalid.getCount());
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.receiver;
+
+import com.codahale.metrics.Counter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SequenceTrackerTest {
+
+    private final Counter lost = new Counter();
+    private final Counter duplicates = new Counter();
+    private final Counter reordered = new Counter();
+    private final Counter late = new Counter();
+    private final SequenceTracker sequenceTracker = new SequenceTracker(64, lost, duplicates, reordered, late);
+
+    @Test
+    public void testInOrder() {
+        for (long sequence = 1; sequence <= 1000; sequence++) {
+            sequenceTracker.accept(sequence);
+        }
+        assertCounts(0, 0, 0, 0);
+    }
+
+    @Test
+    public void testStartsMidStream() {
+        for (long sequence = 500; sequence <= 1000; sequence++) {
+            sequenceTracker.accept(sequence);
+        }
+        assertCounts(0, 0, 0, 0);
+    }
+
+    @Test
+    public void testDuplicates() {
+        for (long sequence = 1; sequence <= 10; sequence++) {
+            sequenceTracker.accept(sequence);
+            sequenceTracker.accept(sequence);
+        }
+        assertCounts(0, 10, 0, 0);
+    }
+
+    @Test
+    public void testReordered() {
+        sequenceTracker.accept(1);
+        sequenceTracker.accept(3);
+        sequenceTracker.accept(2);
+        sequenceTracker.accept(2);
+        assertCounts(0, 1, 1, 0);
+    }
+
+    @Test
+    public void testLostWhenSlidingOut() {
+        sequenceTracker.accept(1);
+        sequenceTracker.accept(3);
+        assertCounts(0, 0, 0, 0);
+        for (long sequence = 4; sequence <= 66; sequence++) {
+            sequenceTracker.accept(sequence);
+        }
+        assertCounts(1, 0, 0, 0);
+        sequenceTracker.accept(2);
+        assertCounts(1, 0, 0, 1);
+    }
+
+    @Test
+    public void testLostOverLargeGap() {
+        sequenceTracker.accept(1);
+        sequenceTracker.accept(2);
+        sequenceTracker.accept(1002);
+        // 3..938 slid out unseen, 939..1001 are still inside the window
+        assertCounts(936, 0, 0, 0);
+        for (long sequence = 939; sequence <= 1001; sequence++) {
+            sequenceTracker.accept(sequence);
+        }
+        assertCounts(936, 0, 63, 0);
+    }
+
+    private void assertCounts(final long lost, final long duplicates, final long reordered, final long late) {
+        Assertions.assertEquals(lost, this.lost.getCount());
+        Assertions.assertEquals(duplicates, this.duplicates.getCount());
+        Assertions.assertEquals(reordered, this.reordered.getCount());
+        Assertions.assertEquals(late, this.late.getCount());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.reconnect;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpensAfterMaxAttempts() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(new DecorrelatedJitterBackoff(10, 10), 3, 60000, 10);
+        circuitBreaker.failed();
+        circuitBreaker.failed();
+        Assertions.assertEquals(CircuitBreaker.CLOSED, circuitBreaker.state());
+        Assertions.assertEquals(10L, circuitBreaker.delay());
+        Assertions.assertEquals(0L, circuitBreaker.blocked());
+        circuitBreaker.failed();
+        Assertions.assertEquals(CircuitBreaker.OPEN, circuitBreaker.state());
+        Assertions.assertEquals(0L, circuitBreaker.delay());
+        Assertions.assertTrue(circuitBreaker.blocked() > 59000L);
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(new DecorrelatedJitterBackoff(10, 10), 2, 60000, 10);
+        circuitBreaker.failed();
+        circuitBreaker.succeeded();
+        circuitBreaker.failed();
+        Assertions.assertEquals(CircuitBreaker.CLOSED, circuitBreaker.state());
+    }
+
+    @Test
+    public void testHalfOpenAllowsSingleAttempt() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(new DecorrelatedJitterBackoff(10, 10), 1, 50, 10);
+        circuitBreaker.failed();
+        Assertions.assertEquals(CircuitBreaker.OPEN, circuitBreaker.state());
+        Thread.sleep(60);
+        Assertions.assertEquals(0L, circuitBreaker.blocked());
+        Assertions.assertEquals(CircuitBreaker.HALF_OPEN, circuitBreaker.state());
+        // other connections wait for the outcome of the attempt
+        Assertions.assertEquals(10L, circuitBreaker.blocked());
+        circuitBreaker.failed();
+        Assertions.assertEquals(CircuitBreaker.OPEN, circuitBreaker.state());
+        Thread.sleep(60);
+        Assertions.assertEquals(0L, circuitBreaker.blocked());
+        circuitBreaker.succeeded();
+        Assertions.assertEquals(CircuitBreaker.CLOSED, circuitBreaker.state());
+        Assertions.assertEquals(0L, circuitBreaker.blocked());
+    }
+
+    @Test
+    public void testHalfOpenRechecksOtherCallers() throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(new DecorrelatedJitterBackoff(10, 10), 1, 300, 20);
+        circuitBreaker.failed();
+        Thread.sleep(310);
+        // the first caller makes the trial connect
+        Assertions.assertEquals(0L, circuitBreaker.blocked());
+        // the second caller checks back after the recheck interval instead of another open time
+        final long secondCaller = circuitBreaker.blocked();
+        Assertions.assertEquals(20L, secondCaller);
+        circuitBreaker.succeeded();
+        Thread.sleep(secondCaller);
+        Assertions.assertEquals(0L, circuitBreaker.blocked());
+        Assertions.assertEquals(CircuitBreaker.CLOSED, circuitBreaker.state());
+    }
+
+    @Test
+    public void testBackoffIsJitteredAndCapped() {
+        DecorrelatedJitterBackoff backoff = new DecorrelatedJitterBackoff(100, 5000);
+        long previous = 100;
+        for (int i = 0; i < 1000; i++) {
+            long delay = backoff.delay();
+            Assertions.assertTrue(delay >= 100 && delay <= Math.min(5000, previous * 3), "delay " + delay);
+            previous = delay;
+        }
+        backoff.succeeded();
+        Assertions.assertTrue(backoff.delay() <= 300);
+    }
+}
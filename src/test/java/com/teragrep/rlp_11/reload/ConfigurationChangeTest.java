@@ -0,0 +1,106 @@
+package com.teragrep.rlp_11.reload;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+public class ConfigurationChangeTest {
+
+    @Test
+    public void testUnchanged() {
+        ConfigurationChange change = new ConfigurationChange(baseConfig(), baseConfig());
+        Assertions.assertTrue(change.changedKeys().isEmpty());
+        Assertions.assertFalse(change.allTargets());
+        Assertions.assertFalse(change.target("first"));
+    }
+
+    @Test
+    public void testLiveKeys() {
+        Map<String, String> next = baseConfig();
+        next.put("probe.interval", "500");
+        next.put("target.first.timeout.commit", "2000");
+        ConfigurationChange change = new ConfigurationChange(baseConfig(), next);
+        Assertions
+                .assertEquals(
+                        new TreeSet<>(Arrays.asList("probe.interval", "target.first.timeout.commit")),
+                        change.changedKeys()
+                );
+        Assertions.assertFalse(change.allTargets());
+        Assertions.assertFalse(change.target("first"));
+        Assertions.assertFalse(change.reservoirs());
+        Assertions.assertTrue(change.startupKeys().isEmpty());
+    }
+
+    @Test
+    public void testTargetKeys() {
+        Map<String, String> next = baseConfig();
+        next.put("target.second.port", "1603");
+        ConfigurationChange change = new ConfigurationChange(baseConfig(), next);
+        Assertions.assertFalse(change.allTargets());
+        Assertions.assertFalse(change.target("first"));
+        Assertions.assertTrue(change.target("second"));
+        next.put("target.first.timeout.connect", "5000");
+        Assertions.assertTrue(new ConfigurationChange(baseConfig(), next).target("first"));
+    }
+
+    @Test
+    public void testProbeKeys() {
+        Map<String, String> next = baseConfig();
+        next.put("probe.mode", "pipelined");
+        ConfigurationChange change = new ConfigurationChange(baseConfig(), next);
+        Assertions.assertTrue(change.allTargets());
+        Assertions.assertFalse(change.reservoirs());
+    }
+
+    @Test
+    public void testMetricsKeys() {
+        Map<String, String> next = baseConfig();
+        next.put("metrics.reservoir", "hdr");
+        ConfigurationChange change = new ConfigurationChange(baseConfig(), next);
+        Assertions.assertTrue(change.allTargets());
+        Assertions.assertTrue(change.reservoirs());
+    }
+
+    @Test
+    public void testStartupKeys() {
+        Map<String, String> next = baseConfig();
+        next.put("metrics.interval", "30");
+        next.put("prometheus.port", "9090");
+        next.remove("record.appname");
+        ConfigurationChange change = new ConfigurationChange(baseConfig(), next);
+        Assertions
+                .assertEquals(Arrays.asList("metrics.interval", "prometheus.port", "record.appname"), change.startupKeys());
+        Assertions.assertFalse(change.allTargets());
+        Assertions.assertFalse(change.reservoirs());
+    }
+
+    @Test
+    public void testRemovedTarget() {
+        Map<String, String> next = baseConfig();
+        next.put("target.names", "first");
+        ConfigurationChange change = new ConfigurationChange(baseConfig(), next);
+        Assertions.assertEquals(Collections.singleton("target.names"), change.changedKeys());
+        Assertions.assertFalse(change.target("first"));
+    }
+
+    private Map<String, String> baseConfig() {
+        Map<String, String> map = new HashMap<>();
+        map.put("probe.interval", "1000");
+        map.put("probe.mode", "interval");
+        map.put("metrics.interval", "60");
+        map.put("metrics.reservoir", "sliding");
+        map.put("prometheus.port", "8080");
+        map.put("record.appname", "rlp_11");
+        map.put("target.names", "first,second");
+        map.put("target.first.hostname", "localhost");
+        map.put("target.first.port", "1601");
+        map.put("target.second.hostname", "localhost");
+        map.put("target.second.port", "1602");
+        return map;
+    }
+}
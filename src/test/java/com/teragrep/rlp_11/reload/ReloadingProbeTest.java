@@ -0,0 +1,127 @@
+package com.teragrep.rlp_11.reload;
+
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.Probe;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ReloadingProbeTest {
+
+    @Test
+    public void testReloadsChangedTargets() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("rlp_11");
+        Path path = Files.write(directory.resolve("rlp_11.properties"), "initial".getBytes());
+        AtomicReference<Map<String, String>> source = new AtomicReference<>(baseConfig());
+        ReloadableMap map = new ReloadableMap(source.get());
+        List<String> started = Collections.synchronizedList(new ArrayList<>());
+        List<String> stopped = Collections.synchronizedList(new ArrayList<>());
+        MetricRegistry metricRegistry = new MetricRegistry();
+        metricRegistry.counter("com.teragrep.rlp_11.RelpProbe.records.target.second");
+        metricRegistry.counter("com.teragrep.rlp_11.RelpProbe.records.target.first");
+        ReloadingProbe reloadingProbe = new ReloadingProbe(
+                map,
+                source::get,
+                path,
+                targetConfiguration -> new FakeProbe(targetConfiguration, started, stopped),
+                metricRegistry,
+                MetricFilter.ALL,
+                Executors.newCachedThreadPool()
+        );
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        executorService.submit(reloadingProbe::start);
+        awaitSize(started, 2);
+        // the directory is watched once the probes are started
+        Thread.sleep(500);
+        // a live key and a key of the removed target
+        Map<String, String> next = baseConfig();
+        next.put("probe.interval", "500");
+        next.put("target.names", "first");
+        source.set(next);
+        Files.write(path, "changed".getBytes());
+        awaitSize(stopped, 1);
+        Assertions.assertEquals(Collections.singletonList("second"), stopped);
+        // the metrics are removed after the probe stopped
+        Thread.sleep(100);
+        Assertions.assertEquals("500", map.get("probe.interval"));
+        Assertions
+                .assertEquals(
+                        Collections.singleton("com.teragrep.rlp_11.RelpProbe.records.target.first"),
+                        metricRegistry.getNames()
+                );
+        // an invalid configuration is rejected as a whole
+        Map<String, String> invalid = new HashMap<>(next);
+        invalid.put("target.first.port", "-1");
+        source.set(invalid);
+        Files.write(path, "invalid".getBytes());
+        Thread.sleep(1000);
+        Assertions.assertEquals("1601", map.get("target.first.port"));
+        Assertions.assertEquals(2, started.size());
+        reloadingProbe.stop();
+        executorService.shutdown();
+        Assertions.assertEquals(2, stopped.size());
+        Files.delete(path);
+        Files.delete(directory);
+    }
+
+    private void awaitSize(List<String> list, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (list.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(size, list.size());
+    }
+
+    private Map<String, String> baseConfig() {
+        Map<String, String> map = new HashMap<>();
+        map.put("reload.enabled", "true");
+        map.put("probe.interval", "1000");
+        map.put("metrics.window", "1024");
+        map.put("metrics.interval", "60");
+        map.put("target.names", "first,second");
+        map.put("target.first.hostname", "localhost");
+        map.put("target.first.port", "1601");
+        map.put("target.first.reconnectinterval", "1000");
+        map.put("target.second.hostname", "localhost");
+        map.put("target.second.port", "1602");
+        map.put("target.second.reconnectinterval", "1000");
+        return map;
+    }
+
+    private static final class FakeProbe implements Probe {
+
+        private final TargetConfiguration targetConfiguration;
+        private final List<String> started;
+        private final List<String> stopped;
+
+        private FakeProbe(TargetConfiguration targetConfiguration, List<String> started, List<String> stopped) {
+            this.targetConfiguration = targetConfiguration;
+            this.started = started;
+            this.stopped = stopped;
+        }
+
+        @Override
+        public void start() {
+            started.add(targetConfiguration.name());
+        }
+
+        @Override
+        public void stop() {
+            stopped.add(targetConfiguration.name());
+        }
+    }
+}
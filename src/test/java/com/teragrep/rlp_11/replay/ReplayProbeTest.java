@@ -0,0 +1,147 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.replay;
+
+import com.codahale.metrics.MetricRegistry;
+import com.teragrep.rlp_11.Configuration.ConfigurationException;
+import com.teragrep.rlp_11.Configuration.LoadConfiguration;
+import com.teragrep.rlp_11.Configuration.MetricsConfiguration;
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import com.teragrep.rlp_11.Configuration.ReplayConfiguration;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.Probe;
+import com.teragrep.rlp_11.ProbeFactory;
+import com.teragrep.rlp_11.RecordFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ReplayProbeTest {
+
+    private Path path;
+
+    @BeforeEach
+    public void createFile() {
+        path = Assertions.assertDoesNotThrow(() -> Files.createTempFile("rlp_11", ".trace"));
+    }
+
+    @AfterEach
+    public void deleteFile() {
+        Assertions.assertDoesNotThrow(() -> Files.deleteIfExists(path));
+    }
+
+    @Test
+    public void testTraceClosedAfterLoop() throws IOException {
+        Files.write(path, "10 1\n".getBytes(StandardCharsets.UTF_8));
+        Trace trace = new Trace(path);
+        Probe probe = new ReplayProbe(new Probe() {
+
+            @Override
+            public void start() {
+                Assertions.assertDoesNotThrow(trace::advance);
+            }
+
+            @Override
+            public void stop() {
+                // nothing to stop
+            }
+        }, trace);
+        probe.start();
+        Assertions.assertThrows(IOException.class, trace::advance);
+    }
+
+    @Test
+    public void testTraceWithoutRecordsRejected() throws IOException {
+        Files.write(path, "# no records\n".getBytes(StandardCharsets.UTF_8));
+        Map<String, String> map = baseConfig();
+        ProbeFactory probeFactory = new ProbeFactory(
+                new ProbeConfiguration(map),
+                new MetricsConfiguration(map),
+                new LoadConfiguration(map),
+                new ReplayConfiguration(map),
+                new MetricRegistry()
+        );
+        RecordFactory recordFactory = new RecordFactory("localhost", "rlp_11", "rlp_11");
+        TargetConfiguration targetConfiguration = new TargetConfiguration(map);
+        Assertions
+                .assertThrowsExactly(
+                        ConfigurationException.class, () -> probeFactory.createProbe(targetConfiguration, recordFactory)
+                );
+    }
+
+    @Test
+    public void testReplayProbeCreated() throws IOException {
+        Files.write(path, "10 1\n".getBytes(StandardCharsets.UTF_8));
+        Map<String, String> map = baseConfig();
+        Probe probe = new ProbeFactory(
+                new ProbeConfiguration(map),
+                new MetricsConfiguration(map),
+                new LoadConfiguration(map),
+                new ReplayConfiguration(map),
+                new MetricRegistry()
+        ).createProbe(new TargetConfiguration(map), new RecordFactory("localhost", "rlp_11", "rlp_11"));
+        Assertions.assertEquals(ReplayProbe.class, probe.getClass());
+    }
+
+    private Map<String, String> baseConfig() {
+        Map<String, String> map = new HashMap<>();
+        map.put("probe.mode", "replay");
+        map.put("replay.path", path.toString());
+        map.put("metrics.window", "10000");
+        map.put("target.hostname", "127.0.0.1");
+        map.put("target.port", "12345");
+        map.put("target.reconnectinterval", "1000");
+        return map;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.replay;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ReplayScheduleTest {
+
+    private Path path;
+
+    @BeforeEach
+    public void createFile() {
+        path = Assertions.assertDoesNotThrow(() -> Files.createTempFile("rlp_11", ".trace"));
+    }
+
+    @AfterEach
+    public void deleteFile() {
+        Assertions.assertDoesNotThrow(() -> Files.deleteIfExists(path));
+    }
+
+    @Test
+    public void testGapsAreScaled() throws IOException, InterruptedException {
+        Files.write(path, "10 1\n10.5 1\n12 1\n11 1\n".getBytes(StandardCharsets.UTF_8));
+        try (Trace trace = new Trace(path)) {
+            ReplaySchedule replaySchedule = new ReplaySchedule(trace, 10);
+            long first = replaySchedule.next();
+            Assertions.assertEquals(50_000_000L, replaySchedule.next() - first);
+            Assertions.assertEquals(200_000_000L, replaySchedule.next() - first);
+            // out of order record is sent right after the previous one
+            Assertions.assertEquals(200_000_000L, replaySchedule.next() - first);
+            // starting over continues from the last record without waiting
+            long restart = replaySchedule.next();
+            Assertions.assertTrue(restart - first >= 200_000_000L);
+            Assertions.assertTrue(System.nanoTime() - restart < 50_000_000L);
+            Assertions.assertEquals(50_000_000L, replaySchedule.next() - restart);
+            Assertions.assertEquals(0L, replaySchedule.expectedInterval());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.replay;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class TraceTest {
+
+    private Path path;
+
+    @BeforeEach
+    public void createFile() {
+        path = Assertions.assertDoesNotThrow(() -> Files.createTempFile("rlp_11", ".trace"));
+    }
+
+    @AfterEach
+    public void deleteFile() {
+        Assertions.assertDoesNotThrow(() -> Files.deleteIfExists(path));
+    }
+
+    private Trace trace(final String content, final int windowSize) throws IOException {
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return new Trace(path, FileChannel.open(path, StandardOpenOption.READ), windowSize);
+    }
+
+    private String payload(final Trace trace) {
+        ByteBuffer buffer = ByteBuffer.allocate(trace.payloadLength());
+        trace.writePayload(buffer);
+        Assertions.assertFalse(buffer.hasRemaining());
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRecordsAreRead() throws IOException {
+        try (Trace trace = trace("# seconds size payload\n0 512\n0.25\t1024 hello world\n\n12.000000001 64\r\n", 1024)) {
+            trace.advance();
+            Assertions.assertEquals(0L, trace.offset());
+            Assertions.assertEquals(512, trace.size());
+            Assertions.assertFalse(trace.hasPayload());
+            trace.advance();
+            Assertions.assertEquals(250_000_000L, trace.offset());
+            Assertions.assertEquals(1024, trace.size());
+            Assertions.assertTrue(trace.hasPayload());
+            Assertions.assertEquals("hello world", payload(trace));
+            trace.advance();
+            Assertions.assertEquals(12_000_000_001L, trace.offset());
+            Assertions.assertEquals(64, trace.size());
+            Assertions.assertFalse(trace.hasPayload());
+            Assertions.assertEquals(0L, trace.passes());
+        }
+    }
+
+    @Test
+    public void testTraceStartsOver() throws IOException {
+        try (Trace trace = trace("1 10\n2 20", 1024)) {
+            trace.advance();
+            trace.advance();
+            Assertions.assertEquals(20, trace.size());
+            trace.advance();
+            Assertions.assertEquals(1L, trace.passes());
+            Assertions.assertEquals(1_000_000_000L, trace.offset());
+            Assertions.assertEquals(10, trace.size());
+        }
+    }
+
+    @Test
+    public void testLinesAcrossWindows() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append(i).append(".5 ").append(i + 1).append(" payload").append(i).append('\n');
+        }
+        try (Trace trace = trace(content.toString(), 32)) {
+            for (int i = 0; i < 100; i++) {
+                trace.advance();
+                Assertions.assertEquals(i * 1_000_000_000L + 500_000_000L, trace.offset());
+                Assertions.assertEquals(i + 1, trace.size());
+                Assertions.assertEquals("payload" + i, payload(trace));
+            }
+            Assertions.assertEquals(0L, trace.passes());
+        }
+    }
+
+    @Test
+    public void testTooLongLine() throws IOException {
+        try (Trace trace = trace("0 10 this payload does not fit in the window\n", 16)) {
+            Assertions.assertThrowsExactly(IOException.class, trace::advance);
+        }
+    }
+
+    @Test
+    public void testPayloadIsEscaped() throws IOException {
+        try (Trace trace = trace("0 10 quote\" backslash\\ tab\tend\n", 1024)) {
+            trace.advance();
+            Assertions.assertEquals("quote\\\" backslash\\\\ tab\\u0009end", payload(trace));
+        }
+    }
+
+    @Test
+    public void testInvalidLinesAreSkipped() throws IOException {
+        try (Trace trace = trace("abc 10\n1 x\n2 65537\n3\n4 40\n", 1024)) {
+            trace.advance();
+            Assertions.assertEquals(4_000_000_000L, trace.offset());
+            Assertions.assertEquals(40, trace.size());
+        }
+    }
+
+    @Test
+    public void testTraceWithoutRecords() throws IOException {
+        try (Trace trace = trace("# nothing here\n", 1024)) {
+            Assertions.assertThrowsExactly(IOException.class, trace::advance);
+        }
+    }
+}
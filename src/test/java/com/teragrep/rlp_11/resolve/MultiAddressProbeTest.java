@@ -0,0 +1,125 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.resolve;
+
+import com.codahale.metrics.MetricRegistry;
+import com.teragrep.rlp_11.Configuration.TargetConfiguration;
+import com.teragrep.rlp_11.Probe;
+import com.teragrep.rlp_11.RelpProbe;
+import com.teragrep.rlp_11.metrics.MetricNames;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MultiAddressProbeTest {
+
+    @Test
+    public void testMetricsOfDroppedAddressRemoved() throws InterruptedException {
+        final InetAddress first = Assertions.assertDoesNotThrow(() -> InetAddress.getByName("192.0.2.1"));
+        final InetAddress second = Assertions.assertDoesNotThrow(() -> InetAddress.getByName("192.0.2.2"));
+        final AtomicInteger resolves = new AtomicInteger();
+        // the second address is only returned by the first resolve
+        final AddressCache addressCache = new AddressCache("backends", 50L, hostname -> {
+            final InetAddress[] addresses;
+            if (resolves.getAndIncrement() == 0) {
+                addresses = new InetAddress[] {
+                        first, second
+                };
+            }
+            else {
+                addresses = new InetAddress[] {
+                        first
+                };
+            }
+            return addresses;
+        });
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        // another target probing the same address keeps its metrics
+        metricRegistry.counter(new MetricNames(RelpProbe.class, "other", "192.0.2.2").name("records"));
+        final MultiAddressProbe multiAddressProbe = new MultiAddressProbe(
+                new TargetConfiguration(new HashMap<>(), "first"),
+                addressCache,
+                address -> {
+                    metricRegistry.counter(new MetricNames(RelpProbe.class, "first", address).name("records"));
+                    return new Probe() {
+
+                        private final CountDownLatch stopped = new CountDownLatch(1);
+
+                        @Override
+                        public void start() {
+                            Assertions.assertDoesNotThrow(() -> stopped.await());
+                        }
+
+                        @Override
+                        public void stop() {
+                            stopped.countDown();
+                        }
+                    };
+                },
+                Executors.newCachedThreadPool(),
+                metricRegistry
+        );
+        final Thread thread = new Thread(multiAddressProbe::start);
+        thread.start();
+        final String dropped = "com.teragrep.rlp_11.RelpProbe.records.target.first.address.192_0_2_2";
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (resolves.get() < 2 || metricRegistry.getNames().contains(dropped)) {
+            Assertions.assertTrue(System.nanoTime() - deadline < 0, "metrics of the dropped address were not removed");
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(metricRegistry.getNames().contains("com.teragrep.rlp_11.RelpProbe.records.target.first.address.192_0_2_1"));
+        Assertions.assertTrue(metricRegistry.getNames().contains("com.teragrep.rlp_11.RelpProbe.records.target.other.address.192_0_2_2"));
+        multiAddressProbe.stop();
+        thread.join(1000);
+        Assertions.assertFalse(thread.isAlive());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.schedule;
+
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AdaptiveScheduleTest {
+
+    @Test
+    public void testFailuresSpeedUpToFloor() {
+        AtomicLong delay = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(1000));
+        AdaptiveSchedule schedule = new AdaptiveSchedule(new ProbeConfiguration(baseConfig()), delay);
+        Assertions.assertEquals(1.0, schedule.rate());
+        schedule.failed();
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(500), delay.get());
+        schedule.failed();
+        schedule.failed();
+        schedule.failed();
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), delay.get());
+        Assertions.assertEquals(10.0, schedule.rate());
+    }
+
+    @Test
+    public void testSlowRecordsSpeedUp() {
+        AtomicLong delay = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(1000));
+        AdaptiveSchedule schedule = new AdaptiveSchedule(new ProbeConfiguration(baseConfig()), delay);
+        schedule.acknowledged(TimeUnit.MILLISECONDS.toNanos(200));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), delay.get());
+        schedule.acknowledged(TimeUnit.MILLISECONDS.toNanos(201));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(500), delay.get());
+    }
+
+    @Test
+    public void testHealthyRecordsBackOffToInterval() {
+        AtomicLong delay = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(100));
+        AdaptiveSchedule schedule = new AdaptiveSchedule(new ProbeConfiguration(baseConfig()), delay);
+        schedule.acknowledged(TimeUnit.MILLISECONDS.toNanos(1));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(125), delay.get());
+        for (int i = 0; i < 20; i++) {
+            schedule.acknowledged(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), delay.get());
+    }
+
+    @Test
+    public void testNextWaitsForDelay() {
+        AtomicLong delay = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(50));
+        AdaptiveSchedule schedule = new AdaptiveSchedule(new ProbeConfiguration(baseConfig()), delay);
+        long first = Assertions.assertDoesNotThrow(schedule::next);
+        long second = Assertions.assertDoesNotThrow(schedule::next);
+        Assertions.assertTrue(second - first >= TimeUnit.MILLISECONDS.toNanos(50));
+        Assertions.assertEquals(0L, schedule.expectedInterval());
+    }
+
+    private Map<String, String> baseConfig() {
+        Map<String, String> map = new HashMap<>();
+        map.put("probe.interval", "1000");
+        map.put("probe.scheduling", "adaptive");
+        map.put("probe.adaptive.floor", "100");
+        map.put("probe.adaptive.threshold", "200");
+        return map;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.schedule;
+
+import com.teragrep.rlp_11.Configuration.ProbeConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class FixedRateScheduleTest {
+
+    @Test
+    public void testSlotsAreFixedRate() {
+        FixedRateSchedule schedule = new FixedRateSchedule(new ProbeConfiguration(baseConfig()));
+        long first = Assertions.assertDoesNotThrow(schedule::next);
+        long second = Assertions.assertDoesNotThrow(schedule::next);
+        long third = Assertions.assertDoesNotThrow(schedule::next);
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(50), second - first);
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(50), third - second);
+        Assertions.assertTrue(System.nanoTime() - third >= 0);
+    }
+
+    @Test
+    public void testMissedSlotsAreSkipped() {
+        FixedRateSchedule schedule = new FixedRateSchedule(new ProbeConfiguration(baseConfig()));
+        long first = Assertions.assertDoesNotThrow(schedule::next);
+        // stall for more than three slots
+        Assertions.assertDoesNotThrow(() -> Thread.sleep(175));
+        long second = Assertions.assertDoesNotThrow(schedule::next);
+        long interval = TimeUnit.MILLISECONDS.toNanos(50);
+        Assertions.assertEquals(0, (second - first) % interval);
+        Assertions.assertTrue(second - first >= 3 * interval);
+        Assertions.assertTrue(System.nanoTime() - second < 2 * interval);
+    }
+
+    @Test
+    public void testExpectedInterval() {
+        FixedRateSchedule schedule = new FixedRateSchedule(new ProbeConfiguration(baseConfig()));
+        Assertions.assertEquals(TimeUnit.MILLISECONDS.toNanos(50), schedule.expectedInterval());
+    }
+
+    private Map<String, String> baseConfig() {
+        Map<String, String> map = new HashMap<>();
+        map.put("probe.interval", "50");
+        map.put("probe.scheduling", "fixedrate");
+        return map;
+    }
+}
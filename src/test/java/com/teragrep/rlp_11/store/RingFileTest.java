@@ -0,0 +1,281 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.store;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingWindowReservoir;
+import com.teragrep.rlp_11.RelpProbe;
+import com.teragrep.rlp_11.metrics.MetricNames;
+import com.teragrep.rlp_11.metrics.ObservedTimer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class RingFileTest {
+
+    private Path path;
+
+    @BeforeEach
+    public void createFile() {
+        path = Assertions.assertDoesNotThrow(() -> Files.createTempFile("rlp_11", ".ring"));
+    }
+
+    @AfterEach
+    public void deleteFile() {
+        Assertions.assertDoesNotThrow(() -> Files.deleteIfExists(path));
+    }
+
+    @Test
+    public void testSamplesReadBack() throws IOException {
+        try (final RingFile ringFile = new RingFile(path, 16)) {
+            ringFile.append(1000L, "first", "sendLatency", 1_500_000L, RingFile.OUTCOME_OK);
+            ringFile.append(2000L, "", "connectLatency", 2_500_000L, RingFile.OUTCOME_FAILED);
+        }
+        Assertions.assertEquals(64 + 16 * 128, Files.size(path));
+        try (final RingFileReader ringFileReader = new RingFileReader(path)) {
+            final List<StoredSample> samples = ringFileReader.samples(0L, Long.MAX_VALUE);
+            Assertions.assertEquals(2, samples.size());
+            Assertions.assertEquals(1000L, samples.get(0).timestamp());
+            Assertions.assertEquals("first", samples.get(0).target());
+            Assertions.assertEquals("sendLatency", samples.get(0).phase());
+            Assertions.assertEquals(1_500_000L, samples.get(0).latencyNanos());
+            Assertions.assertEquals(RingFile.OUTCOME_OK, samples.get(0).outcome());
+            Assertions.assertEquals("", samples.get(1).target());
+            Assertions.assertEquals(RingFile.OUTCOME_FAILED, samples.get(1).outcome());
+            Assertions.assertEquals(1, ringFileReader.samples(1500L, 2000L).size());
+        }
+    }
+
+    @Test
+    public void testOldestSamplesOverwritten() throws IOException {
+        try (final RingFile ringFile = new RingFile(path, 4)) {
+            for (int i = 0; i < 10; i++) {
+                ringFile.append(i, "first", "sendLatency", i, RingFile.OUTCOME_OK);
+            }
+        }
+        try (final RingFileReader ringFileReader = new RingFileReader(path)) {
+            final List<StoredSample> samples = ringFileReader.samples(0L, Long.MAX_VALUE);
+            Assertions.assertEquals(4, samples.size());
+            Assertions.assertEquals(6L, samples.get(0).timestamp());
+            Assertions.assertEquals(9L, samples.get(3).timestamp());
+        }
+    }
+
+    @Test
+    public void testReopenContinues() throws IOException {
+        try (final RingFile ringFile = new RingFile(path, 4)) {
+            ringFile.append(1L, "first", "sendLatency", 1L, RingFile.OUTCOME_OK);
+        }
+        try (final RingFile ringFile = new RingFile(path, 4)) {
+            ringFile.append(2L, "first", "sendLatency", 2L, RingFile.OUTCOME_OK);
+        }
+        try (final RingFileReader ringFileReader = new RingFileReader(path)) {
+            Assertions.assertEquals(2, ringFileReader.samples(0L, Long.MAX_VALUE).size());
+        }
+        // a different capacity starts over
+        try (final RingFile ringFile = new RingFile(path, 8)) {
+            ringFile.append(3L, "first", "sendLatency", 3L, RingFile.OUTCOME_OK);
+        }
+        try (final RingFileReader ringFileReader = new RingFileReader(path)) {
+            Assertions.assertEquals(1, ringFileReader.samples(0L, Long.MAX_VALUE).size());
+        }
+    }
+
+    @Test
+    public void testLongNamesTruncated() throws IOException {
+        try (final RingFile ringFile = new RingFile(path, 4)) {
+            ringFile.append(1L, "a-very-long-target-name", "aVeryLongPhaseNameForSure", 1L, RingFile.OUTCOME_OK);
+        }
+        try (final RingFileReader ringFileReader = new RingFileReader(path)) {
+            final StoredSample sample = ringFileReader.samples(0L, Long.MAX_VALUE).get(0);
+            Assertions.assertEquals("a-very-long-target-", sample.target());
+            Assertions.assertEquals("aVeryLongPhaseName", sample.phase());
+        }
+    }
+
+    @Test
+    public void testTimerUpdatesStored() throws IOException {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final ObservedTimer named = metricRegistry
+                .register(
+                        new MetricNames(RelpProbe.class, "first").name("sendLatency"),
+                        new ObservedTimer(new SlidingWindowReservoir(10))
+                );
+        final ObservedTimer unnamed = metricRegistry
+                .register(
+                        new MetricNames(RelpProbe.class, "").name("connectLatency"),
+                        new ObservedTimer(new SlidingWindowReservoir(10))
+                );
+        final Clock clock = new Clock() {
+
+            @Override
+            public long getTick() {
+                return 0L;
+            }
+
+            @Override
+            public long getTime() {
+                return 1234L;
+            }
+        };
+        try (final RingFile ringFile = new RingFile(path, 16)) {
+            metricRegistry.addListener(new StoreListener(ringFile, clock));
+            named.update(3, TimeUnit.MILLISECONDS);
+            named.update(1, TimeUnit.MILLISECONDS);
+            unnamed.update(2, TimeUnit.MILLISECONDS);
+        }
+        try (final RingFileReader ringFileReader = new RingFileReader(path)) {
+            final List<StoredSample> samples = ringFileReader.samples(0L, Long.MAX_VALUE);
+            Assertions.assertEquals(3, samples.size());
+            Assertions.assertEquals(1234L, samples.get(0).timestamp());
+            Assertions.assertEquals("first", samples.get(0).target());
+            Assertions.assertEquals("sendLatency", samples.get(0).phase());
+            Assertions.assertEquals("", samples.get(2).target());
+            Assertions.assertEquals("connectLatency", samples.get(2).phase());
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new StoreQuery(ringFileReader)
+                    .print(new PrintStream(out, true, StandardCharsets.UTF_8), 0L, 2000L, "first", "");
+            Assertions
+                    .assertEquals(
+                            "target address phase count failed p50_ms p90_ms p99_ms p999_ms max_ms" + System.lineSeparator()
+                                    + "first - sendLatency 2 0 1.000 3.000 3.000 3.000 3.000" + System.lineSeparator(),
+                            out.toString(StandardCharsets.UTF_8)
+                    );
+        }
+    }
+
+    @Test
+    public void testTimeoutsStoredAsTimedOut() throws IOException {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final ObservedTimer sendLatency = metricRegistry
+                .register(
+                        new MetricNames(RelpProbe.class, "first").name("sendLatency"),
+                        new ObservedTimer(new SlidingWindowReservoir(10))
+                );
+        final ObservedTimer timeoutLatency = metricRegistry
+                .register(
+                        new MetricNames(RelpProbe.class, "first").name("timeoutLatency"),
+                        new ObservedTimer(new SlidingWindowReservoir(10))
+                );
+        try (final RingFile ringFile = new RingFile(path, 16)) {
+            metricRegistry.addListener(new StoreListener(ringFile));
+            sendLatency.update(1, TimeUnit.MILLISECONDS);
+            timeoutLatency.update(5, TimeUnit.SECONDS);
+        }
+        try (final RingFileReader ringFileReader = new RingFileReader(path)) {
+            final List<StoredSample> samples = ringFileReader.samples(0L, Long.MAX_VALUE);
+            Assertions.assertEquals(2, samples.size());
+            Assertions.assertEquals("sendLatency", samples.get(0).phase());
+            Assertions.assertEquals(RingFile.OUTCOME_OK, samples.get(0).outcome());
+            Assertions.assertEquals("timeoutLatency", samples.get(1).phase());
+            Assertions.assertEquals(RingFile.OUTCOME_TIMEOUT, samples.get(1).outcome());
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new StoreQuery(ringFileReader)
+                    .print(new PrintStream(out, true, StandardCharsets.UTF_8), 0L, Long.MAX_VALUE, "", "timeoutLatency");
+            Assertions
+                    .assertEquals(
+                            "target address phase count failed p50_ms p90_ms p99_ms p999_ms max_ms" + System.lineSeparator()
+                                    + "first - timeoutLatency 1 1 5000.000 5000.000 5000.000 5000.000 5000.000"
+                                    + System.lineSeparator(),
+                            out.toString(StandardCharsets.UTF_8)
+                    );
+        }
+    }
+
+    @Test
+    public void testAddressStoredApartFromTarget() throws IOException {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final ObservedTimer named = metricRegistry
+                .register(
+                        new MetricNames(RelpProbe.class, "first", "192.0.2.1").name("sendLatency"),
+                        new ObservedTimer(new SlidingWindowReservoir(10))
+                );
+        final ObservedTimer unnamed = metricRegistry
+                .register(
+                        new MetricNames(RelpProbe.class, "", "2001:db8::1").name("sendLatency"),
+                        new ObservedTimer(new SlidingWindowReservoir(10))
+                );
+        try (final RingFile ringFile = new RingFile(path, 16)) {
+            metricRegistry.addListener(new StoreListener(ringFile));
+            named.update(1, TimeUnit.MILLISECONDS);
+            unnamed.update(2, TimeUnit.MILLISECONDS);
+        }
+        try (final RingFileReader ringFileReader = new RingFileReader(path)) {
+            final List<StoredSample> samples = ringFileReader.samples(0L, Long.MAX_VALUE);
+            Assertions.assertEquals(2, samples.size());
+            Assertions.assertEquals("first", samples.get(0).target());
+            Assertions.assertEquals("192_0_2_1", samples.get(0).address());
+            Assertions.assertEquals("sendLatency", samples.get(0).phase());
+            Assertions.assertEquals("", samples.get(1).target());
+            Assertions.assertEquals("2001_db8__1", samples.get(1).address());
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new StoreQuery(ringFileReader)
+                    .print(new PrintStream(out, true, StandardCharsets.UTF_8), 0L, Long.MAX_VALUE, "first", "");
+            Assertions
+                    .assertEquals(
+                            "target address phase count failed p50_ms p90_ms p99_ms p999_ms max_ms"
+                                    + System.lineSeparator()
+                                    + "first 192_0_2_1 sendLatency 1 0 1.000 1.000 1.000 1.000 1.000"
+                                    + System.lineSeparator(),
+                            out.toString(StandardCharsets.UTF_8)
+                    );
+        }
+    }
+}
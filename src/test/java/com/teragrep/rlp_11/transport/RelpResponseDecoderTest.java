@@ -0,0 +1,141 @@
+/*
+ * RELP Commit Latency Probe RLP-11
+ * Copyright (C) 2024 Suomen Kanuuna Oy
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ *
+ *
+ * Additional permission under GNU Affero General Public License version 3
+ * section 7
+ *
+ * If you modify this Program, or any covered work, by linking or combining it
+ * with other code, such other code is not for that reason alone subject to any
+ * of the requirements of the GNU Affero GPL version 3 as long as this Program
+ * is the same Program as licensed from Suomen Kanuuna Oy without any additional
+ * modifications.
+ *
+ * Supplemented terms under GNU Affero General Public License version 3
+ * section 7
+ *
+ * Origin of the software must be attributed to Suomen Kanuuna Oy. Any modified
+ * versions must be marked as "Modified version of" The Program.
+ *
+ * Names of the licensors and authors may not be used for publicity purposes.
+ *
+ * No rights are granted for use of trade names, trademarks, or service marks
+ * which are in The Program if any.
+ *
+ * Licensee must indemnify licensors and authors for any liability that these
+ * contractual assumptions impose on licensors and authors.
+ *
+ * To the extent this program is licensed as part of the Commercial versions of
+ * Teragrep, the applicable Commercial License may apply to this file if you as
+ * a licensee so wish it.
+ */
+package com.teragrep.rlp_11.transport;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class RelpResponseDecoderTest {
+
+    @Test
+    public void testResponse() {
+        RelpResponseDecoder decoder = new RelpResponseDecoder();
+        ByteBuffer buffer = ByteBuffer.wrap("12 rsp 6 200 OK\n".getBytes(StandardCharsets.US_ASCII));
+        Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> decoder.decode(buffer)));
+        Assertions.assertEquals(12, decoder.txnr());
+        Assertions.assertTrue(decoder.isResponse());
+        Assertions.assertFalse(decoder.isServerClose());
+        Assertions.assertEquals(200, decoder.code());
+        Assertions.assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testSplitFrames() {
+        RelpResponseDecoder decoder = new RelpResponseDecoder();
+        byte[] frames = "1 rsp 6 200 OK\n2 rsp 24 500 error writing record\n0 serverclose 0\n"
+                .getBytes(StandardCharsets.US_ASCII);
+        int[] txnrs = new int[3];
+        int[] codes = new int[3];
+        int decoded = 0;
+        // one byte at a time, as if every read returned a single byte
+        for (byte b : frames) {
+            ByteBuffer buffer = ByteBuffer.wrap(new byte[] {
+                    b
+            });
+            if (Assertions.assertDoesNotThrow(() -> decoder.decode(buffer))) {
+                txnrs[decoded] = decoder.txnr();
+                codes[decoded] = decoder.code();
+                decoded++;
+            }
+        }
+        Assertions.assertEquals(3, decoded);
+        Assertions.assertArrayEquals(new int[] {
+                1, 2, 0
+        }, txnrs);
+        Assertions.assertArrayEquals(new int[] {
+                200, 500, -1
+        }, codes);
+        Assertions.assertTrue(decoder.isServerClose());
+    }
+
+    @Test
+    public void testIncompleteFrame() {
+        RelpResponseDecoder decoder = new RelpResponseDecoder();
+        ByteBuffer buffer = ByteBuffer.wrap("3 rsp 6 20".getBytes(StandardCharsets.US_ASCII));
+        Assertions.assertFalse(Assertions.assertDoesNotThrow(() -> decoder.decode(buffer)));
+        Assertions.assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testInvalidFrame() {
+        RelpResponseDecoder decoder = new RelpResponseDecoder();
+        ByteBuffer buffer = ByteBuffer.wrap("x rsp 6 200 OK\n".getBytes(StandardCharsets.US_ASCII));
+        Assertions.assertThrows(IOException.class, () -> decoder.decode(buffer));
+    }
+
+    @Test
+    public void testEncodedFrameRoundTrip() {
+        RelpFrameEncoder encoder = new RelpFrameEncoder();
+        byte[] command = "rsp".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer data = ByteBuffer.wrap("200 OK".getBytes(StandardCharsets.US_ASCII));
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        encoder.encode(buffer, 999_999_999, command, data);
+        Assertions.assertEquals(encoder.length(999_999_999, command, 6), buffer.position());
+        buffer.flip();
+        Assertions
+                .assertEquals(
+                        "999999999 rsp 6 200 OK\n",
+                        StandardCharsets.US_ASCII.decode(buffer.duplicate()).toString()
+                );
+        RelpResponseDecoder decoder = new RelpResponseDecoder();
+        Assertions.assertTrue(Assertions.assertDoesNotThrow(() -> decoder.decode(buffer)));
+        Assertions.assertEquals(999_999_999, decoder.txnr());
+        Assertions.assertEquals(200, decoder.code());
+    }
+
+    @Test
+    public void testEncodeWithoutData() {
+        RelpFrameEncoder encoder = new RelpFrameEncoder();
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        encoder.encode(buffer, 7, "close".getBytes(StandardCharsets.US_ASCII), ByteBuffer.allocate(0));
+        buffer.flip();
+        Assertions.assertEquals("7 close 0\n", StandardCharsets.US_ASCII.decode(buffer).toString());
+    }
+}